@@ -29,20 +29,36 @@ import org.apache.logging.log4j.core.config.plugins.PluginConfiguration;
 import org.apache.logging.log4j.core.config.plugins.PluginElement;
 import org.apache.logging.log4j.core.config.plugins.validation.constraints.Required;
 import org.apache.logging.log4j.core.layout.PatternLayout;
+import org.apache.logging.log4j.core.util.Constants;
 import org.apache.logging.log4j.status.StatusLogger;
 import org.apache.logging.log4j.util.Strings;
+import redis.clients.jedis.AbstractPipeline;
+import redis.clients.jedis.ClusterPipeline;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.ConnectionPool;
+import redis.clients.jedis.HostAndPort;
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisSentinelPool;
 import redis.clients.jedis.Protocol;
+import redis.clients.jedis.Response;
 import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.params.XAddParams;
 import redis.clients.jedis.util.Pool;
 
 import java.io.Serializable;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -62,7 +78,25 @@ public class RedisAppender implements Appender {
 
     private static final String PUBLISH_COMMAND = "publish";
 
-    private static final Set<String> ALLOWED_COMMANDS = Stream.of(RPUSH_COMMAND, PUBLISH_COMMAND).collect(Collectors.toSet());
+    private static final String XADD_COMMAND = "xadd";
+
+    private static final Set<String> ALLOWED_COMMANDS =
+            Stream.of(RPUSH_COMMAND, PUBLISH_COMMAND, XADD_COMMAND).collect(Collectors.toSet());
+
+    private static final byte[] RPUSH_COMMAND_BYTES = RPUSH_COMMAND.getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] PUBLISH_COMMAND_BYTES = PUBLISH_COMMAND.getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] XADD_COMMAND_BYTES = XADD_COMMAND.getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Capacity above which a grown per-thread encoding buffer gets released rather than reused.
+     * <p>
+     * This is kept to a small multiple of the initial capacity, since every logging thread retains its own buffer,
+     * and thread-per-request servers can have hundreds of them, each grown by a single large event, e.g., a stack trace.
+     * </p>
+     */
+    private static final int MAX_RETAINED_ENCODER_BYTE_BUFFER_SIZE = 4 * Constants.ENCODER_BYTE_BUFFER_SIZE;
 
     private final Configuration config;
 
@@ -78,6 +112,31 @@ public class RedisAppender implements Appender {
 
     private final byte[] keyBytes;
 
+    private final String keyPattern;
+
+    /**
+     * Router resolving the key of every event, if there is a key pattern; <code>null</code>, otherwise.
+     */
+    private final RedisKeyRouter keyRouter;
+
+    private final byte[][] shardKeyBytes;
+
+    /**
+     * Number of flushers partitioning the shards among themselves.
+     * <p>
+     * If ordered flushing is enabled, flusher <code>i</code> exclusively owns the shards <code>i</code>,
+     * <code>i + shardOwnerCount</code>, <code>i + 2 * shardOwnerCount</code>, etc.
+     * Hence, every key is written by a single flusher, that is, in the order events are polled.
+     * Otherwise, this is 1, that is, every flusher writes to every shard.
+     * </p>
+     */
+    private final int shardOwnerCount;
+
+    /**
+     * Counter to rotate the shard receiving the first chunk of a batch.
+     */
+    private final AtomicInteger shardOffsetCounter = new AtomicInteger(0);
+
     private final String host;
 
     private final int port;
@@ -96,14 +155,61 @@ public class RedisAppender implements Appender {
 
     private final String sentinelMaster;
 
+    private final String clusterNodes;
+
     private final String command;
 
     private final RedisConnectionPoolConfig poolConfig;
 
+    private final RedisStreamConfig streamConfig;
+
+    private final RedisCompressionConfig compressionConfig;
+
+    private final byte[] dictionaryKeyBytes;
+
+    /**
+     * Compressor of events using trained dictionaries, if there is a dictionary key; <code>null</code>, otherwise.
+     */
+    private final RedisDictionaryCompressor dictionaryCompressor;
+
+    private final boolean directEncodersEnabled;
+
+    /**
+     * Native protocol connections indexed by flusher, if enabled; <code>null</code>, otherwise.
+     * <p>
+     * Every connection is lazily opened, and only used, by its flusher.
+     * Connections failed due to I/O errors are closed and reopened on the next push.
+     * </p>
+     */
+    private final AtomicReferenceArray<RedisRespConnection> respConnections;
+
+    private final int maxInFlightBatchCount;
+
+    /**
+     * Native protocol pipelines indexed by flusher, if there can be multiple in-flight batches; <code>null</code>, otherwise.
+     * <p>
+     * These are used in place of {@link #respConnections}, and managed the same way.
+     * </p>
+     */
+    private final AtomicReferenceArray<RedisRespPipeline> respPipelines;
+
+    private final ThreadLocal<RedisByteBufferDestination> encoderDestinationRef;
+
+    private final int encoderThreadCount;
+
+    private final int encoderBufferSize;
+
+    /**
+     * Pool encoding events off the logging threads, if there are encoder threads; <code>null</code>, otherwise.
+     */
+    private final RedisEventEncoderPool encoderPool;
+
     private final RedisThrottler throttler;
 
     private volatile Pool<Jedis> jedisPool;
 
+    private volatile JedisCluster jedisCluster;
+
     private volatile State state;
 
     private volatile ErrorHandler errorHandler = new DefaultErrorHandler(this);
@@ -115,7 +221,15 @@ public class RedisAppender implements Appender {
         this.layout = builder.layout;
         this.database = builder.database;
         this.key = builder.key;
-        this.keyBytes = builder.key.getBytes(builder.charset);
+        this.keyBytes = builder.key != null ? builder.key.getBytes(builder.charset) : null;
+        this.keyPattern = builder.keyPattern;
+        this.keyRouter = builder.keyPattern != null
+                ? new RedisKeyRouter(builder.config, builder.keyPattern, builder.charset, builder.keyCacheSize)
+                : null;
+        this.shardKeyBytes = createShardKeyBytes(builder);
+        this.shardOwnerCount = builder.throttlerConfig.isOrderedFlushEnabled()
+                ? builder.throttlerConfig.getFlushThreadCount()
+                : 1;
         this.host = builder.host;
         this.port = builder.port;
         this.username = builder.username;
@@ -125,11 +239,65 @@ public class RedisAppender implements Appender {
         this.ignoreExceptions = builder.ignoreExceptions;
         this.sentinelNodes = builder.sentinelNodes;
         this.sentinelMaster = builder.sentinelMaster;
+        this.clusterNodes = builder.clusterNodes;
         this.command = builder.command;
         this.poolConfig = builder.poolConfig;
+        this.streamConfig = builder.streamConfig;
+        this.compressionConfig = builder.compressionConfig;
+        String dictionaryKey = builder.compressionConfig != null ? builder.compressionConfig.getDictionaryKey() : null;
+        this.dictionaryKeyBytes = dictionaryKey != null ? dictionaryKey.getBytes(builder.charset) : null;
+        this.dictionaryCompressor = dictionaryKey != null
+                ? new RedisDictionaryCompressor(logPrefix, builder.compressionConfig, this::publishDictionary)
+                : null;
+        this.directEncodersEnabled = builder.directEncodersEnabled;
+        this.maxInFlightBatchCount = builder.maxInFlightBatchCount;
+        this.respConnections = builder.nativeProtocolEnabled && builder.maxInFlightBatchCount == 1
+                ? new AtomicReferenceArray<>(builder.throttlerConfig.getFlushThreadCount())
+                : null;
+        this.respPipelines = builder.maxInFlightBatchCount > 1
+                ? new AtomicReferenceArray<>(builder.throttlerConfig.getFlushThreadCount())
+                : null;
+        this.encoderDestinationRef = builder.directEncodersEnabled
+                ? ThreadLocal.withInitial(() -> new RedisByteBufferDestination(
+                        Constants.ENCODER_BYTE_BUFFER_SIZE,
+                        MAX_RETAINED_ENCODER_BYTE_BUFFER_SIZE))
+                : null;
+        this.encoderThreadCount = builder.encoderThreadCount;
+        this.encoderBufferSize = builder.encoderBufferSize;
+        this.encoderPool = builder.encoderThreadCount > 0
+                ? new RedisEventEncoderPool(
+                        logPrefix,
+                        builder.name + " Encoder",
+                        builder.encoderThreadCount,
+                        builder.encoderBufferSize,
+                        1_000L * builder.socketTimeoutSeconds,
+                        this::encode,
+                        this::pushEncodedEvent)
+                : null;
         this.throttler = new RedisThrottler(builder.getThrottlerConfig(), this, ignoreExceptions);
     }
 
+    /**
+     * Creates the keys of shards, each with a hash tag of its index, e.g., <code>logs:{0}</code>, <code>logs:{1}</code>, etc.
+     * <p>
+     * In cluster mode, hash tags make shards map to different slots, and hence, to different masters.
+     * </p>
+     */
+    private static byte[][] createShardKeyBytes(Builder builder) {
+        if (builder.key == null) {
+            return new byte[0][];
+        }
+        if (builder.keyShardCount == 1) {
+            return new byte[][]{builder.key.getBytes(builder.charset)};
+        }
+        byte[][] shardKeyBytes = new byte[builder.keyShardCount][];
+        for (int shardIndex = 0; shardIndex < builder.keyShardCount; shardIndex++) {
+            String shardKey = String.format("%s:{%d}", builder.key, shardIndex);
+            shardKeyBytes[shardIndex] = shardKey.getBytes(builder.charset);
+        }
+        return shardKeyBytes;
+    }
+
     public Configuration getConfig() {
         return config;
     }
@@ -164,24 +332,422 @@ public class RedisAppender implements Appender {
         return state;
     }
 
-    void consumeThrottledEvents(byte[]... events) {
+    /**
+     * Batch of events split into chunks, and compressed, if configured so, ready to be pushed, see {@link #createBatch(int, byte[][])}.
+     */
+    static final class Batch {
+
+        private final byte[][] events;
+
+        private final List<Chunk> chunks;
+
+        private Batch(byte[][] events, List<Chunk> chunks) {
+            this.events = events;
+            this.chunks = chunks;
+        }
+
+        int getEventCount() {
+            return events.length;
+        }
+
+    }
+
+    /**
+     * Prepares the events to be pushed, once per batch.
+     * <p>
+     * Compression, along with the sampling and training of its dictionary, if any, is performed here rather than in
+     * {@link #consumeThrottledEvents(int, Batch)}, so that retries push the very same payloads without compressing,
+     * sampling, or training again.
+     * </p>
+     *
+     * @param flusherIndex index of the throttler flusher calling this method, determining the shards in ordered flushing
+     * @param events events to be pushed
+     */
+    Batch createBatch(int flusherIndex, byte[]... events) {
+        return new Batch(events, createChunks(flusherIndex, events));
+    }
+
+    /**
+     * Pushes the batch using a connection of its own, hence can be called concurrently by multiple flushers.
+     * <p>
+     * If the push is pipelined (see {@link #isPushPipelined()}), this returns once the events are written,
+     * and the throttler gets notified once their replies arrive.
+     * </p>
+     *
+     * @param flusherIndex index of the throttler flusher calling this method, determining the connection to use
+     * @param batch batch to be pushed, see {@link #createBatch(int, byte[][])}
+     */
+    void consumeThrottledEvents(int flusherIndex, Batch batch) {
+        byte[][] events = batch.events;
+        List<Chunk> chunks = batch.chunks;
         LOGGER.debug("{} consuming {} events", logPrefix, events.length);
-        try (Jedis jedis = jedisPool.getResource()) {
-            Arrays.stream(events).forEachOrdered(event -> sendEvent(jedis, event));
+        JedisCluster cluster = jedisCluster;
+        if (cluster != null) {
+            try (ClusterPipeline pipeline = cluster.pipelined()) {
+                sendEvents(pipeline, chunks);
+            }
+        } else if (respPipelines != null) {
+            writeEvents(flusherIndex, events, chunks);
+        } else if (respConnections != null) {
+            sendEvents(flusherIndex, chunks);
+        } else {
+            try (Jedis jedis = jedisPool.getResource()) {
+                sendEvents(jedis.pipelined(), chunks);
+            }
+        }
+    }
+
+    /**
+     * Contiguous range of (compressed) events to be pushed to a single key.
+     */
+    private static final class Chunk {
+
+        private final byte[] key;
+
+        private final byte[][] events;
+
+        /**
+         * Offsets of the payloads in the events indexed by event, if the events are frames; <code>null</code>, otherwise.
+         */
+        private final int[] payloadOffsets;
+
+        private final int eventOffset;
+
+        private final int eventCount;
+
+        private Chunk(byte[] key, byte[][] events, int[] payloadOffsets, int eventOffset, int eventCount) {
+            this.key = key;
+            this.events = events;
+            this.payloadOffsets = payloadOffsets;
+            this.eventOffset = eventOffset;
+            this.eventCount = eventCount;
+        }
+
+        private int getPayloadOffset(int eventIndex) {
+            return payloadOffsets != null ? payloadOffsets[eventIndex] : 0;
+        }
+
+        /**
+         * @return the payload of the event, copied out of its frame, if necessary
+         */
+        private byte[] getPayload(int eventIndex) {
+            byte[] event = events[eventIndex];
+            int payloadOffset = getPayloadOffset(eventIndex);
+            return payloadOffset == 0 ? event : Arrays.copyOfRange(event, payloadOffset, event.length);
+        }
+
+    }
+
+    /**
+     * Splits the batch into chunks, and compresses them, if configured so.
+     * <p>
+     * If there is a key pattern, events are grouped by their keys, and every group is compressed separately.
+     * Uncompressed events are pushed straight from their frames, where possible.
+     * Events without a key are dropped, see {@link RedisKeyRouter#groupByKey(byte[][])}.
+     * Otherwise, if there are multiple shards, the batch is split into contiguous chunks, one per shard owned by the flusher.
+     * The shard receiving the first chunk rotates, so that batches smaller than the shard count get spread as well.
+     * </p>
+     */
+    private List<Chunk> createChunks(final int flusherIndex, final byte[][] events) {
+        if (keyRouter != null) {
+            List<RedisKeyRouter.KeyGroup> keyGroups = RedisKeyRouter.groupByKey(events);
+            List<Chunk> chunks = new ArrayList<>(keyGroups.size());
+            for (RedisKeyRouter.KeyGroup keyGroup : keyGroups) {
+                byte[][] frames = keyGroup.getFrames();
+                if (keyGroup.getKeyBytes() == null) {
+                    throttler.dropUnroutableEvents(frames.length);
+                } else if (compressionConfig == null) {
+                    chunks.add(new Chunk(keyGroup.getKeyBytes(), frames, keyGroup.getEventOffsets(), 0, frames.length));
+                } else {
+                    byte[][] payloads = compress(keyGroup.copyEvents());
+                    chunks.add(new Chunk(keyGroup.getKeyBytes(), payloads, null, 0, payloads.length));
+                }
+            }
+            return chunks;
+        }
+        byte[][] payloads = compress(events);
+        if (shardKeyBytes.length == 1) {
+            return Collections.singletonList(new Chunk(keyBytes, payloads, null, 0, payloads.length));
+        }
+        int firstShardIndex = flusherIndex % shardOwnerCount;
+        int ownedShardCount = (shardKeyBytes.length - firstShardIndex + shardOwnerCount - 1) / shardOwnerCount;
+        int chunkCount = Math.min(payloads.length, ownedShardCount);
+        int shardOffset = Math.floorMod(shardOffsetCounter.getAndIncrement(), ownedShardCount);
+        List<Chunk> chunks = new ArrayList<>(chunkCount);
+        int eventOffset = 0;
+        for (int chunkIndex = 0; chunkIndex < chunkCount; chunkIndex++) {
+            int chunkLength = payloads.length / chunkCount + (chunkIndex < payloads.length % chunkCount ? 1 : 0);
+            int shardIndex = firstShardIndex + shardOwnerCount * ((shardOffset + chunkIndex) % ownedShardCount);
+            chunks.add(new Chunk(shardKeyBytes[shardIndex], payloads, null, eventOffset, chunkLength));
+            eventOffset += chunkLength;
+        }
+        return chunks;
+    }
+
+    /**
+     * @return {@code true}, if multiple batches can be in flight, and hence, pushes get acknowledged asynchronously
+     */
+    boolean isPushPipelined() {
+        return respPipelines != null;
+    }
+
+    /**
+     * Checks the connectivity by sending a <code>PING</code> to the server, or to every node in cluster mode.
+     * <p>
+     * This is used to probe the server while the circuit breaker is half-open, without risking a batch.
+     * </p>
+     */
+    void ping() {
+        JedisCluster cluster = jedisCluster;
+        if (cluster != null) {
+            for (ConnectionPool nodePool : cluster.getClusterNodes().values()) {
+                try (Connection connection = nodePool.getResource()) {
+                    requirePong(connection.ping());
+                }
+            }
+        } else {
+            try (Jedis jedis = jedisPool.getResource()) {
+                requirePong("PONG".equals(jedis.ping()));
+            }
+        }
+    }
+
+    private static void requirePong(boolean ponged) {
+        if (!ponged) {
+            throw new JedisException("unexpected PING reply");
+        }
+    }
+
+    /**
+     * Compresses the events, if configured so.
+     * <p>
+     * This is performed before borrowing a connection, so that the connection is not held during compression.
+     * </p>
+     */
+    private byte[][] compress(byte[][] events) {
+        if (compressionConfig == null) {
+            return events;
         }
+        if (dictionaryCompressor != null) {
+            return dictionaryCompressor.compress(events);
+        }
+        RedisCompressionCodec codec = compressionConfig.getCodec();
+        if (RedisCompressionConfig.BATCH_MODE.equals(compressionConfig.getMode())) {
+            byte[] frame = RedisBatchFrame.encode(events);
+            return new byte[][]{codec.compress(frame)};
+        }
+        byte[][] payloads = new byte[events.length][];
+        for (int eventIndex = 0; eventIndex < events.length; eventIndex++) {
+            payloads[eventIndex] = codec.compress(events[eventIndex]);
+        }
+        return payloads;
     }
 
-    private void sendEvent(final Jedis jedis, final byte[] event) {
+    /**
+     * Publishes the dictionary to the dictionary hash, keyed by its identifier.
+     * <p>
+     * This is called by the flusher training the dictionary, before pushing any event compressed with it.
+     * </p>
+     */
+    private void publishDictionary(RedisCompressionDictionary dictionary) {
+        byte[] fieldBytes = dictionary.getId().getBytes(StandardCharsets.US_ASCII);
+        JedisCluster cluster = jedisCluster;
+        if (cluster != null) {
+            cluster.hset(dictionaryKeyBytes, fieldBytes, dictionary.getBytes());
+        } else {
+            try (Jedis jedis = jedisPool.getResource()) {
+                jedis.hset(dictionaryKeyBytes, fieldBytes, dictionary.getBytes());
+            }
+        }
+    }
+
+    /**
+     * Sends the given events in a single round trip.
+     * <p>
+     * <code>RPUSH</code> accepts multiple values, hence the entire batch (or its chunk per shard) is sent in a single command.
+     * <code>PUBLISH</code> accepts a single message, and <code>XADD</code> a single entry, hence a command per event.
+     * Commands are pipelined and synced once.
+     * In cluster mode, the pipeline groups the commands by node, and syncs every node once.
+     * </p>
+     */
+    private void sendEvents(final AbstractPipeline pipeline, final List<Chunk> chunks) {
+        List<Response<?>> responses = new ArrayList<>();
+        for (Chunk chunk : chunks) {
+            sendEvents(pipeline, chunk, responses);
+        }
+        pipeline.sync();
+        // Pipelined command failures (e.g., `WRONGTYPE`) only surface while accessing the responses.
+        for (Response<?> response : responses) {
+            response.get();
+        }
+    }
+
+    /**
+     * Sends the events of the chunk using Jedis, which only accepts entire arrays, hence framed events get copied.
+     */
+    private void sendEvents(final AbstractPipeline pipeline, final Chunk chunk, final List<Response<?>> responses) {
+        byte[] key = chunk.key;
+        int eventOffset = chunk.eventOffset;
+        int eventCount = chunk.eventCount;
         if (RPUSH_COMMAND.equals(command)) {
-            jedis.rpush(keyBytes, event);
+            byte[][] values;
+            if (chunk.payloadOffsets == null && eventOffset == 0 && eventCount == chunk.events.length) {
+                values = chunk.events;
+            } else {
+                values = new byte[eventCount][];
+                for (int eventIndex = eventOffset; eventIndex < eventOffset + eventCount; eventIndex++) {
+                    values[eventIndex - eventOffset] = chunk.getPayload(eventIndex);
+                }
+            }
+            responses.add(pipeline.rpush(key, values));
         } else if (PUBLISH_COMMAND.equals(command)) {
-            jedis.publish(keyBytes, event);
+            for (int eventIndex = eventOffset; eventIndex < eventOffset + eventCount; eventIndex++) {
+                responses.add(pipeline.publish(key, chunk.getPayload(eventIndex)));
+            }
+        } else if (XADD_COMMAND.equals(command)) {
+            byte[] fieldBytes = streamConfig.getFieldBytes();
+            XAddParams xAddParams = streamConfig.getXAddParams(System.currentTimeMillis());
+            for (int eventIndex = eventOffset; eventIndex < eventOffset + eventCount; eventIndex++) {
+                Map<byte[], byte[]> fields = Collections.singletonMap(fieldBytes, chunk.getPayload(eventIndex));
+                Response<byte[]> response = pipeline.xadd(key, xAddParams, fields);
+                responses.add(response);
+            }
         } else {
             String message = String.format("unknown command: `%s`", command);
             throw new IllegalArgumentException(message);
         }
     }
 
+    /**
+     * Sends the given events in a single round trip using the native protocol connection of the flusher.
+     * <p>
+     * Commands are encoded straight from the events into the connection buffer, without any per-event allocation.
+     * </p>
+     */
+    private void sendEvents(final int flusherIndex, final List<Chunk> chunks) {
+        RedisRespConnection connection = respConnections.get(flusherIndex);
+        if (connection == null) {
+            connection = openRespConnection();
+            respConnections.set(flusherIndex, connection);
+        }
+        try {
+            for (Chunk chunk : chunks) {
+                sendEvents(connection, chunk);
+            }
+            connection.sync();
+        } catch (JedisConnectionException error) {
+            respConnections.set(flusherIndex, null);
+            connection.close();
+            throw error;
+        }
+    }
+
+    /**
+     * Writes the given events using the native protocol pipeline of the flusher, without waiting for their replies,
+     * unless there are already {@link #maxInFlightBatchCount} batches in flight.
+     * <p>
+     * The original events, rather than the compressed payloads of the chunks, are acknowledged, since failed ones might get spilled.
+     * </p>
+     */
+    private void writeEvents(final int flusherIndex, final byte[][] events, final List<Chunk> chunks) {
+        RedisRespPipeline pipeline = respPipelines.get(flusherIndex);
+        if (pipeline == null) {
+            pipeline = new RedisRespPipeline(
+                    logPrefix,
+                    name + " Pipeline-" + flusherIndex,
+                    openRespConnection(),
+                    maxInFlightBatchCount,
+                    1_000L * socketTimeoutSeconds,
+                    throttler::acknowledgePipelinedPush);
+            respPipelines.set(flusherIndex, pipeline);
+        }
+        try {
+            pipeline.write(events, connection -> {
+                for (Chunk chunk : chunks) {
+                    sendEvents(connection, chunk);
+                }
+            });
+        } catch (JedisConnectionException error) {
+            respPipelines.set(flusherIndex, null);
+            pipeline.close();
+            throw error;
+        }
+    }
+
+    private RedisRespConnection openRespConnection() {
+        return RedisRespConnection.open(
+                host,
+                port,
+                1_000 * connectionTimeoutSeconds,
+                1_000 * socketTimeoutSeconds,
+                username,
+                password,
+                database);
+    }
+
+    /**
+     * Closes the native protocol pipelines, if any, after waiting for their in-flight batches to be acknowledged.
+     * <p>
+     * This is called by the throttler once its flushers are stopped, and before it stops accounting the acknowledgements.
+     * </p>
+     */
+    void closePipelines() {
+        if (respPipelines != null) {
+            for (int flusherIndex = 0; flusherIndex < respPipelines.length(); flusherIndex++) {
+                RedisRespPipeline pipeline = respPipelines.getAndSet(flusherIndex, null);
+                if (pipeline != null) {
+                    pipeline.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the events of the chunk, where framed events are written straight from their frames.
+     */
+    private void sendEvents(final RedisRespConnection connection, final Chunk chunk) {
+        byte[] key = chunk.key;
+        int eventOffset = chunk.eventOffset;
+        int eventCount = chunk.eventCount;
+        if (RPUSH_COMMAND.equals(command)) {
+            connection.writeCommandHeader(2 + eventCount);
+            connection.writeBulkString(RPUSH_COMMAND_BYTES);
+            connection.writeBulkString(key);
+            for (int eventIndex = eventOffset; eventIndex < eventOffset + eventCount; eventIndex++) {
+                writePayload(connection, chunk, eventIndex);
+            }
+        } else if (PUBLISH_COMMAND.equals(command)) {
+            for (int eventIndex = eventOffset; eventIndex < eventOffset + eventCount; eventIndex++) {
+                connection.writeCommandHeader(3);
+                connection.writeBulkString(PUBLISH_COMMAND_BYTES);
+                connection.writeBulkString(key);
+                writePayload(connection, chunk, eventIndex);
+            }
+        } else if (XADD_COMMAND.equals(command)) {
+            byte[][] argBytes = streamConfig.getXAddArgBytes(System.currentTimeMillis());
+            byte[] fieldBytes = streamConfig.getFieldBytes();
+            for (int eventIndex = eventOffset; eventIndex < eventOffset + eventCount; eventIndex++) {
+                connection.writeCommandHeader(4 + argBytes.length);
+                connection.writeBulkString(XADD_COMMAND_BYTES);
+                connection.writeBulkString(key);
+                for (byte[] arg : argBytes) {
+                    connection.writeBulkString(arg);
+                }
+                connection.writeBulkString(fieldBytes);
+                writePayload(connection, chunk, eventIndex);
+            }
+        } else {
+            String message = String.format("unknown command: `%s`", command);
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    private static void writePayload(final RedisRespConnection connection, final Chunk chunk, final int eventIndex) {
+        byte[] event = chunk.events[eventIndex];
+        int payloadOffset = chunk.getPayloadOffset(eventIndex);
+        connection.writeBulkString(event, payloadOffset, event.length - payloadOffset);
+    }
+
     public RedisThrottlerJmxBean getJmxBean() {
         return throttler.getJmxBean();
     }
@@ -189,15 +755,87 @@ public class RedisAppender implements Appender {
     @Override
     public void append(LogEvent event) {
         if (State.STARTED.equals(state)) {
-            LOGGER.debug("{} appending: {}", logPrefix, event.getMessage().getFormattedMessage());
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("{} appending: {}", logPrefix, event.getMessage().getFormattedMessage());
+            }
+            LogEvent admittedEvent = throttler.admit(event);
+            if (encoderPool == null) {
+                byte[] eventBytes = null;
+                Throwable encodingError = null;
+                if (admittedEvent != null) {
+                    try {
+                        eventBytes = encode(admittedEvent);
+                    } catch (Exception error) {
+                        encodingError = error;
+                    }
+                }
+                pushEncodedEvent(admittedEvent, eventBytes, encodingError, event.isEndOfBatch());
+            }
+            // The end of batch signal needs to follow the events being encoded, even if this event is dropped.
+            else if (admittedEvent != null || event.isEndOfBatch()) {
+                LogEvent snapshot = admittedEvent != null ? admittedEvent.toImmutable() : null;
+                if (!encoderPool.submit(snapshot, event.isEndOfBatch()) && snapshot != null) {
+                    throttler.rejectUnencodedEvent();
+                }
+            }
+            // Encoding failures surface here, on the logging thread, since encoder threads have no caller to throw to.
+            throttler.throwEncodingFailure();
+        }
+    }
+
+    private void pushEncodedEvent(LogEvent event, byte[] eventBytes, Throwable encodingError, boolean endOfBatch) {
+        if (encodingError != null) {
+            throttler.failEncoding(encodingError);
+        } else if (eventBytes != null) {
+            throttler.push(eventBytes, event.getLevel());
+        }
+        if (endOfBatch) {
+            throttler.endBatch();
+        }
+    }
+
+    /**
+     * Encodes the given event.
+     * <p>
+     * If direct encoders are enabled, the layout encodes the event into a per-thread reusable buffer.
+     * For garbage-free layouts (e.g., <code>PatternLayout</code> and <code>JsonTemplateLayout</code>), this avoids
+     * the intermediate <code>String</code> and <code>byte[]</code> allocations of {@link Layout#toByteArray(LogEvent)}.
+     * The encoded bytes are copied once into an array of exact size, since the event outlives this call in the throttler
+     * buffer and Jedis only accepts arrays.
+     * </p>
+     * <p>
+     * If there is a key pattern, the event is framed along with its key, see {@link RedisKeyRouter}.
+     * </p>
+     * <p>
+     * If there are encoder threads, this runs on them rather than on the logging threads, see {@link RedisEventEncoderPool}.
+     * </p>
+     */
+    private byte[] encode(LogEvent event) {
+        byte[] eventKeyBytes = keyRouter != null ? keyRouter.resolveKeyBytes(event) : null;
+        if (!directEncodersEnabled) {
             byte[] eventBytes = layout.toByteArray(event);
-            throttler.push(eventBytes);
+            return eventKeyBytes != null ? RedisKeyRouter.frame(eventKeyBytes, eventBytes) : eventBytes;
+        }
+        RedisByteBufferDestination destination = encoderDestinationRef.get();
+        try {
+            if (eventKeyBytes != null) {
+                RedisKeyRouter.writeFrameHeader(eventKeyBytes, destination);
+            }
+            layout.encode(event, destination);
+            return destination.toByteArray();
+        } finally {
+            destination.reset();
         }
     }
 
     @Override
     public void initialize() {
-        changeState(null, State.INITIALIZING, State.INITIALIZED, throttler::start);
+        changeState(null, State.INITIALIZING, State.INITIALIZED, () -> {
+            throttler.start();
+            if (encoderPool != null) {
+                encoderPool.start();
+            }
+        });
     }
 
     @Override
@@ -244,8 +882,11 @@ public class RedisAppender implements Appender {
     public synchronized void stop() {
         LOGGER.info("{} stopping", logPrefix);
         state = State.STOPPING;
+        if (encoderPool != null) {
+            encoderPool.close();
+        }
         throttler.close();
-        if (jedisPool != null && !jedisPool.isClosed()) {
+        if ((jedisPool != null && !jedisPool.isClosed()) || jedisCluster != null) {
             disconnect();
         }
         state = State.STOPPED;
@@ -255,8 +896,24 @@ public class RedisAppender implements Appender {
         LOGGER.debug("{} connecting", logPrefix);
         int connectionTimeoutMillis = 1_000 * connectionTimeoutSeconds;
         int socketTimeoutMillis = 1_000 * socketTimeoutSeconds;
+        boolean cluster = isNotBlank(clusterNodes);
         boolean sentinel = isNotBlank(sentinelNodes);
-        if (sentinel) {
+        if (cluster) {
+            Set<HostAndPort> clusterNodesAsSet = Stream
+                    .of(clusterNodes.split("\\s*,\\s*"))
+                    .filter(Strings::isNotBlank)
+                    .map(HostAndPort::from)
+                    .collect(Collectors.toSet());
+            jedisCluster = new JedisCluster(
+                    clusterNodesAsSet,
+                    connectionTimeoutMillis,
+                    socketTimeoutMillis,
+                    JedisCluster.DEFAULT_MAX_ATTEMPTS,
+                    username,
+                    password,
+                    null,       // clientName
+                    poolConfig.getConnectionPoolConfig());
+        } else if (sentinel) {
             Set<String> sentinelNodesAsSet = Stream
                     .of(sentinelNodes.split("\\s*,\\s*"))
                     .filter(Strings::isNotBlank)
@@ -292,13 +949,27 @@ public class RedisAppender implements Appender {
     private void disconnect() {
         LOGGER.debug("{} disconnecting", logPrefix);
         try {
-            jedisPool.destroy();
+            if (jedisCluster != null) {
+                jedisCluster.close();
+            } else {
+                jedisPool.destroy();
+            }
         } catch (JedisConnectionException error) {
             if (LOGGER.isWarnEnabled()) {
                 LOGGER.warn(logPrefix + " disconnect failure", error);
             }
         } finally {
             jedisPool = null;
+            jedisCluster = null;
+        }
+        closePipelines();
+        if (respConnections != null) {
+            for (int flusherIndex = 0; flusherIndex < respConnections.length(); flusherIndex++) {
+                RedisRespConnection connection = respConnections.getAndSet(flusherIndex, null);
+                if (connection != null) {
+                    connection.close();
+                }
+            }
         }
     }
 
@@ -319,11 +990,18 @@ public class RedisAppender implements Appender {
                 ", layout='" + layout + '\'' +
                 ", database=" + database +
                 ", key='" + key + '\'' +
+                ", keyPattern='" + keyPattern + '\'' +
+                ", keyShardCount=" + shardKeyBytes.length +
                 ", host='" + host + '\'' +
                 ", port=" + port +
                 ", connectionTimeoutSeconds=" + connectionTimeoutSeconds +
                 ", socketTimeoutSeconds=" + socketTimeoutSeconds +
                 ", ignoreExceptions=" + ignoreExceptions +
+                ", directEncodersEnabled=" + directEncodersEnabled +
+                ", nativeProtocolEnabled=" + (respConnections != null || respPipelines != null) +
+                ", maxInFlightBatchCount=" + maxInFlightBatchCount +
+                ", encoderThreadCount=" + encoderThreadCount +
+                ", encoderBufferSize=" + encoderBufferSize +
                 '}';
     }
 
@@ -351,9 +1029,14 @@ public class RedisAppender implements Appender {
         private int database = 0;
 
         @PluginBuilderAttribute
-        @Required(message = "missing key")
         private String key;
 
+        @PluginBuilderAttribute
+        private String keyPattern;
+
+        @PluginBuilderAttribute
+        private int keyCacheSize = 1_000;
+
         @PluginBuilderAttribute
         private String host = "localhost";
 
@@ -381,15 +1064,42 @@ public class RedisAppender implements Appender {
         @PluginBuilderAttribute
         private String sentinelMaster;
 
+        @PluginBuilderAttribute
+        private String clusterNodes;
+
+        @PluginBuilderAttribute
+        private int keyShardCount = 1;
+
         @PluginElement("RedisConnectionPoolConfig")
         private RedisConnectionPoolConfig poolConfig = RedisConnectionPoolConfig.newBuilder().build();
 
+        @PluginElement("RedisStreamConfig")
+        private RedisStreamConfig streamConfig = RedisStreamConfig.newBuilder().build();
+
         @PluginElement("RedisThrottlerConfig")
         private RedisThrottlerConfig throttlerConfig = RedisThrottlerConfig.newBuilder().build();
 
+        @PluginElement("RedisCompressionConfig")
+        private RedisCompressionConfig compressionConfig = null;
+
         @PluginBuilderAttribute
         private String command = RPUSH_COMMAND;
 
+        @PluginBuilderAttribute
+        private boolean directEncodersEnabled = Constants.ENABLE_DIRECT_ENCODERS && Constants.ENABLE_THREADLOCALS;
+
+        @PluginBuilderAttribute
+        private boolean nativeProtocolEnabled = false;
+
+        @PluginBuilderAttribute
+        private int maxInFlightBatchCount = 1;
+
+        @PluginBuilderAttribute
+        private int encoderThreadCount = 0;
+
+        @PluginBuilderAttribute
+        private int encoderBufferSize = 1_024;
+
         private Builder() {
             // Do nothing.
         }
@@ -448,6 +1158,24 @@ public class RedisAppender implements Appender {
             return this;
         }
 
+        public String getKeyPattern() {
+            return keyPattern;
+        }
+
+        public Builder setKeyPattern(String keyPattern) {
+            this.keyPattern = keyPattern;
+            return this;
+        }
+
+        public int getKeyCacheSize() {
+            return keyCacheSize;
+        }
+
+        public Builder setKeyCacheSize(int keyCacheSize) {
+            this.keyCacheSize = keyCacheSize;
+            return this;
+        }
+
         public String getHost() {
             return host;
         }
@@ -520,6 +1248,24 @@ public class RedisAppender implements Appender {
             return this;
         }
 
+        public String getClusterNodes() {
+            return clusterNodes;
+        }
+
+        public Builder setClusterNodes(String clusterNodes) {
+            this.clusterNodes = clusterNodes;
+            return this;
+        }
+
+        public int getKeyShardCount() {
+            return keyShardCount;
+        }
+
+        public Builder setKeyShardCount(int keyShardCount) {
+            this.keyShardCount = keyShardCount;
+            return this;
+        }
+
         public RedisConnectionPoolConfig getPoolConfig() {
             return poolConfig;
         }
@@ -529,6 +1275,15 @@ public class RedisAppender implements Appender {
             return this;
         }
 
+        public RedisStreamConfig getStreamConfig() {
+            return streamConfig;
+        }
+
+        public Builder setStreamConfig(RedisStreamConfig streamConfig) {
+            this.streamConfig = streamConfig;
+            return this;
+        }
+
         public RedisThrottlerConfig getThrottlerConfig() {
             return throttlerConfig;
         }
@@ -538,6 +1293,69 @@ public class RedisAppender implements Appender {
             return this;
         }
 
+        public RedisCompressionConfig getCompressionConfig() {
+            return compressionConfig;
+        }
+
+        public Builder setCompressionConfig(RedisCompressionConfig compressionConfig) {
+            this.compressionConfig = compressionConfig;
+            return this;
+        }
+
+        public String getCommand() {
+            return command;
+        }
+
+        public Builder setCommand(String command) {
+            this.command = command;
+            return this;
+        }
+
+        public boolean isDirectEncodersEnabled() {
+            return directEncodersEnabled;
+        }
+
+        public Builder setDirectEncodersEnabled(boolean directEncodersEnabled) {
+            this.directEncodersEnabled = directEncodersEnabled;
+            return this;
+        }
+
+        public boolean isNativeProtocolEnabled() {
+            return nativeProtocolEnabled;
+        }
+
+        public Builder setNativeProtocolEnabled(boolean nativeProtocolEnabled) {
+            this.nativeProtocolEnabled = nativeProtocolEnabled;
+            return this;
+        }
+
+        public int getMaxInFlightBatchCount() {
+            return maxInFlightBatchCount;
+        }
+
+        public Builder setMaxInFlightBatchCount(int maxInFlightBatchCount) {
+            this.maxInFlightBatchCount = maxInFlightBatchCount;
+            return this;
+        }
+
+        public int getEncoderThreadCount() {
+            return encoderThreadCount;
+        }
+
+        public Builder setEncoderThreadCount(int encoderThreadCount) {
+            this.encoderThreadCount = encoderThreadCount;
+            return this;
+        }
+
+        public int getEncoderBufferSize() {
+            return encoderBufferSize;
+        }
+
+        public Builder setEncoderBufferSize(int encoderBufferSize) {
+            this.encoderBufferSize = encoderBufferSize;
+            return this;
+        }
+
         @Override
         public RedisAppender build() {
             check();
@@ -550,18 +1368,61 @@ public class RedisAppender implements Appender {
             requireNonNull(charset, "charset");
             requireNonNull(layout, "layout");
             requireArgument(database >= 0, "expecting: database >= 0, found: %d", database);
-            requireArgument(Strings.isNotBlank(key), "blank key");
+            if (keyPattern == null) {
+                requireArgument(Strings.isNotBlank(key), "blank key");
+            } else {
+                requireArgument(Strings.isNotBlank(keyPattern), "blank key pattern");
+                requireArgument(key == null, "expecting either key or keyPattern, found both");
+                requireArgument(keyShardCount == 1, "expecting: keyShardCount == 1 with keyPattern, found: %d", keyShardCount);
+                requireArgument(keyCacheSize > 0, "expecting: keyCacheSize > 0, found: %d", keyCacheSize);
+            }
             requireArgument(Strings.isNotBlank(host), "blank host");
             requireArgument(port > 0, "expecting: port > 0, found: %d", port);
             if (sentinelNodes != null) {
                 requireArgument(Strings.isNotBlank(sentinelNodes), "blank sentinel nodes");
                 requireArgument(Strings.isNotBlank(sentinelMaster), "blank sentinel master");
             }
+            if (clusterNodes != null) {
+                requireArgument(Strings.isNotBlank(clusterNodes), "blank cluster nodes");
+                requireArgument(sentinelNodes == null, "expecting either cluster or sentinel nodes, found both");
+                requireArgument(database == 0, "expecting: database == 0 in cluster mode, found: %d", database);
+            }
+            requireArgument(keyShardCount > 0, "expecting: keyShardCount > 0, found: %d", keyShardCount);
+            requireArgument(
+                    keyShardCount == 1 || !PUBLISH_COMMAND.equals(command),
+                    "expecting: keyShardCount == 1 for publish command, found: %d",
+                    keyShardCount);
             requireArgument(connectionTimeoutSeconds > 0, "expecting: connectionTimeoutSeconds > 0, found: %d", connectionTimeoutSeconds);
             requireArgument(socketTimeoutSeconds > 0, "expecting: socketTimeoutSeconds > 0, found: %d", socketTimeoutSeconds);
             requireNonNull(poolConfig, "poolConfig");
+            requireNonNull(streamConfig, "streamConfig");
             requireNonNull(throttlerConfig, "throttlerConfig");
+            if (throttlerConfig.isOrderedFlushEnabled()) {
+                requireArgument(
+                        keyShardCount >= throttlerConfig.getFlushThreadCount(),
+                        "expecting: keyShardCount >= flushThreadCount for ordered flushing, found: %d",
+                        keyShardCount);
+            }
             requireArgument(ALLOWED_COMMANDS.contains(command), "expecting: anyOf %s, found: %s", ALLOWED_COMMANDS, command);
+            requireArgument(
+                    !nativeProtocolEnabled || (sentinelNodes == null && clusterNodes == null),
+                    "expecting: no sentinel or cluster nodes for native protocol, found: %s",
+                    sentinelNodes != null ? sentinelNodes : clusterNodes);
+            requireArgument(maxInFlightBatchCount > 0, "expecting: maxInFlightBatchCount > 0, found: %d", maxInFlightBatchCount);
+            requireArgument(
+                    maxInFlightBatchCount == 1 || nativeProtocolEnabled,
+                    "expecting: nativeProtocolEnabled for maxInFlightBatchCount > 1, found: %d",
+                    maxInFlightBatchCount);
+            // Pipelined pushes return once written, hence whatever needs the replies can't be combined with them.
+            requireArgument(
+                    maxInFlightBatchCount == 1 || (
+                            throttlerConfig.getSpillQueueConfig() == null &&
+                                    throttlerConfig.getCircuitBreakerConfig() == null &&
+                                    !throttlerConfig.isAdaptiveBatchingEnabled()),
+                    "expecting: no spill queue, circuit breaker, or adaptive batching for maxInFlightBatchCount > 1, found: %d",
+                    maxInFlightBatchCount);
+            requireArgument(encoderThreadCount >= 0, "expecting: encoderThreadCount >= 0, found: %d", encoderThreadCount);
+            requireArgument(encoderBufferSize > 0, "expecting: encoderBufferSize > 0, found: %d", encoderBufferSize);
         }
 
         @Override
@@ -571,13 +1432,22 @@ public class RedisAppender implements Appender {
                     ", layout='" + layout + '\'' +
                     ", database=" + database +
                     ", key='" + key + '\'' +
+                    ", keyPattern='" + keyPattern + '\'' +
+                    ", keyCacheSize=" + keyCacheSize +
+                    ", keyShardCount=" + keyShardCount +
                     ", command='" + command + '\'' +
                     ", username='" + username + '\'' +
                     ", host='" + host + '\'' +
                     ", port=" + port +
+                    ", clusterNodes='" + clusterNodes + '\'' +
                     ", connectionTimeoutSeconds=" + connectionTimeoutSeconds +
                     ", socketTimeoutSeconds=" + socketTimeoutSeconds +
                     ", ignoreExceptions=" + ignoreExceptions +
+                    ", directEncodersEnabled=" + directEncodersEnabled +
+                    ", nativeProtocolEnabled=" + nativeProtocolEnabled +
+                    ", maxInFlightBatchCount=" + maxInFlightBatchCount +
+                    ", encoderThreadCount=" + encoderThreadCount +
+                    ", encoderBufferSize=" + encoderBufferSize +
                     '}';
         }
 
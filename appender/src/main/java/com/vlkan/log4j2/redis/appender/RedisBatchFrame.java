@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Frame packing multiple events into a single payload.
+ * <p>
+ * A frame is the concatenation of events, each prefixed with its length as a 4-byte big-endian integer.
+ * Consumers can use {@link #decode(byte[])} to unpack a (decompressed) frame.
+ * </p>
+ */
+public final class RedisBatchFrame {
+
+    private RedisBatchFrame() {}
+
+    public static byte[] encode(byte[][] events) {
+        int frameLength = 0;
+        for (byte[] event : events) {
+            frameLength = Math.addExact(frameLength, Integer.BYTES + event.length);
+        }
+        ByteBuffer frame = ByteBuffer.allocate(frameLength);
+        for (byte[] event : events) {
+            frame.putInt(event.length);
+            frame.put(event);
+        }
+        return frame.array();
+    }
+
+    public static byte[][] decode(byte[] frame) {
+        ByteBuffer frameBuffer = ByteBuffer.wrap(frame);
+        List<byte[]> events = new ArrayList<>();
+        while (frameBuffer.hasRemaining()) {
+            int eventLength = frameBuffer.getInt();
+            byte[] event = new byte[eventLength];
+            frameBuffer.get(event);
+            events.add(event);
+        }
+        return events.toArray(new byte[0][]);
+    }
+
+}
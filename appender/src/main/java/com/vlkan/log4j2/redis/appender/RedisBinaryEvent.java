@@ -0,0 +1,195 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.apache.logging.log4j.Level;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Event decoded from the output of {@link RedisBinaryLayout}.
+ */
+public final class RedisBinaryEvent {
+
+    private final long timeMillis;
+
+    private final int nanoOfMillisecond;
+
+    private final Level level;
+
+    private final String loggerName;
+
+    private final String threadName;
+
+    private final String message;
+
+    private final Map<String, String> contextData;
+
+    private final String thrown;
+
+    private RedisBinaryEvent(
+            long timeMillis,
+            int nanoOfMillisecond,
+            Level level,
+            String loggerName,
+            String threadName,
+            String message,
+            Map<String, String> contextData,
+            String thrown) {
+        this.timeMillis = timeMillis;
+        this.nanoOfMillisecond = nanoOfMillisecond;
+        this.level = level;
+        this.loggerName = loggerName;
+        this.threadName = threadName;
+        this.message = message;
+        this.contextData = contextData;
+        this.thrown = thrown;
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    public int getNanoOfMillisecond() {
+        return nanoOfMillisecond;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public String getLoggerName() {
+        return loggerName;
+    }
+
+    public String getThreadName() {
+        return threadName;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public Map<String, String> getContextData() {
+        return contextData;
+    }
+
+    /**
+     * @return the stack trace of the thrown exception, if there was any and the layout has stack traces enabled; <code>null</code>, otherwise
+     */
+    public String getThrown() {
+        return thrown;
+    }
+
+    /**
+     * @throws IllegalArgumentException on an unsupported format version or malformed input
+     */
+    public static RedisBinaryEvent decode(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        try {
+            int formatVersion = buffer.get();
+            if (formatVersion != RedisBinaryLayout.FORMAT_VERSION) {
+                throw new IllegalArgumentException("unsupported format version: " + formatVersion);
+            }
+            long timeMillis = readVarLong(buffer);
+            int nanoOfMillisecond = Math.toIntExact(readVarLong(buffer));
+            Level level = readLevel(buffer);
+            String loggerName = readString(buffer);
+            String threadName = readString(buffer);
+            String message = readString(buffer);
+            int contextDataSize = Math.toIntExact(readVarLong(buffer));
+            Map<String, String> contextData = new LinkedHashMap<>();
+            for (int entryIndex = 0; entryIndex < contextDataSize; entryIndex++) {
+                String key = readString(buffer);
+                String value = readString(buffer);
+                contextData.put(key, value);
+            }
+            String thrown = readString(buffer);
+            if (buffer.hasRemaining()) {
+                throw new IllegalArgumentException("trailing bytes: " + buffer.remaining());
+            }
+            return new RedisBinaryEvent(
+                    timeMillis,
+                    nanoOfMillisecond,
+                    level,
+                    loggerName,
+                    threadName,
+                    message,
+                    Collections.unmodifiableMap(contextData),
+                    thrown);
+        } catch (BufferUnderflowException | ArithmeticException error) {
+            throw new IllegalArgumentException("malformed event", error);
+        }
+    }
+
+    private static Level readLevel(ByteBuffer buffer) {
+        int levelCode = buffer.get();
+        if (levelCode == 0) {
+            String levelName = readString(buffer);
+            int intLevel = Math.toIntExact(readVarLong(buffer));
+            return Level.forName(levelName, intLevel);
+        }
+        if (levelCode < 0 || levelCode > RedisBinaryLayout.STANDARD_LEVELS.length) {
+            throw new IllegalArgumentException("invalid level code: " + levelCode);
+        }
+        return RedisBinaryLayout.STANDARD_LEVELS[levelCode - 1];
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("malformed variable-length integer");
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = Math.toIntExact(readVarLong(buffer)) - 1;
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String string = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return string;
+    }
+
+    @Override
+    public String toString() {
+        return "RedisBinaryEvent{" +
+                "timeMillis=" + timeMillis +
+                ", nanoOfMillisecond=" + nanoOfMillisecond +
+                ", level=" + level +
+                ", loggerName='" + loggerName + '\'' +
+                ", threadName='" + threadName + '\'' +
+                ", message='" + message + '\'' +
+                ", contextData=" + contextData +
+                ", thrown=" + (thrown != null) +
+                '}';
+    }
+
+}
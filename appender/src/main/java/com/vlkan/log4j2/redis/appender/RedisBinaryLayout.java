@@ -0,0 +1,308 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.Layout;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.config.Configuration;
+import org.apache.logging.log4j.core.config.Node;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.config.plugins.PluginBuilderAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginBuilderFactory;
+import org.apache.logging.log4j.core.config.plugins.PluginConfiguration;
+import org.apache.logging.log4j.core.layout.AbstractLayout;
+import org.apache.logging.log4j.core.layout.ByteBufferDestination;
+import org.apache.logging.log4j.core.util.Constants;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.util.ReadOnlyStringMap;
+import org.apache.logging.log4j.util.StringBuilderFormattable;
+import org.apache.logging.log4j.util.TriConsumer;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+/**
+ * Layout encoding events into a compact binary format, which can be decoded using {@link RedisBinaryEvent#decode(byte[])}.
+ * <p>
+ * Fields are positional, hence no bytes are spent on keys.
+ * Numbers are encoded as unsigned LEB128 variable-length integers, standard levels as a single byte,
+ * and strings as their UTF-8 length plus one (zero denoting <code>null</code>) followed by their UTF-8 bytes:
+ * </p>
+ * <ol>
+ * <li>format version, i.e., {@link #FORMAT_VERSION}</li>
+ * <li>epoch milliseconds</li>
+ * <li>nanoseconds of the millisecond</li>
+ * <li>level code, i.e., the index of the level in {@link #STANDARD_LEVELS} plus one, or zero followed by the level name and its integer level</li>
+ * <li>logger name</li>
+ * <li>thread name</li>
+ * <li>formatted message</li>
+ * <li>number of context data entries, followed by the key and the value of each entry</li>
+ * <li>stack trace of the thrown exception, if any and enabled; <code>null</code>, otherwise</li>
+ * </ol>
+ * <p>
+ * Events are encoded into a reusable per-thread buffer, unless thread-locals are disabled.
+ * </p>
+ */
+@Plugin(name = "RedisBinaryLayout",
+        category = Node.CATEGORY,
+        elementType = Layout.ELEMENT_TYPE,
+        printObject = true)
+public final class RedisBinaryLayout extends AbstractLayout<byte[]> {
+
+    static final int FORMAT_VERSION = 1;
+
+    static final Level[] STANDARD_LEVELS = {
+            Level.OFF, Level.FATAL, Level.ERROR, Level.WARN, Level.INFO, Level.DEBUG, Level.TRACE, Level.ALL
+    };
+
+    private static final int INITIAL_BUFFER_SIZE = 512;
+
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1 << 16;
+
+    private static final TriConsumer<String, Object, RedisByteBufferDestination> CONTEXT_DATA_ENTRY_WRITER =
+            (key, value, destination) -> {
+                writeString(key, destination);
+                writeString(value != null ? String.valueOf(value) : null, destination);
+            };
+
+    private final boolean stackTraceEnabled;
+
+    private final ThreadLocal<RedisByteBufferDestination> bufferRef;
+
+    private final ThreadLocal<StringBuilder> stringBuilderRef;
+
+    private RedisBinaryLayout(Builder builder) {
+        super(builder.config, null, null);
+        this.stackTraceEnabled = builder.stackTraceEnabled;
+        this.bufferRef = Constants.ENABLE_THREADLOCALS
+                ? ThreadLocal.withInitial(RedisBinaryLayout::createBuffer)
+                : null;
+        this.stringBuilderRef = Constants.ENABLE_THREADLOCALS
+                ? ThreadLocal.withInitial(StringBuilder::new)
+                : null;
+    }
+
+    private static RedisByteBufferDestination createBuffer() {
+        return new RedisByteBufferDestination(INITIAL_BUFFER_SIZE, MAX_RETAINED_BUFFER_SIZE);
+    }
+
+    public boolean isStackTraceEnabled() {
+        return stackTraceEnabled;
+    }
+
+    @Override
+    public String getContentType() {
+        return "application/octet-stream";
+    }
+
+    @Override
+    public byte[] toSerializable(LogEvent event) {
+        return toByteArray(event);
+    }
+
+    @Override
+    public byte[] toByteArray(LogEvent event) {
+        RedisByteBufferDestination buffer = bufferRef != null ? bufferRef.get() : createBuffer();
+        try {
+            write(event, buffer);
+            return buffer.toByteArray();
+        } finally {
+            buffer.reset();
+        }
+    }
+
+    @Override
+    public void encode(LogEvent event, ByteBufferDestination destination) {
+        // Write directly into the destinations of the appender, which don't write out partial events.
+        if (destination instanceof RedisByteBufferDestination) {
+            write(event, (RedisByteBufferDestination) destination);
+            return;
+        }
+        RedisByteBufferDestination buffer = bufferRef != null ? bufferRef.get() : createBuffer();
+        try {
+            write(event, buffer);
+            destination.writeBytes(buffer.getByteBuffer().array(), 0, buffer.getByteBuffer().position());
+        } finally {
+            buffer.reset();
+        }
+    }
+
+    private void write(LogEvent event, RedisByteBufferDestination destination) {
+        destination.writeByte(FORMAT_VERSION);
+        writeVarLong(event.getInstant().getEpochMillisecond(), destination);
+        writeVarLong(event.getInstant().getNanoOfMillisecond(), destination);
+        writeLevel(event.getLevel(), destination);
+        writeString(event.getLoggerName(), destination);
+        writeString(event.getThreadName(), destination);
+        writeMessage(event.getMessage(), destination);
+        ReadOnlyStringMap contextData = event.getContextData();
+        writeVarLong(contextData != null ? contextData.size() : 0, destination);
+        if (contextData != null) {
+            contextData.forEach(CONTEXT_DATA_ENTRY_WRITER, destination);
+        }
+        Throwable thrown = stackTraceEnabled ? event.getThrown() : null;
+        writeString(thrown != null ? toStackTrace(thrown) : null, destination);
+    }
+
+    private static void writeLevel(Level level, RedisByteBufferDestination destination) {
+        for (int levelIndex = 0; levelIndex < STANDARD_LEVELS.length; levelIndex++) {
+            if (STANDARD_LEVELS[levelIndex] == level) {
+                destination.writeByte(levelIndex + 1);
+                return;
+            }
+        }
+        destination.writeByte(0);
+        writeString(level.name(), destination);
+        writeVarLong(level.intLevel(), destination);
+    }
+
+    private void writeMessage(Message message, RedisByteBufferDestination destination) {
+        if (message instanceof StringBuilderFormattable && stringBuilderRef != null) {
+            StringBuilder stringBuilder = stringBuilderRef.get();
+            try {
+                ((StringBuilderFormattable) message).formatTo(stringBuilder);
+                writeString(stringBuilder, destination);
+            } finally {
+                stringBuilder.setLength(0);
+            }
+        } else {
+            writeString(message.getFormattedMessage(), destination);
+        }
+    }
+
+    private static String toStackTrace(Throwable thrown) {
+        StringWriter stringWriter = new StringWriter();
+        thrown.printStackTrace(new PrintWriter(stringWriter));
+        return stringWriter.toString();
+    }
+
+    static void writeVarLong(long value, RedisByteBufferDestination destination) {
+        while ((value & ~0x7FL) != 0) {
+            destination.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        destination.writeByte((int) value);
+    }
+
+    /**
+     * Writes the UTF-8 length plus one, followed by the UTF-8 bytes, without allocating.
+     */
+    static void writeString(CharSequence string, RedisByteBufferDestination destination) {
+        if (string == null) {
+            destination.writeByte(0);
+            return;
+        }
+        writeVarLong(utf8Length(string) + 1L, destination);
+        int length = string.length();
+        for (int charIndex = 0; charIndex < length; charIndex++) {
+            char c = string.charAt(charIndex);
+            if (c < 0x80) {
+                destination.writeByte(c);
+            } else if (c < 0x800) {
+                destination.writeByte(0xC0 | (c >> 6));
+                destination.writeByte(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && charIndex + 1 < length && Character.isLowSurrogate(string.charAt(charIndex + 1))) {
+                int codePoint = Character.toCodePoint(c, string.charAt(++charIndex));
+                destination.writeByte(0xF0 | (codePoint >> 18));
+                destination.writeByte(0x80 | ((codePoint >> 12) & 0x3F));
+                destination.writeByte(0x80 | ((codePoint >> 6) & 0x3F));
+                destination.writeByte(0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogates are replaced, just like String#getBytes() does.
+                destination.writeByte('?');
+            } else {
+                destination.writeByte(0xE0 | (c >> 12));
+                destination.writeByte(0x80 | ((c >> 6) & 0x3F));
+                destination.writeByte(0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private static int utf8Length(CharSequence string) {
+        int utf8Length = 0;
+        int length = string.length();
+        for (int charIndex = 0; charIndex < length; charIndex++) {
+            char c = string.charAt(charIndex);
+            if (c < 0x80) {
+                utf8Length += 1;
+            } else if (c < 0x800) {
+                utf8Length += 2;
+            } else if (Character.isHighSurrogate(c) && charIndex + 1 < length && Character.isLowSurrogate(string.charAt(charIndex + 1))) {
+                utf8Length += 4;
+                charIndex++;
+            } else if (Character.isSurrogate(c)) {
+                utf8Length += 1;
+            } else {
+                utf8Length += 3;
+            }
+        }
+        return utf8Length;
+    }
+
+    @Override
+    public String toString() {
+        return "RedisBinaryLayout{stackTraceEnabled=" + stackTraceEnabled + '}';
+    }
+
+    @PluginBuilderFactory
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    public static class Builder implements org.apache.logging.log4j.core.util.Builder<RedisBinaryLayout> {
+
+        @PluginConfiguration
+        private Configuration config;
+
+        @PluginBuilderAttribute
+        private boolean stackTraceEnabled = true;
+
+        private Builder() {
+            // Do nothing.
+        }
+
+        public Configuration getConfig() {
+            return config;
+        }
+
+        public Builder setConfig(Configuration config) {
+            this.config = config;
+            return this;
+        }
+
+        public boolean isStackTraceEnabled() {
+            return stackTraceEnabled;
+        }
+
+        public Builder setStackTraceEnabled(boolean stackTraceEnabled) {
+            this.stackTraceEnabled = stackTraceEnabled;
+            return this;
+        }
+
+        @Override
+        public RedisBinaryLayout build() {
+            return new RedisBinaryLayout(this);
+        }
+
+        @Override
+        public String toString() {
+            return "Builder{stackTraceEnabled=" + stackTraceEnabled + '}';
+        }
+
+    }
+
+}
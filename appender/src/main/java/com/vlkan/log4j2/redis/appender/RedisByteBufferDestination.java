@@ -0,0 +1,119 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.apache.logging.log4j.core.layout.ByteBufferDestination;
+import org.apache.logging.log4j.core.layout.ByteBufferDestinationHelper;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Growable heap {@link ByteBufferDestination} to encode an event into, reused across events of the same thread.
+ * <p>
+ * Unlike the destinations of the file and socket appenders, this one doesn't write anything out on {@link #drain(ByteBuffer)}.
+ * Instead, it grows the buffer, since the event needs to be handed to the throttler as a whole.
+ * Once encoding is complete, {@link #toByteArray()} copies the encoded bytes out and {@link #reset()} rewinds the buffer.
+ * Buffers grown beyond {@code maxRetainedCapacity} are released on reset, so that an exceptionally large event doesn't pin memory.
+ * </p>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ */
+final class RedisByteBufferDestination implements ByteBufferDestination {
+
+    private final int initialCapacity;
+
+    private final int maxRetainedCapacity;
+
+    private ByteBuffer byteBuffer;
+
+    RedisByteBufferDestination(int initialCapacity, int maxRetainedCapacity) {
+        Helpers.requireArgument(
+                initialCapacity > 0,
+                "expecting: initialCapacity > 0, found: %d",
+                initialCapacity);
+        Helpers.requireArgument(
+                maxRetainedCapacity >= initialCapacity,
+                "expecting: maxRetainedCapacity >= initialCapacity, found: %d",
+                maxRetainedCapacity);
+        this.initialCapacity = initialCapacity;
+        this.maxRetainedCapacity = maxRetainedCapacity;
+        this.byteBuffer = ByteBuffer.allocate(initialCapacity);
+    }
+
+    @Override
+    public ByteBuffer getByteBuffer() {
+        return byteBuffer;
+    }
+
+    /**
+     * Doubles the capacity of the buffer, preserving its content.
+     */
+    @Override
+    public ByteBuffer drain(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        int grownCapacity = capacity > Integer.MAX_VALUE / 2 ? Integer.MAX_VALUE : 2 * capacity;
+        if (grownCapacity == capacity) {
+            throw new IllegalStateException("buffer capacity exhausted");
+        }
+        ByteBuffer grownBuffer = ByteBuffer.allocate(grownCapacity);
+        buffer.flip();
+        grownBuffer.put(buffer);
+        byteBuffer = grownBuffer;
+        return grownBuffer;
+    }
+
+    @Override
+    public void writeBytes(ByteBuffer data) {
+        ByteBufferDestinationHelper.writeToUnsynchronized(data, this);
+    }
+
+    @Override
+    public void writeBytes(byte[] data, int offset, int length) {
+        ByteBufferDestinationHelper.writeToUnsynchronized(data, offset, length, this);
+    }
+
+    void writeByte(int value) {
+        if (!byteBuffer.hasRemaining()) {
+            drain(byteBuffer);
+        }
+        byteBuffer.put((byte) value);
+    }
+
+    /**
+     * Writes the given value as a 4-byte big-endian integer.
+     */
+    void writeInt(int value) {
+        if (byteBuffer.remaining() < Integer.BYTES) {
+            drain(byteBuffer);
+        }
+        byteBuffer.putInt(value);
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(byteBuffer.array(), byteBuffer.position());
+    }
+
+    void reset() {
+        if (byteBuffer.capacity() > maxRetainedCapacity) {
+            byteBuffer = ByteBuffer.allocate(initialCapacity);
+        } else {
+            byteBuffer.clear();
+        }
+    }
+
+}
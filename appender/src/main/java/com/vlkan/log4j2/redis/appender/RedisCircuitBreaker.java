@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker guarding Redis I/O, backed by resilience4j.
+ * <p>
+ * The circuit opens once the failure rate of the last {@link RedisCircuitBreakerConfig#getSlidingWindowSize()} pushes
+ * exceeds the threshold. While open, pushes fail fast without borrowing a connection.
+ * After {@link RedisCircuitBreakerConfig#getWaitDurationInOpenStateMillis()}, the circuit becomes half-open,
+ * and a single <code>PING</code> probes the server, instead of risking a batch.
+ * The circuit closes if the probe succeeds, and opens again otherwise.
+ * </p>
+ */
+final class RedisCircuitBreaker {
+
+    /**
+     * Redis I/O guarded by the circuit breaker.
+     */
+    interface Call {
+
+        void run() throws Exception;
+
+    }
+
+    private final CircuitBreaker delegate;
+
+    private RedisCircuitBreaker(CircuitBreaker delegate) {
+        this.delegate = delegate;
+    }
+
+    static RedisCircuitBreaker of(String name, RedisCircuitBreakerConfig config) {
+        CircuitBreakerConfig circuitBreakerConfig = CircuitBreakerConfig
+                .custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(config.getSlidingWindowSize())
+                .minimumNumberOfCalls(config.getMinimumNumberOfCalls())
+                .failureRateThreshold(config.getFailureRateThreshold())
+                .waitDurationInOpenState(Duration.ofMillis(config.getWaitDurationInOpenStateMillis()))
+                // The probe is a single `PING`, see `run()`.
+                .permittedNumberOfCallsInHalfOpenState(1)
+                .writableStackTraceEnabled(false)
+                .build();
+        return new RedisCircuitBreaker(CircuitBreaker.of(name, circuitBreakerConfig));
+    }
+
+    /**
+     * Runs the given call, if the circuit allows, probing the server first, if the circuit is half-open.
+     *
+     * @throws CallNotPermittedException if the circuit is open, or the probe is in progress by another thread
+     */
+    void run(Call probe, Call call) throws Exception {
+        acquirePermission();
+        if (CircuitBreaker.State.HALF_OPEN.equals(delegate.getState())) {
+            record(probe);
+            // The circuit is closed, if the probe has succeeded.
+            acquirePermission();
+        }
+        record(call);
+    }
+
+    private void acquirePermission() {
+        if (!delegate.tryAcquirePermission()) {
+            throw CallNotPermittedException.createCallNotPermittedException(delegate);
+        }
+    }
+
+    private void record(Call call) throws Exception {
+        long startNanos = System.nanoTime();
+        try {
+            call.run();
+        } catch (Exception error) {
+            delegate.onError(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS, error);
+            throw error;
+        }
+        delegate.onSuccess(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    String getState() {
+        return delegate.getState().name();
+    }
+
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.apache.logging.log4j.core.config.Node;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.config.plugins.PluginBuilderAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginBuilderFactory;
+
+import static com.vlkan.log4j2.redis.appender.Helpers.requireArgument;
+
+@Plugin(name = "RedisCircuitBreakerConfig",
+        category = Node.CATEGORY,
+        printObject = true)
+public class RedisCircuitBreakerConfig {
+
+    private final float failureRateThreshold;
+
+    private final int slidingWindowSize;
+
+    private final int minimumNumberOfCalls;
+
+    private final long waitDurationInOpenStateMillis;
+
+    private RedisCircuitBreakerConfig(Builder builder) {
+        this.failureRateThreshold = builder.failureRateThreshold;
+        this.slidingWindowSize = builder.slidingWindowSize;
+        this.minimumNumberOfCalls = builder.minimumNumberOfCalls;
+        this.waitDurationInOpenStateMillis = builder.waitDurationInOpenStateMillis;
+    }
+
+    public float getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public int getSlidingWindowSize() {
+        return slidingWindowSize;
+    }
+
+    public int getMinimumNumberOfCalls() {
+        return minimumNumberOfCalls;
+    }
+
+    public long getWaitDurationInOpenStateMillis() {
+        return waitDurationInOpenStateMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "RedisCircuitBreakerConfig{failureRateThreshold=" + failureRateThreshold +
+                ", slidingWindowSize=" + slidingWindowSize +
+                ", minimumNumberOfCalls=" + minimumNumberOfCalls +
+                ", waitDurationInOpenStateMillis=" + waitDurationInOpenStateMillis +
+                '}';
+    }
+
+    @PluginBuilderFactory
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    public static class Builder implements org.apache.logging.log4j.core.util.Builder<RedisCircuitBreakerConfig> {
+
+        @PluginBuilderAttribute
+        private float failureRateThreshold = 50;
+
+        @PluginBuilderAttribute
+        private int slidingWindowSize = 10;
+
+        @PluginBuilderAttribute
+        private int minimumNumberOfCalls = 10;
+
+        @PluginBuilderAttribute
+        private long waitDurationInOpenStateMillis = 10_000;
+
+        private Builder() {
+            // Do nothing.
+        }
+
+        public float getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+
+        public Builder setFailureRateThreshold(float failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+            return this;
+        }
+
+        public int getSlidingWindowSize() {
+            return slidingWindowSize;
+        }
+
+        public Builder setSlidingWindowSize(int slidingWindowSize) {
+            this.slidingWindowSize = slidingWindowSize;
+            return this;
+        }
+
+        public int getMinimumNumberOfCalls() {
+            return minimumNumberOfCalls;
+        }
+
+        public Builder setMinimumNumberOfCalls(int minimumNumberOfCalls) {
+            this.minimumNumberOfCalls = minimumNumberOfCalls;
+            return this;
+        }
+
+        public long getWaitDurationInOpenStateMillis() {
+            return waitDurationInOpenStateMillis;
+        }
+
+        public Builder setWaitDurationInOpenStateMillis(long waitDurationInOpenStateMillis) {
+            this.waitDurationInOpenStateMillis = waitDurationInOpenStateMillis;
+            return this;
+        }
+
+        public RedisCircuitBreakerConfig build() {
+            check();
+            return new RedisCircuitBreakerConfig(this);
+        }
+
+        private void check() {
+            requireArgument(
+                    failureRateThreshold > 0 && failureRateThreshold <= 100,
+                    "expecting: failureRateThreshold > 0 && failureRateThreshold <= 100, found: %s",
+                    failureRateThreshold);
+            requireArgument(
+                    slidingWindowSize > 0,
+                    "expecting: slidingWindowSize > 0, found: %d",
+                    slidingWindowSize);
+            requireArgument(
+                    minimumNumberOfCalls > 0,
+                    "expecting: minimumNumberOfCalls > 0, found: %d",
+                    minimumNumberOfCalls);
+            requireArgument(
+                    waitDurationInOpenStateMillis > 0,
+                    "expecting: waitDurationInOpenStateMillis > 0, found: %d",
+                    waitDurationInOpenStateMillis);
+        }
+
+        @Override
+        public String toString() {
+            return "Builder{failureRateThreshold=" + failureRateThreshold +
+                    ", slidingWindowSize=" + slidingWindowSize +
+                    ", minimumNumberOfCalls=" + minimumNumberOfCalls +
+                    ", waitDurationInOpenStateMillis=" + waitDurationInOpenStateMillis +
+                    '}';
+        }
+
+    }
+
+}
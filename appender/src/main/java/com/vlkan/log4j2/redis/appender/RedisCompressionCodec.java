@@ -0,0 +1,31 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+/**
+ * Compression codec applied to the payloads pushed to Redis.
+ * <p>
+ * Implementations need to be thread-safe and, if referred to by their class name in {@link RedisCompressionConfig},
+ * need to provide a public no-argument constructor.
+ * </p>
+ */
+public interface RedisCompressionCodec {
+
+    byte[] compress(byte[] input);
+
+    byte[] decompress(byte[] input);
+
+}
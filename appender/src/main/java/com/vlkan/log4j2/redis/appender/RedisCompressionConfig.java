@@ -0,0 +1,299 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.apache.logging.log4j.core.config.Node;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.config.plugins.PluginBuilderAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginBuilderFactory;
+import org.apache.logging.log4j.core.util.Loader;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+
+import static com.vlkan.log4j2.redis.appender.Helpers.requireArgument;
+import static org.apache.logging.log4j.util.Strings.isNotBlank;
+
+@Plugin(name = "RedisCompressionConfig",
+        category = Node.CATEGORY,
+        printObject = true)
+public class RedisCompressionConfig {
+
+    static final String DEFLATE_CODEC = "deflate";
+
+    static final String GZIP_CODEC = "gzip";
+
+    /**
+     * Compresses every event on its own, and pushes them as separate payloads.
+     */
+    static final String EVENT_MODE = "event";
+
+    /**
+     * Compresses all events of a batch into a single {@link RedisBatchFrame}, and pushes it as a single payload.
+     */
+    static final String BATCH_MODE = "batch";
+
+    /**
+     * Maximum dictionary size, that is, the window size of deflate.
+     */
+    static final int MAX_DICTIONARY_SIZE = 1 << 15;
+
+    private static final Set<String> ALLOWED_MODES = Stream.of(EVENT_MODE, BATCH_MODE).collect(Collectors.toSet());
+
+    private final String codecName;
+
+    private final int level;
+
+    private final String mode;
+
+    private final String dictionaryKey;
+
+    private final int dictionarySize;
+
+    private final int dictionarySampleCount;
+
+    private final long dictionaryTrainingPeriodSeconds;
+
+    private final RedisCompressionCodec codec;
+
+    private RedisCompressionConfig(Builder builder) {
+        this.codecName = builder.codec;
+        this.level = builder.level;
+        this.mode = builder.mode;
+        this.dictionaryKey = builder.dictionaryKey;
+        this.dictionarySize = builder.dictionarySize;
+        this.dictionarySampleCount = builder.dictionarySampleCount;
+        this.dictionaryTrainingPeriodSeconds = builder.dictionaryTrainingPeriodSeconds;
+        this.codec = createCodec(builder.codec, builder.level);
+    }
+
+    private static RedisCompressionCodec createCodec(String codecName, int level) {
+        if (DEFLATE_CODEC.equals(codecName)) {
+            return new RedisDeflateCompressionCodec(level);
+        } else if (GZIP_CODEC.equals(codecName)) {
+            return new RedisGzipCompressionCodec(level);
+        }
+        try {
+            return Loader.newCheckedInstanceOf(codecName, RedisCompressionCodec.class);
+        } catch (Exception error) {
+            String message = String.format("failed creating the compression codec (codec=%s)", codecName);
+            throw new IllegalArgumentException(message, error);
+        }
+    }
+
+    public String getCodecName() {
+        return codecName;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    /**
+     * @return the key of the Redis hash the trained dictionaries are published to, if dictionary compression is enabled; <code>null</code>, otherwise
+     */
+    public String getDictionaryKey() {
+        return dictionaryKey;
+    }
+
+    public int getDictionarySize() {
+        return dictionarySize;
+    }
+
+    public int getDictionarySampleCount() {
+        return dictionarySampleCount;
+    }
+
+    public long getDictionaryTrainingPeriodSeconds() {
+        return dictionaryTrainingPeriodSeconds;
+    }
+
+    public RedisCompressionCodec getCodec() {
+        return codec;
+    }
+
+    @Override
+    public String toString() {
+        return "RedisCompressionConfig{codec=" + codecName +
+                ", level=" + level +
+                ", mode=" + mode +
+                ", dictionaryKey=" + dictionaryKey +
+                ", dictionarySize=" + dictionarySize +
+                ", dictionarySampleCount=" + dictionarySampleCount +
+                ", dictionaryTrainingPeriodSeconds=" + dictionaryTrainingPeriodSeconds +
+                '}';
+    }
+
+    @PluginBuilderFactory
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    public static class Builder implements org.apache.logging.log4j.core.util.Builder<RedisCompressionConfig> {
+
+        @PluginBuilderAttribute
+        private String codec = DEFLATE_CODEC;
+
+        @PluginBuilderAttribute
+        private int level = Deflater.DEFAULT_COMPRESSION;
+
+        @PluginBuilderAttribute
+        private String mode = EVENT_MODE;
+
+        @PluginBuilderAttribute
+        private String dictionaryKey = null;
+
+        @PluginBuilderAttribute
+        private int dictionarySize = 1 << 14;
+
+        @PluginBuilderAttribute
+        private int dictionarySampleCount = 1_000;
+
+        @PluginBuilderAttribute
+        private long dictionaryTrainingPeriodSeconds = 0;
+
+        private Builder() {
+            // Do nothing.
+        }
+
+        public String getCodec() {
+            return codec;
+        }
+
+        public Builder setCodec(String codec) {
+            this.codec = codec;
+            return this;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public Builder setLevel(int level) {
+            this.level = level;
+            return this;
+        }
+
+        public String getMode() {
+            return mode;
+        }
+
+        public Builder setMode(String mode) {
+            this.mode = mode;
+            return this;
+        }
+
+        public String getDictionaryKey() {
+            return dictionaryKey;
+        }
+
+        public Builder setDictionaryKey(String dictionaryKey) {
+            this.dictionaryKey = dictionaryKey;
+            return this;
+        }
+
+        public int getDictionarySize() {
+            return dictionarySize;
+        }
+
+        public Builder setDictionarySize(int dictionarySize) {
+            this.dictionarySize = dictionarySize;
+            return this;
+        }
+
+        public int getDictionarySampleCount() {
+            return dictionarySampleCount;
+        }
+
+        public Builder setDictionarySampleCount(int dictionarySampleCount) {
+            this.dictionarySampleCount = dictionarySampleCount;
+            return this;
+        }
+
+        public long getDictionaryTrainingPeriodSeconds() {
+            return dictionaryTrainingPeriodSeconds;
+        }
+
+        public Builder setDictionaryTrainingPeriodSeconds(long dictionaryTrainingPeriodSeconds) {
+            this.dictionaryTrainingPeriodSeconds = dictionaryTrainingPeriodSeconds;
+            return this;
+        }
+
+        public RedisCompressionConfig build() {
+            check();
+            return new RedisCompressionConfig(this);
+        }
+
+        private void check() {
+            requireArgument(isNotBlank(codec), "blank codec");
+            requireArgument(
+                    level == Deflater.DEFAULT_COMPRESSION || (level >= Deflater.NO_COMPRESSION && level <= Deflater.BEST_COMPRESSION),
+                    "expecting: level == -1 || (level >= 0 && level <= 9), found: %d",
+                    level);
+            requireArgument(
+                    ALLOWED_MODES.contains(mode),
+                    "expecting: mode anyOf %s, found: %s",
+                    ALLOWED_MODES,
+                    mode);
+            if (dictionaryKey != null) {
+                requireArgument(isNotBlank(dictionaryKey), "blank dictionaryKey");
+                requireArgument(
+                        DEFLATE_CODEC.equals(codec),
+                        "expecting: codec == %s for dictionary compression, found: %s",
+                        DEFLATE_CODEC,
+                        codec);
+                requireArgument(
+                        EVENT_MODE.equals(mode),
+                        "expecting: mode == %s for dictionary compression, found: %s",
+                        EVENT_MODE,
+                        mode);
+                requireArgument(
+                        dictionarySize > 0 && dictionarySize <= MAX_DICTIONARY_SIZE,
+                        "expecting: dictionarySize > 0 && dictionarySize <= %d, found: %d",
+                        MAX_DICTIONARY_SIZE,
+                        dictionarySize);
+                requireArgument(
+                        dictionarySampleCount > 0,
+                        "expecting: dictionarySampleCount > 0, found: %d",
+                        dictionarySampleCount);
+                requireArgument(
+                        dictionaryTrainingPeriodSeconds >= 0,
+                        "expecting: dictionaryTrainingPeriodSeconds >= 0, found: %d",
+                        dictionaryTrainingPeriodSeconds);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Builder{codec=" + codec +
+                    ", level=" + level +
+                    ", mode=" + mode +
+                    ", dictionaryKey=" + dictionaryKey +
+                    ", dictionarySize=" + dictionarySize +
+                    ", dictionarySampleCount=" + dictionarySampleCount +
+                    ", dictionaryTrainingPeriodSeconds=" + dictionaryTrainingPeriodSeconds +
+                    '}';
+        }
+
+    }
+
+}
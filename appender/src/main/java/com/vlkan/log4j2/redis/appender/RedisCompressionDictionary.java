@@ -0,0 +1,229 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.zip.Adler32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Preset dictionary used for compressing events with the <code>deflate</code> codec, trained from a sample of events.
+ * <p>
+ * Dictionaries are published to a Redis hash, where the field is the {@link #getId() identifier} of the dictionary,
+ * that is, the hexadecimal Adler-32 checksum of its content, which is also recorded in the zlib header of the payloads
+ * compressed using it.
+ * Consumers can use {@link #decompress(byte[], Function)} to decompress payloads.
+ * </p>
+ */
+public final class RedisCompressionDictionary {
+
+    /**
+     * Length of the byte sequences counted while training, which is long enough to be worth a back-reference.
+     */
+    private static final int KMER_LENGTH = 8;
+
+    /**
+     * Length of the sample segments the dictionary gets assembled from.
+     */
+    private static final int SEGMENT_LENGTH = 32;
+
+    private final String id;
+
+    private final byte[] bytes;
+
+    RedisCompressionDictionary(byte[] bytes) {
+        Adler32 adler32 = new Adler32();
+        adler32.update(bytes, 0, bytes.length);
+        this.id = formatId((int) adler32.getValue());
+        this.bytes = bytes;
+    }
+
+    private static String formatId(int adler32) {
+        return String.format("%08x", adler32);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Trains a dictionary of at most the given size from the given samples.
+     * <p>
+     * This is a greedy take on the <a href="https://github.com/facebook/zstd/blob/dev/lib/dictBuilder/cover.c">COVER</a>
+     * algorithm of zstd: samples are split into fixed-length segments, and the segment covering the most byte sequences
+     * recurring across samples is repeatedly picked, until the dictionary is full.
+     * Since deflate encodes closer back-references using fewer bits, the best segments are placed at the end.
+     * </p>
+     *
+     * @return the trained dictionary, or <code>null</code>, if there is nothing recurring across the samples
+     */
+    static RedisCompressionDictionary train(List<byte[]> samples, int maxSize) {
+
+        // Count the samples containing each k-mer.
+        Map<Long, Integer> kmerSampleCounts = new HashMap<>();
+        Set<Long> sampleKmers = new HashSet<>();
+        for (byte[] sample : samples) {
+            sampleKmers.clear();
+            for (int offset = 0; offset + KMER_LENGTH <= sample.length; offset++) {
+                sampleKmers.add(readKmer(sample, offset));
+            }
+            for (Long kmer : sampleKmers) {
+                kmerSampleCounts.merge(kmer, 1, Integer::sum);
+            }
+        }
+
+        // Score the segments.
+        PriorityQueue<Segment> segments = new PriorityQueue<>((segment1, segment2) -> Long.compare(segment2.score, segment1.score));
+        for (byte[] sample : samples) {
+            for (int offset = 0; offset + KMER_LENGTH <= sample.length; offset += SEGMENT_LENGTH) {
+                int length = Math.min(SEGMENT_LENGTH, sample.length - offset);
+                Segment segment = new Segment(sample, offset, length);
+                segment.score = segment.score(kmerSampleCounts);
+                if (segment.score > 0) {
+                    segments.add(segment);
+                }
+            }
+        }
+
+        // Pick the segments greedily.
+        // Scores can only decrease as k-mers get covered, hence they are lazily refreshed once polled.
+        List<Segment> pickedSegments = new ArrayList<>();
+        int size = 0;
+        for (Segment segment; size < maxSize && (segment = segments.poll()) != null; ) {
+            long score = segment.score(kmerSampleCounts);
+            if (score < segment.score) {
+                segment.score = score;
+                if (score > 0) {
+                    segments.add(segment);
+                }
+            } else if (size + segment.length <= maxSize) {
+                pickedSegments.add(segment);
+                size += segment.length;
+                segment.cover(kmerSampleCounts);
+            }
+        }
+        if (pickedSegments.isEmpty()) {
+            return null;
+        }
+
+        // Place the best segments at the end.
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(size);
+        for (int segmentIndex = pickedSegments.size() - 1; segmentIndex >= 0; segmentIndex--) {
+            Segment segment = pickedSegments.get(segmentIndex);
+            outputStream.write(segment.sample, segment.offset, segment.length);
+        }
+        return new RedisCompressionDictionary(outputStream.toByteArray());
+
+    }
+
+    private static long readKmer(byte[] bytes, int offset) {
+        long kmer = 0;
+        for (int byteIndex = 0; byteIndex < KMER_LENGTH; byteIndex++) {
+            kmer = (kmer << 8) | (bytes[offset + byteIndex] & 0xFF);
+        }
+        return kmer;
+    }
+
+    private static final class Segment {
+
+        private final byte[] sample;
+
+        private final int offset;
+
+        private final int length;
+
+        private long score;
+
+        private Segment(byte[] sample, int offset, int length) {
+            this.sample = sample;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        /**
+         * Sums up the number of other samples containing each uncovered k-mer starting in the segment.
+         */
+        private long score(Map<Long, Integer> kmerSampleCounts) {
+            long score = 0;
+            for (int kmerOffset = offset; kmerOffset < offset + length && kmerOffset + KMER_LENGTH <= sample.length; kmerOffset++) {
+                score += Math.max(0, kmerSampleCounts.getOrDefault(readKmer(sample, kmerOffset), 0) - 1);
+            }
+            return score;
+        }
+
+        private void cover(Map<Long, Integer> kmerSampleCounts) {
+            for (int kmerOffset = offset; kmerOffset < offset + length && kmerOffset + KMER_LENGTH <= sample.length; kmerOffset++) {
+                kmerSampleCounts.remove(readKmer(sample, kmerOffset));
+            }
+        }
+
+    }
+
+    /**
+     * Decompresses a payload compressed by the <code>deflate</code> codec, with or without a dictionary.
+     *
+     * @param payload a zlib stream
+     * @param dictionaryResolver resolves the content of a dictionary given its identifier, e.g., using <code>HGET</code> against the dictionary key, or returns <code>null</code>, if it is unknown
+     * @throws IllegalArgumentException on an unknown dictionary or malformed input
+     */
+    public static byte[] decompress(byte[] payload, Function<String, byte[]> dictionaryResolver) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(payload);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(Math.max(64, 2 * payload.length));
+            byte[] chunk = new byte[8192];
+            while (!inflater.finished()) {
+                int chunkLength = inflater.inflate(chunk);
+                if (chunkLength > 0) {
+                    outputStream.write(chunk, 0, chunkLength);
+                } else if (inflater.needsDictionary()) {
+                    String id = formatId(inflater.getAdler());
+                    byte[] dictionary = dictionaryResolver.apply(id);
+                    if (dictionary == null) {
+                        throw new IllegalArgumentException("unknown dictionary: " + id);
+                    }
+                    inflater.setDictionary(dictionary);
+                } else if (inflater.needsInput()) {
+                    throw new IllegalArgumentException("truncated payload");
+                }
+            }
+            return outputStream.toByteArray();
+        } catch (DataFormatException error) {
+            throw new IllegalArgumentException("malformed payload", error);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RedisCompressionDictionary{id=" + id + ", size=" + bytes.length + '}';
+    }
+
+}
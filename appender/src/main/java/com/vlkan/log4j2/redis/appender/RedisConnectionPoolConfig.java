@@ -16,10 +16,12 @@
 package com.vlkan.log4j2.redis.appender;
 
 import org.apache.commons.pool2.impl.BaseObjectPoolConfig;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.apache.logging.log4j.core.config.Node;
 import org.apache.logging.log4j.core.config.plugins.Plugin;
 import org.apache.logging.log4j.core.config.plugins.PluginBuilderAttribute;
 import org.apache.logging.log4j.core.config.plugins.PluginBuilderFactory;
+import redis.clients.jedis.ConnectionPoolConfig;
 import redis.clients.jedis.JedisPoolConfig;
 
 import java.time.Duration;
@@ -69,6 +71,8 @@ public class RedisConnectionPoolConfig {
 
     private final JedisPoolConfig jedisPoolConfig;
 
+    private final ConnectionPoolConfig connectionPoolConfig;
+
     private RedisConnectionPoolConfig(Builder builder) {
         this.maxTotal = builder.maxTotal;
         this.maxIdle = builder.maxIdle;
@@ -89,11 +93,11 @@ public class RedisConnectionPoolConfig {
         this.jmxEnabled = builder.jmxEnabled;
         this.jmxNameBase = builder.jmxNameBase;
         this.jmxNamePrefix = builder.jmxNamePrefix;
-        this.jedisPoolConfig = createJedisPoolConfig(builder);
+        this.jedisPoolConfig = configure(new JedisPoolConfig(), builder);
+        this.connectionPoolConfig = configure(new ConnectionPoolConfig(), builder);
     }
 
-    private static JedisPoolConfig createJedisPoolConfig(Builder builder) {
-        JedisPoolConfig config = new JedisPoolConfig();
+    private static <C extends GenericObjectPoolConfig<?>> C configure(C config, Builder builder) {
         config.setMaxTotal(builder.maxTotal);
         config.setMaxIdle(builder.maxIdle);
         config.setMinIdle(builder.minIdle);
@@ -196,6 +200,13 @@ public class RedisConnectionPoolConfig {
         return jedisPoolConfig;
     }
 
+    /**
+     * @return the configuration of per-node connection pools, used in cluster mode
+     */
+    public ConnectionPoolConfig getConnectionPoolConfig() {
+        return connectionPoolConfig;
+    }
+
     @Override
     public String toString() {
         return "Builder{maxTotal=" + maxTotal +
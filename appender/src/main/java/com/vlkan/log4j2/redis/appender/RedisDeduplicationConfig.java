@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.apache.logging.log4j.core.config.Node;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.config.plugins.PluginBuilderAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginBuilderFactory;
+
+import static com.vlkan.log4j2.redis.appender.Helpers.requireArgument;
+
+/**
+ * Time-windowed deduplication of identical events before they are enqueued, see {@link RedisEventDeduplicator}.
+ */
+@Plugin(name = "RedisDeduplicationConfig",
+        category = Node.CATEGORY,
+        printObject = true)
+public class RedisDeduplicationConfig {
+
+    private final long windowMillis;
+
+    private final int maxFingerprintCount;
+
+    private RedisDeduplicationConfig(Builder builder) {
+        this.windowMillis = builder.windowMillis;
+        this.maxFingerprintCount = builder.maxFingerprintCount;
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    public int getMaxFingerprintCount() {
+        return maxFingerprintCount;
+    }
+
+    @Override
+    public String toString() {
+        return "RedisDeduplicationConfig{windowMillis=" + windowMillis +
+                ", maxFingerprintCount=" + maxFingerprintCount +
+                '}';
+    }
+
+    @PluginBuilderFactory
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    public static class Builder implements org.apache.logging.log4j.core.util.Builder<RedisDeduplicationConfig> {
+
+        @PluginBuilderAttribute
+        private long windowMillis = 1_000;
+
+        @PluginBuilderAttribute
+        private int maxFingerprintCount = 1_024;
+
+        private Builder() {
+            // Do nothing.
+        }
+
+        public long getWindowMillis() {
+            return windowMillis;
+        }
+
+        public Builder setWindowMillis(long windowMillis) {
+            this.windowMillis = windowMillis;
+            return this;
+        }
+
+        public int getMaxFingerprintCount() {
+            return maxFingerprintCount;
+        }
+
+        public Builder setMaxFingerprintCount(int maxFingerprintCount) {
+            this.maxFingerprintCount = maxFingerprintCount;
+            return this;
+        }
+
+        public RedisDeduplicationConfig build() {
+            check();
+            return new RedisDeduplicationConfig(this);
+        }
+
+        private void check() {
+            requireArgument(
+                    windowMillis > 0,
+                    "expecting: windowMillis > 0, found: %d",
+                    windowMillis);
+            requireArgument(
+                    maxFingerprintCount > 0 && maxFingerprintCount <= (1 << 28),
+                    "expecting: maxFingerprintCount > 0 && maxFingerprintCount <= %d, found: %d",
+                    1 << 28,
+                    maxFingerprintCount);
+        }
+
+        @Override
+        public String toString() {
+            return "Builder{windowMillis=" + windowMillis +
+                    ", maxFingerprintCount=" + maxFingerprintCount +
+                    '}';
+        }
+
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.Deflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * {@link RedisCompressionCodec} producing <a href="https://www.rfc-editor.org/rfc/rfc1950">zlib</a> streams using {@link Deflater}.
+ * <p>
+ * {@link Deflater} instances are costly to create and hold native memory, hence they are reused per thread.
+ * </p>
+ */
+public class RedisDeflateCompressionCodec implements RedisCompressionCodec {
+
+    private final ThreadLocal<Deflater> deflaterRef;
+
+    public RedisDeflateCompressionCodec() {
+        this(Deflater.DEFAULT_COMPRESSION);
+    }
+
+    public RedisDeflateCompressionCodec(int level) {
+        this(level, false);
+    }
+
+    RedisDeflateCompressionCodec(int level, boolean nowrap) {
+        this.deflaterRef = ThreadLocal.withInitial(() -> new Deflater(level, nowrap));
+    }
+
+    @Override
+    public byte[] compress(byte[] input) {
+        return compress(input, null);
+    }
+
+    /**
+     * Compresses the input using the given preset dictionary, if not <code>null</code>.
+     * <p>
+     * The zlib header of the output refers to the dictionary by its Adler-32 checksum.
+     * </p>
+     */
+    byte[] compress(byte[] input, byte[] dictionary) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(Math.max(64, input.length / 2));
+        deflate(input, dictionary, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    void deflate(byte[] input, byte[] dictionary, ByteArrayOutputStream outputStream) {
+        Deflater deflater = deflaterRef.get();
+        deflater.reset();
+        if (dictionary != null) {
+            deflater.setDictionary(dictionary);
+        }
+        deflater.setInput(input);
+        deflater.finish();
+        byte[] chunk = new byte[Math.min(8192, Math.max(64, input.length))];
+        while (!deflater.finished()) {
+            int chunkLength = deflater.deflate(chunk);
+            outputStream.write(chunk, 0, chunkLength);
+        }
+    }
+
+    @Override
+    public byte[] decompress(byte[] input) {
+        return readFully(new InflaterInputStream(new ByteArrayInputStream(input)));
+    }
+
+    static byte[] readFully(InputStream inputStream) {
+        try (InputStream closeableInputStream = inputStream) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            byte[] chunk = new byte[8192];
+            for (int chunkLength; (chunkLength = closeableInputStream.read(chunk)) > 0; ) {
+                outputStream.write(chunk, 0, chunkLength);
+            }
+            return outputStream.toByteArray();
+        } catch (IOException error) {
+            throw new UncheckedIOException("decompression failure", error);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName();
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.apache.logging.log4j.status.StatusLogger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Compresses events one by one using a {@link RedisCompressionDictionary} trained from the events themselves.
+ * <p>
+ * The first {@link RedisCompressionConfig#getDictionarySampleCount()} events are sampled, and compressed without a
+ * dictionary. Once the sample is complete, the flusher completing it trains a dictionary and publishes it, before
+ * compressing any event with it. Hence, consumers can always resolve the dictionary of an event.
+ * If enabled, this repeats every {@link RedisCompressionConfig#getDictionaryTrainingPeriodSeconds()},
+ * to keep up with the changes in the logged content.
+ * Failed trainings and publications are retried with a new sample, while the previous dictionary, if any, stays in use.
+ * </p>
+ */
+final class RedisDictionaryCompressor {
+
+    private static final StatusLogger LOGGER = StatusLogger.getLogger();
+
+    private final String logPrefix;
+
+    private final RedisDeflateCompressionCodec codec;
+
+    private final int dictionarySize;
+
+    private final int sampleCount;
+
+    private final long trainingPeriodNanos;
+
+    private final Consumer<RedisCompressionDictionary> publisher;
+
+    private final List<byte[]> samples;
+
+    /**
+     * Indicates if events are being sampled, guarded by {@code this}.
+     */
+    private boolean sampling = true;
+
+    /**
+     * Time the next sampling starts at, guarded by {@code this}.
+     */
+    private long nextSamplingNanos;
+
+    private volatile RedisCompressionDictionary dictionary;
+
+    RedisDictionaryCompressor(String logPrefix, RedisCompressionConfig config, Consumer<RedisCompressionDictionary> publisher) {
+        this.logPrefix = logPrefix;
+        this.codec = new RedisDeflateCompressionCodec(config.getLevel());
+        this.dictionarySize = config.getDictionarySize();
+        this.sampleCount = config.getDictionarySampleCount();
+        this.trainingPeriodNanos = TimeUnit.SECONDS.toNanos(config.getDictionaryTrainingPeriodSeconds());
+        this.publisher = publisher;
+        this.samples = new ArrayList<>(config.getDictionarySampleCount());
+    }
+
+    byte[][] compress(byte[][] events) {
+        sample(events);
+        RedisCompressionDictionary currentDictionary = dictionary;
+        byte[] dictionaryBytes = currentDictionary != null ? currentDictionary.getBytes() : null;
+        byte[][] payloads = new byte[events.length][];
+        for (int eventIndex = 0; eventIndex < events.length; eventIndex++) {
+            payloads[eventIndex] = codec.compress(events[eventIndex], dictionaryBytes);
+        }
+        return payloads;
+    }
+
+    private void sample(byte[][] events) {
+        List<byte[]> completeSamples;
+        synchronized (this) {
+            if (!sampling) {
+                if (trainingPeriodNanos == 0 || System.nanoTime() - nextSamplingNanos < 0) {
+                    return;
+                }
+                sampling = true;
+            }
+            for (int eventIndex = 0; eventIndex < events.length && samples.size() < sampleCount; eventIndex++) {
+                samples.add(events[eventIndex]);
+            }
+            if (samples.size() < sampleCount) {
+                return;
+            }
+            completeSamples = new ArrayList<>(samples);
+            samples.clear();
+            sampling = false;
+        }
+        train(completeSamples);
+    }
+
+    private void train(List<byte[]> completeSamples) {
+        boolean succeeded = false;
+        try {
+            RedisCompressionDictionary trainedDictionary = RedisCompressionDictionary.train(completeSamples, dictionarySize);
+            if (trainedDictionary == null) {
+                LOGGER.warn("{} no recurring content to train a compression dictionary from", logPrefix);
+            } else {
+                publisher.accept(trainedDictionary);
+                dictionary = trainedDictionary;
+                LOGGER.debug("{} published compression dictionary {}", logPrefix, trainedDictionary);
+            }
+            succeeded = true;
+        } catch (Exception error) {
+            LOGGER.error("{} compression dictionary training failure", logPrefix, error);
+        } finally {
+            synchronized (this) {
+                if (succeeded && trainingPeriodNanos > 0) {
+                    nextSamplingNanos = System.nanoTime() + trainingPeriodNanos;
+                } else if (!succeeded) {
+                    sampling = true;
+                }
+            }
+        }
+    }
+
+}
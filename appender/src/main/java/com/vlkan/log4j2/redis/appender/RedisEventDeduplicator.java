@@ -0,0 +1,199 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.message.ParameterConsumer;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.logging.log4j.message.ReusableParameterizedMessage;
+import org.apache.logging.log4j.util.SortedArrayStringMap;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Collapses identical events occurring within a time window.
+ * <p>
+ * Events are identified by a 64-bit fingerprint of their level, logger name, message pattern, and thrown exceptions
+ * including their throw sites, see {@link #fingerprint(LogEvent)}. The first occurrence of a fingerprint opens a
+ * window and is kept, the rest of the occurrences within the window are dropped and counted. The first occurrence
+ * after the window is kept along with the number of dropped occurrences in its context data under
+ * {@link #REPEAT_COUNT_KEY}, and opens a new window. If no occurrence follows, the drops are only reflected by the
+ * JMX bean.
+ * </p>
+ * <p>
+ * Recent fingerprints are stored in a fixed-size open-addressing table of atomic arrays, hence it neither allocates
+ * nor locks per event. A fingerprint whose probe sequence is full evicts the one with the oldest window, losing its
+ * repeat count. Slots are updated field by field, hence racing updates can keep an extra occurrence or attribute a
+ * repeat to the adjacent window, which is fine for a best-effort filter.
+ * </p>
+ */
+final class RedisEventDeduplicator {
+
+    static final String REPEAT_COUNT_KEY = "repeatCount";
+
+    private static final int MAX_PROBE_COUNT = 8;
+
+    /**
+     * Exception cause chains are followed up to this depth, guarding against cycles.
+     */
+    private static final int MAX_CAUSE_DEPTH = 16;
+
+    private static final ParameterConsumer<long[]> PARAMETER_HASHER =
+            (parameter, parameterIndex, hashRef) -> hashRef[0] = 31 * hashRef[0] + Objects.hashCode(parameter);
+
+    private final long windowNanos;
+
+    private final int mask;
+
+    /**
+     * Fingerprints, where zero denotes an empty slot.
+     */
+    private final AtomicLongArray fingerprints;
+
+    private final AtomicLongArray windowStartNanos;
+
+    private final AtomicIntegerArray repeatCounts;
+
+    RedisEventDeduplicator(RedisDeduplicationConfig config) {
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(config.getWindowMillis());
+        // Keep the load factor at most 1/2 for short probe sequences.
+        int slotCount = Integer.highestOneBit(Math.max(1, config.getMaxFingerprintCount() - 1)) << 2;
+        this.mask = slotCount - 1;
+        this.fingerprints = new AtomicLongArray(slotCount);
+        this.windowStartNanos = new AtomicLongArray(slotCount);
+        this.repeatCounts = new AtomicIntegerArray(slotCount);
+    }
+
+    /**
+     * @return the number of occurrences dropped in the previous window, if the event is kept; {@code -1}, if dropped
+     */
+    int deduplicate(long fingerprint, long nowNanos) {
+        int startIndex = (int) fingerprint & mask;
+        int victimIndex = -1;
+        for (int probeIndex = 0; probeIndex < MAX_PROBE_COUNT; probeIndex++) {
+            int index = (startIndex + probeIndex) & mask;
+            long slotFingerprint = fingerprints.get(index);
+
+            // Found the fingerprint?
+            if (slotFingerprint == fingerprint) {
+                return deduplicate(index, nowNanos);
+            }
+
+            // Entries are replaced but never removed, hence an empty slot ends the probe sequence.
+            if (slotFingerprint == 0) {
+                if (fingerprints.compareAndSet(index, 0, fingerprint)) {
+                    windowStartNanos.set(index, nowNanos);
+                    return 0;
+                }
+                // Another thread has claimed the slot, check it again.
+                probeIndex--;
+                continue;
+            }
+            if (victimIndex < 0 || windowStartNanos.get(index) - windowStartNanos.get(victimIndex) < 0) {
+                victimIndex = index;
+            }
+
+        }
+        fingerprints.set(victimIndex, fingerprint);
+        windowStartNanos.set(victimIndex, nowNanos);
+        repeatCounts.set(victimIndex, 0);
+        return 0;
+    }
+
+    private int deduplicate(int index, long nowNanos) {
+        for (;;) {
+            long startNanos = windowStartNanos.get(index);
+            if (nowNanos - startNanos < windowNanos) {
+                repeatCounts.incrementAndGet(index);
+                return -1;
+            }
+            // The thread opening the new window collects the repeat count of the previous one.
+            if (windowStartNanos.compareAndSet(index, startNanos, nowNanos)) {
+                return repeatCounts.getAndSet(index, 0);
+            }
+        }
+    }
+
+    /**
+     * Computes the fingerprint of the event without formatting its message, and without walking entire stack traces.
+     * <p>
+     * Parameterized messages are identified by their patterns and the hash codes of their parameters, hence only
+     * occurrences with equal parameters are considered identical, e.g., <code>user {} logged in</code> is kept for
+     * every user. Exceptions are identified by their class, message, and throw site, i.e., the top frame.
+     * </p>
+     */
+    static long fingerprint(LogEvent event) {
+        long hash = event.getLevel().intLevel();
+        hash = 31 * hash + (event.getLoggerName() != null ? event.getLoggerName().hashCode() : 0);
+        hash = 31 * hash + messageHash(event.getMessage());
+        Throwable thrown = event.getThrown();
+        for (int depth = 0; thrown != null && depth < MAX_CAUSE_DEPTH; depth++, thrown = thrown.getCause()) {
+            hash = 31 * hash + thrown.getClass().getName().hashCode();
+            hash = 31 * hash + (thrown.getMessage() != null ? thrown.getMessage().hashCode() : 0);
+            StackTraceElement[] stackTrace = thrown.getStackTrace();
+            hash = 31 * hash + (stackTrace.length > 0 ? stackTrace[0].hashCode() : 0);
+        }
+        long mixedHash = mix(hash);
+        return mixedHash != 0 ? mixedHash : 1;
+    }
+
+    private static long messageHash(Message message) {
+        // These cover the messages created by the parameterized logging methods, e.g., `info(String, Object...)`.
+        // Simple messages are formatted for free, the rest need to be formatted.
+        if (message instanceof ParameterizedMessage) {
+            ParameterizedMessage parameterizedMessage = (ParameterizedMessage) message;
+            long hash = parameterizedMessage.getFormat().hashCode();
+            Object[] parameters = parameterizedMessage.getParameters();
+            if (parameters != null) {
+                for (Object parameter : parameters) {
+                    hash = 31 * hash + Objects.hashCode(parameter);
+                }
+            }
+            return hash;
+        } else if (message instanceof ReusableParameterizedMessage) {
+            // Unlike `getParameters()`, this doesn't copy the parameters of the reusable message.
+            ReusableParameterizedMessage reusableMessage = (ReusableParameterizedMessage) message;
+            long[] hashRef = {reusableMessage.getFormat().hashCode()};
+            reusableMessage.forEachParameter(PARAMETER_HASHER, hashRef);
+            return hashRef[0];
+        }
+        return message.getFormattedMessage().hashCode();
+    }
+
+    /**
+     * Spreads the bits of the hash, since the table is indexed by its lowest bits, see MurmurHash3 <code>fmix64</code>.
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    static LogEvent withRepeatCount(LogEvent event, int repeatCount) {
+        SortedArrayStringMap contextData = new SortedArrayStringMap(event.getContextData());
+        contextData.putValue(REPEAT_COUNT_KEY, String.valueOf(repeatCount));
+        return new Log4jLogEvent.Builder(event).setContextData(contextData).build();
+    }
+
+}
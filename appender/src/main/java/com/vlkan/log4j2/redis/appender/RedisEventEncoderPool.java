@@ -0,0 +1,258 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.status.StatusLogger;
+
+import java.io.Closeable;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Pool of worker threads encoding events off the logging threads, and delivering them in submission order.
+ * <p>
+ * Every submitted event gets a sequence number. Workers encode events in parallel, and store them in a ring of slots
+ * indexed by their sequence. Whichever worker completes the event with the next sequence to be delivered takes over
+ * the delivery, and delivers consecutive events as long as they are encoded. Hence, a slow event holds back the
+ * delivery of the events submitted after it, but not their encoding.
+ * </p>
+ * <p>
+ * There can be at most as many events pending delivery as there are slots. Submitting is rejected once all slots are
+ * taken, rather than blocking the logging thread.
+ * </p>
+ */
+final class RedisEventEncoderPool implements Closeable {
+
+    private static final StatusLogger LOGGER = StatusLogger.getLogger();
+
+    @FunctionalInterface
+    interface Listener {
+
+        /**
+         * @param event the submitted event, if any; <code>null</code>, otherwise
+         * @param eventBytes the encoded event, if the event is submitted and encoded successfully; <code>null</code>, otherwise
+         * @param encodingError the failure thrown by the encoder, if any; <code>null</code>, otherwise
+         */
+        void onEncoded(LogEvent event, byte[] eventBytes, Throwable encodingError, boolean endOfBatch);
+
+    }
+
+    private static final class Task {
+
+        private final long sequence;
+
+        private final LogEvent event;
+
+        private final boolean endOfBatch;
+
+        /**
+         * Encoded event, published to the delivering thread by the volatile write to {@link #encodedTasks}.
+         */
+        private byte[] eventBytes;
+
+        /**
+         * Encoding failure, published the same way as {@link #eventBytes}.
+         */
+        private Throwable encodingError;
+
+        private Task(long sequence, LogEvent event, boolean endOfBatch) {
+            this.sequence = sequence;
+            this.event = event;
+            this.endOfBatch = endOfBatch;
+        }
+
+    }
+
+    private final String logPrefix;
+
+    private final int bufferSize;
+
+    private final long timeoutMillis;
+
+    private final Function<LogEvent, byte[]> encoder;
+
+    private final Listener listener;
+
+    private final Semaphore slotPermits;
+
+    private final AtomicLong nextSequence = new AtomicLong(0);
+
+    private final BlockingQueue<Task> pendingTasks = new LinkedBlockingQueue<>();
+
+    private final AtomicReferenceArray<Task> encodedTasks;
+
+    private final ReentrantLock deliveryLock = new ReentrantLock();
+
+    /**
+     * Sequence of the next event to be delivered, only written while holding the {@link #deliveryLock}.
+     */
+    private volatile long deliverySequence = 0;
+
+    private final Thread[] workerThreads;
+
+    /**
+     * @param timeoutMillis maximum period to wait for the submitted events to be delivered while closing
+     */
+    RedisEventEncoderPool(
+            String logPrefix,
+            String threadNamePrefix,
+            int threadCount,
+            int bufferSize,
+            long timeoutMillis,
+            Function<LogEvent, byte[]> encoder,
+            Listener listener) {
+        this.logPrefix = logPrefix;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeoutMillis;
+        this.encoder = encoder;
+        this.listener = listener;
+        this.slotPermits = new Semaphore(bufferSize);
+        this.encodedTasks = new AtomicReferenceArray<>(bufferSize);
+        this.workerThreads = new Thread[threadCount];
+        for (int threadIndex = 0; threadIndex < threadCount; threadIndex++) {
+            Thread workerThread = new Thread(this::work);
+            workerThread.setName(threadNamePrefix + "-" + threadIndex);
+            workerThread.setDaemon(true);
+            workerThreads[threadIndex] = workerThread;
+        }
+    }
+
+    void start() {
+        for (Thread workerThread : workerThreads) {
+            workerThread.start();
+        }
+    }
+
+    /**
+     * Submits the event to be encoded and delivered.
+     *
+     * @param event an immutable event, or <code>null</code> to only deliver the end of batch signal in order
+     * @return {@code true}, if submitted; {@code false}, if all slots are taken
+     */
+    boolean submit(LogEvent event, boolean endOfBatch) {
+        if (!slotPermits.tryAcquire()) {
+            return false;
+        }
+        // The sequence is claimed after the permit, hence the slot of the sequence is free.
+        Task task = new Task(nextSequence.getAndIncrement(), event, endOfBatch);
+        pendingTasks.add(task);
+        return true;
+    }
+
+    private void work() {
+        try {
+            while (true) {
+                Task task = pendingTasks.take();
+                if (task.event != null) {
+                    try {
+                        task.eventBytes = encoder.apply(task.event);
+                    } catch (Exception error) {
+                        // Handed over to the listener, which accounts for the failure.
+                        task.encodingError = error;
+                    }
+                }
+                encodedTasks.set(slotIndex(task.sequence), task);
+                deliver();
+            }
+        } catch (InterruptedException ignored) {
+            LOGGER.debug("{} encoder is interrupted", logPrefix);
+        }
+    }
+
+    /**
+     * Delivers the encoded events in order.
+     * <p>
+     * If another thread is already delivering, this returns right away. The delivering thread checks for deliverable
+     * events once more after releasing the lock, hence events encoded meanwhile don't get stuck.
+     * </p>
+     */
+    private void deliver() {
+        while (isDeliverable()) {
+            if (!deliveryLock.tryLock()) {
+                return;
+            }
+            try {
+                for (Task task; (task = getDeliverableTask()) != null; ) {
+                    encodedTasks.set(slotIndex(task.sequence), null);
+                    deliverySequence = task.sequence + 1;
+                    try {
+                        listener.onEncoded(task.event, task.eventBytes, task.encodingError, task.endOfBatch);
+                    } catch (Exception error) {
+                        // Failures are reported by the listener, and there is no caller to propagate them to.
+                        LOGGER.debug("{} encoded event delivery failure", logPrefix, error);
+                    } finally {
+                        slotPermits.release();
+                    }
+                }
+            } finally {
+                deliveryLock.unlock();
+            }
+        }
+    }
+
+    private boolean isDeliverable() {
+        return getDeliverableTask() != null;
+    }
+
+    private Task getDeliverableTask() {
+        long sequence = deliverySequence;
+        Task task = encodedTasks.get(slotIndex(sequence));
+        return task != null && task.sequence == sequence ? task : null;
+    }
+
+    private int slotIndex(long sequence) {
+        return (int) (sequence % bufferSize);
+    }
+
+    /**
+     * Waits for the submitted events to be delivered, and stops the workers.
+     * <p>
+     * Events still pending after the timeout get dropped.
+     * </p>
+     */
+    @Override
+    public void close() {
+        boolean interrupted = false;
+        try {
+            if (!slotPermits.tryAcquire(bufferSize, timeoutMillis, TimeUnit.MILLISECONDS)) {
+                LOGGER.warn("{} timed out waiting for events being encoded", logPrefix);
+            }
+        } catch (InterruptedException ignored) {
+            interrupted = true;
+        }
+        for (Thread workerThread : workerThreads) {
+            workerThread.interrupt();
+        }
+        for (Thread workerThread : workerThreads) {
+            try {
+                workerThread.join();
+            } catch (InterruptedException ignored) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
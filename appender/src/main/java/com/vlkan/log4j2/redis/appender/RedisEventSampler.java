@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides whether an event is kept, given the rates of a {@link RedisSamplingConfig}.
+ * <p>
+ * Resolving the rate of a logger requires a prefix search, hence the resolved rate is cached per logger name.
+ * Logger names are a bounded set in practice, and this is the same assumption <code>LoggerContext</code> makes.
+ * </p>
+ */
+final class RedisEventSampler {
+
+    /**
+     * Marks logger names without a matching prefix, falling back to the level rates.
+     */
+    private static final Double NO_LOGGER_RATE = Double.NaN;
+
+    private final double rate;
+
+    private final Map<Level, Double> levelRates;
+
+    private final Map<String, Double> loggerRates;
+
+    private final Map<String, Double> loggerRateByName = new ConcurrentHashMap<>();
+
+    RedisEventSampler(RedisSamplingConfig config) {
+        this.rate = config.getRate();
+        this.levelRates = config.getLevelRates();
+        this.loggerRates = config.getLoggerRates();
+    }
+
+    /**
+     * @return {@code true}, if the event is kept; {@code false}, if it is sampled out
+     */
+    boolean sample(LogEvent event) {
+        double eventRate = rate(event);
+        return eventRate >= 1 || (eventRate > 0 && ThreadLocalRandom.current().nextDouble() < eventRate);
+    }
+
+    double rate(LogEvent event) {
+        if (!loggerRates.isEmpty()) {
+            String loggerName = event.getLoggerName() != null ? event.getLoggerName() : "";
+            Double loggerRate = loggerRateByName.computeIfAbsent(loggerName, this::resolveLoggerRate);
+            if (!loggerRate.isNaN()) {
+                return loggerRate;
+            }
+        }
+        Double levelRate = levelRates.get(event.getLevel());
+        return levelRate != null ? levelRate : rate;
+    }
+
+    private Double resolveLoggerRate(String loggerName) {
+        String matchingPrefix = null;
+        Double matchingRate = NO_LOGGER_RATE;
+        for (Map.Entry<String, Double> entry : loggerRates.entrySet()) {
+            String prefix = entry.getKey();
+            boolean matching = loggerName.equals(prefix) ||
+                    (loggerName.startsWith(prefix) && loggerName.charAt(prefix.length()) == '.');
+            if (matching && (matchingPrefix == null || prefix.length() > matchingPrefix.length())) {
+                matchingPrefix = prefix;
+                matchingRate = entry.getValue();
+            }
+        }
+        return matchingRate;
+    }
+
+}
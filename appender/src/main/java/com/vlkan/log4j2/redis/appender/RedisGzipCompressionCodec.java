@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * {@link RedisCompressionCodec} producing <a href="https://www.rfc-editor.org/rfc/rfc1952">gzip</a> members.
+ * <p>
+ * Unlike {@link java.util.zip.GZIPOutputStream}, which creates a new {@link Deflater} per stream,
+ * this writes the gzip header and trailer around a raw deflate stream produced by a reused {@link Deflater}.
+ * </p>
+ */
+public class RedisGzipCompressionCodec implements RedisCompressionCodec {
+
+    private static final byte[] HEADER = {
+            0x1f, (byte) 0x8b,  // magic number
+            Deflater.DEFLATED,  // compression method
+            0,                  // flags
+            0, 0, 0, 0,         // modification time
+            0,                  // extra flags
+            (byte) 0xff         // operating system (unknown)
+    };
+
+    private final RedisDeflateCompressionCodec deflateCodec;
+
+    public RedisGzipCompressionCodec() {
+        this(Deflater.DEFAULT_COMPRESSION);
+    }
+
+    public RedisGzipCompressionCodec(int level) {
+        this.deflateCodec = new RedisDeflateCompressionCodec(level, true);
+    }
+
+    @Override
+    public byte[] compress(byte[] input) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(Math.max(64, input.length / 2));
+        outputStream.write(HEADER, 0, HEADER.length);
+        deflateCodec.deflate(input, null, outputStream);
+        CRC32 crc = new CRC32();
+        crc.update(input, 0, input.length);
+        writeIntLittleEndian(outputStream, (int) crc.getValue());
+        writeIntLittleEndian(outputStream, input.length);
+        return outputStream.toByteArray();
+    }
+
+    private static void writeIntLittleEndian(ByteArrayOutputStream outputStream, int value) {
+        outputStream.write(value);
+        outputStream.write(value >>> 8);
+        outputStream.write(value >>> 16);
+        outputStream.write(value >>> 24);
+    }
+
+    @Override
+    public byte[] decompress(byte[] input) {
+        try {
+            return RedisDeflateCompressionCodec.readFully(new GZIPInputStream(new ByteArrayInputStream(input)));
+        } catch (IOException error) {
+            throw new UncheckedIOException("decompression failure", error);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName();
+    }
+
+}
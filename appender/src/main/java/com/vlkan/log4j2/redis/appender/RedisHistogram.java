@@ -0,0 +1,212 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Thread-safe histogram of non-negative <code>long</code> values with bounded relative error.
+ * <p>
+ * Buckets are laid out log-linearly, in the spirit of HdrHistogram:
+ * values below {@link #SUB_BUCKET_COUNT} are counted exactly,
+ * and every further power of two is split into {@link #SUB_BUCKET_COUNT} equal-width buckets.
+ * This bounds the relative error of a reported value by <code>1 / SUB_BUCKET_COUNT</code>.
+ * </p>
+ * <p>
+ * Recording is allocation-free and lock-free, hence it is safe to call from the logging threads.
+ * Percentiles are computed on demand by scanning the buckets, which is meant to be done only by the JMX reader.
+ * </p>
+ * <p>
+ * Values are recorded into the current of two intervals, and reported from both of them, that is, from the values
+ * recorded since the start of the previous interval. Once a read finds the current interval older than
+ * {@link #DEFAULT_INTERVAL_NANOS}, the previous interval is discarded, and the current one becomes the previous one.
+ * Hence, reports reflect recent behaviour rather than the entire lifetime of the process, provided that they are read
+ * periodically, e.g., by a JMX poller. Rolling over intervals doesn't stop recording threads, hence a value recorded
+ * while rolling over might land in the previous interval, which is fine for a best-effort report.
+ * </p>
+ */
+final class RedisHistogram {
+
+    private static final int SUB_BUCKET_BIT_COUNT = 4;
+
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BIT_COUNT;
+
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BIT_COUNT) * SUB_BUCKET_COUNT;
+
+    static final long DEFAULT_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private static final class Interval {
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+        private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+        private void reset() {
+            for (int bucketIndex = 0; bucketIndex < BUCKET_COUNT; bucketIndex++) {
+                counts.set(bucketIndex, 0);
+            }
+            max.reset();
+        }
+
+    }
+
+    private final long intervalNanos;
+
+    private volatile Interval currentInterval = new Interval();
+
+    /**
+     * Interval preceding the current one, only replaced while holding the lock of the histogram.
+     */
+    private volatile Interval previousInterval = new Interval();
+
+    /**
+     * Start time of the current interval, guarded by the lock of the histogram.
+     */
+    private long currentIntervalStartNanos = System.nanoTime();
+
+    RedisHistogram() {
+        this(DEFAULT_INTERVAL_NANOS);
+    }
+
+    RedisHistogram(long intervalNanos) {
+        this.intervalNanos = intervalNanos;
+    }
+
+    /**
+     * Records the given value, clamping negative ones to zero.
+     */
+    void record(long value) {
+        long clampedValue = Math.max(0, value);
+        Interval interval = currentInterval;
+        interval.counts.incrementAndGet(bucketIndex(clampedValue));
+        interval.max.accumulate(clampedValue);
+    }
+
+    /**
+     * Discards the previous interval, and starts a new current one, if the current one is due.
+     */
+    private synchronized void rollOverIfDue() {
+        long nowNanos = System.nanoTime();
+        if (nowNanos - currentIntervalStartNanos >= intervalNanos) {
+            rollOver(nowNanos);
+        }
+    }
+
+    synchronized void rollOver(long nowNanos) {
+        Interval discardedInterval = previousInterval;
+        discardedInterval.reset();
+        previousInterval = currentInterval;
+        currentInterval = discardedInterval;
+        currentIntervalStartNanos = nowNanos;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BIT_COUNT;
+        // Shifted value is in [SUB_BUCKET_COUNT, 2 * SUB_BUCKET_COUNT).
+        int subBucketIndex = (int) (value >>> shift);
+        return shift * SUB_BUCKET_COUNT + subBucketIndex;
+    }
+
+    /**
+     * @return the highest value mapping to the bucket at the given index
+     */
+    static long bucketMaxValue(int bucketIndex) {
+        if (bucketIndex < SUB_BUCKET_COUNT) {
+            return bucketIndex;
+        }
+        int shift = bucketIndex / SUB_BUCKET_COUNT - 1;
+        long subBucketIndex = bucketIndex % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        return (subBucketIndex << shift) + (1L << shift) - 1;
+    }
+
+    private static long getBucketCount(Interval current, Interval previous, int bucketIndex) {
+        return current.counts.get(bucketIndex) + previous.counts.get(bucketIndex);
+    }
+
+    /**
+     * @return the number of values recorded since the start of the previous interval
+     */
+    long getCount() {
+        rollOverIfDue();
+        Interval current = currentInterval;
+        Interval previous = previousInterval;
+        long count = 0;
+        for (int bucketIndex = 0; bucketIndex < BUCKET_COUNT; bucketIndex++) {
+            count += getBucketCount(current, previous, bucketIndex);
+        }
+        return count;
+    }
+
+    /**
+     * @return the maximum value recorded since the start of the previous interval
+     */
+    long getMax() {
+        rollOverIfDue();
+        return Math.max(currentInterval.max.get(), previousInterval.max.get());
+    }
+
+    /**
+     * Computes the value at the given percentile.
+     * <p>
+     * The reported value is the highest value of the matching bucket, capped by the maximum recorded value.
+     * Since buckets are read one by one, the result is not an atomic snapshot while values are being recorded.
+     * </p>
+     *
+     * @param percentile a value in <code>(0, 100]</code>
+     * @return the value at the given percentile, or zero, if nothing is recorded yet
+     */
+    long getValueAtPercentile(double percentile) {
+        rollOverIfDue();
+        Interval current = currentInterval;
+        Interval previous = previousInterval;
+        long max = Math.max(current.max.get(), previous.max.get());
+        long[] snapshot = new long[BUCKET_COUNT];
+        long totalCount = 0;
+        for (int bucketIndex = 0; bucketIndex < BUCKET_COUNT; bucketIndex++) {
+            long count = getBucketCount(current, previous, bucketIndex);
+            snapshot[bucketIndex] = count;
+            totalCount += count;
+        }
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+        long cumulativeCount = 0;
+        for (int bucketIndex = 0; bucketIndex < BUCKET_COUNT; bucketIndex++) {
+            cumulativeCount += snapshot[bucketIndex];
+            if (cumulativeCount >= rank) {
+                return Math.min(bucketMaxValue(bucketIndex), max);
+            }
+        }
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return "RedisHistogram{count=" + getCount() +
+                ", p50=" + getValueAtPercentile(50) +
+                ", p99=" + getValueAtPercentile(99) +
+                ", p999=" + getValueAtPercentile(99.9) +
+                ", max=" + getMax() +
+                '}';
+    }
+
+}
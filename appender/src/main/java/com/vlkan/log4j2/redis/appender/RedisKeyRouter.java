@@ -0,0 +1,266 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.config.Configuration;
+import org.apache.logging.log4j.core.layout.PatternLayout;
+import org.apache.logging.log4j.core.pattern.PatternFormatter;
+import org.apache.logging.log4j.core.util.Constants;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Routes events to Redis keys resolved per event from a pattern, e.g., <code>logs:$${ctx:tenant}:%level</code>.
+ * <p>
+ * The pattern supports the conversion specifiers of <code>PatternLayout</code>, and lookups resolved at runtime.
+ * Since the throttler buffer and the spill queue only deal with byte arrays, the key travels along with the event in a frame:
+ * {@link #FRAME_TAG}, the key length as 4-byte big-endian integers, the key, and the event.
+ * Flushers group the framed events of a batch by key using {@link #groupByKey(byte[][])}.
+ * The tag tells frames apart from plain events, e.g., the ones spilled while there was no key pattern.
+ * </p>
+ * <p>
+ * Encoded keys are cached, so that the key of every event is not encoded over and over again.
+ * Lookups neither lock nor allocate: the key is formatted into a reusable per-thread buffer, unless thread-locals are
+ * disabled, and looked up by its characters. The cache is cleared once it reaches its capacity, which is cheaper than
+ * keeping track of the least recently used keys, and the keys in use get cached again right away.
+ * </p>
+ */
+final class RedisKeyRouter {
+
+    /**
+     * Tag of the frames, that is, a zero byte, which no text layout starts with, <code>RK</code>, and the frame format version.
+     */
+    static final int FRAME_TAG = 0x00_52_4B_01;
+
+    private static final int FRAME_HEADER_LENGTH = 2 * Integer.BYTES;
+
+    private final List<PatternFormatter> formatters;
+
+    private final Charset charset;
+
+    private final int keyCacheSize;
+
+    private final ConcurrentHashMap<Key, byte[]> keyBytesByKey;
+
+    private final ThreadLocal<Key> lookupKeyRef;
+
+    RedisKeyRouter(Configuration config, String keyPattern, Charset charset, int keyCacheSize) {
+        this.formatters = PatternLayout.createPatternParser(config).parse(keyPattern);
+        this.charset = charset;
+        this.keyCacheSize = keyCacheSize;
+        this.keyBytesByKey = new ConcurrentHashMap<>();
+        this.lookupKeyRef = Constants.ENABLE_THREADLOCALS
+                ? ThreadLocal.withInitial(() -> new Key(new StringBuilder()))
+                : null;
+    }
+
+    /**
+     * Cache key comparing keys by their characters, so that a key being formatted can be looked up without creating a <code>String</code>.
+     * <p>
+     * Lookup keys wrap a reusable <code>StringBuilder</code>, and cached keys a <code>String</code>.
+     * </p>
+     */
+    private static final class Key {
+
+        private final CharSequence chars;
+
+        private int hash;
+
+        private Key(CharSequence chars) {
+            this.chars = chars;
+            updateHash();
+        }
+
+        private void updateHash() {
+            int hash = 0;
+            for (int charIndex = 0; charIndex < chars.length(); charIndex++) {
+                hash = 31 * hash + chars.charAt(charIndex);
+            }
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (this == object) {
+                return true;
+            }
+            if (!(object instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) object;
+            if (hash != that.hash || chars.length() != that.chars.length()) {
+                return false;
+            }
+            for (int charIndex = 0; charIndex < chars.length(); charIndex++) {
+                if (chars.charAt(charIndex) != that.chars.charAt(charIndex)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+    /**
+     * Framed events sharing the same key, where events are referred to by their offsets in their frames, rather than being copied.
+     */
+    static final class KeyGroup {
+
+        private final byte[] keyBytes;
+
+        private final byte[][] frames;
+
+        private final int[] eventOffsets;
+
+        private KeyGroup(byte[] keyBytes, byte[][] frames, int[] eventOffsets) {
+            this.keyBytes = keyBytes;
+            this.frames = frames;
+            this.eventOffsets = eventOffsets;
+        }
+
+        /**
+         * @return the key, or <code>null</code> for the group of events that are not framed, and hence cannot be routed
+         */
+        byte[] getKeyBytes() {
+            return keyBytes;
+        }
+
+        byte[][] getFrames() {
+            return frames;
+        }
+
+        int[] getEventOffsets() {
+            return eventOffsets;
+        }
+
+        /**
+         * Copies the events out of their frames, for consumers that only accept entire arrays.
+         */
+        byte[][] copyEvents() {
+            byte[][] events = new byte[frames.length][];
+            for (int frameIndex = 0; frameIndex < frames.length; frameIndex++) {
+                events[frameIndex] = Arrays.copyOfRange(frames[frameIndex], eventOffsets[frameIndex], frames[frameIndex].length);
+            }
+            return events;
+        }
+
+    }
+
+    byte[] resolveKeyBytes(LogEvent event) {
+
+        // Format the key.
+        Key lookupKey = lookupKeyRef != null ? lookupKeyRef.get() : new Key(new StringBuilder());
+        StringBuilder keyBuilder = (StringBuilder) lookupKey.chars;
+        keyBuilder.setLength(0);
+        for (PatternFormatter formatter : formatters) {
+            formatter.format(event, keyBuilder);
+        }
+        lookupKey.updateHash();
+
+        // Look it up.
+        byte[] keyBytes = keyBytesByKey.get(lookupKey);
+        if (keyBytes != null) {
+            return keyBytes;
+        }
+
+        // Encode and cache it.
+        String key = keyBuilder.toString();
+        keyBytes = key.getBytes(charset);
+        if (keyBytesByKey.size() >= keyCacheSize) {
+            keyBytesByKey.clear();
+        }
+        keyBytesByKey.put(new Key(key), keyBytes);
+        return keyBytes;
+
+    }
+
+    static byte[] frame(byte[] keyBytes, byte[] eventBytes) {
+        return ByteBuffer
+                .allocate(FRAME_HEADER_LENGTH + keyBytes.length + eventBytes.length)
+                .putInt(FRAME_TAG)
+                .putInt(keyBytes.length)
+                .put(keyBytes)
+                .put(eventBytes)
+                .array();
+    }
+
+    /**
+     * Writes the frame header, that is, the tag, the key length, and the key, for the event to be encoded next into the destination.
+     */
+    static void writeFrameHeader(byte[] keyBytes, RedisByteBufferDestination destination) {
+        destination.writeInt(FRAME_TAG);
+        destination.writeInt(keyBytes.length);
+        destination.writeBytes(keyBytes, 0, keyBytes.length);
+    }
+
+    /**
+     * Groups the framed events by key.
+     * <p>
+     * Groups are ordered by the first occurrence of their keys, and events preserve their order within every group.
+     * Events that are not framed, or whose frames are malformed, are grouped under a <code>null</code> key,
+     * rather than failing the entire batch, which might be replayed from the spill queue over and over again.
+     * </p>
+     */
+    static List<KeyGroup> groupByKey(byte[][] frames) {
+        Map<ByteBuffer, List<byte[]>> framesByKey = new LinkedHashMap<>();
+        for (byte[] frame : frames) {
+            ByteBuffer key = readKey(frame);
+            framesByKey.computeIfAbsent(key, ignored -> new ArrayList<>()).add(frame);
+        }
+        List<KeyGroup> keyGroups = new ArrayList<>(framesByKey.size());
+        framesByKey.forEach((key, keyFrames) -> {
+            byte[] keyBytes = key != null ? Arrays.copyOfRange(key.array(), key.position(), key.limit()) : null;
+            int[] eventOffsets = new int[keyFrames.size()];
+            for (int frameIndex = 0; frameIndex < eventOffsets.length; frameIndex++) {
+                eventOffsets[frameIndex] = key != null ? key.limit() : 0;
+            }
+            keyGroups.add(new KeyGroup(keyBytes, keyFrames.toArray(new byte[0][]), eventOffsets));
+        });
+        return keyGroups;
+    }
+
+    /**
+     * @return the key of the frame as a buffer whose limit is the offset of the event, or <code>null</code>, if the frame is malformed
+     */
+    private static ByteBuffer readKey(byte[] frame) {
+        if (frame.length < FRAME_HEADER_LENGTH) {
+            return null;
+        }
+        ByteBuffer frameBuffer = ByteBuffer.wrap(frame);
+        if (frameBuffer.getInt() != FRAME_TAG) {
+            return null;
+        }
+        int keyLength = frameBuffer.getInt();
+        if (keyLength < 0 || keyLength > frame.length - FRAME_HEADER_LENGTH) {
+            return null;
+        }
+        return ByteBuffer.wrap(frame, FRAME_HEADER_LENGTH, keyLength);
+    }
+
+}
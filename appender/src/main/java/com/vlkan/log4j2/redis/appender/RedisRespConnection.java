@@ -0,0 +1,375 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal <a href="https://redis.io/docs/reference/protocol-spec/">RESP2</a> client connection to a standalone Redis server.
+ * <p>
+ * Commands are encoded straight into a reusable direct buffer, hence writing an event doesn't allocate.
+ * Payloads not fitting into the buffer are written along with the buffer using a single gather write, without copying.
+ * Commands are pipelined until {@link #sync()}, which flushes them and reads all replies in bulk.
+ * Alternatively, {@link #flush()} and {@link #readReplies(int)} can be called by different threads,
+ * so that commands can be written while the replies of earlier ones are still in flight.
+ * </p>
+ * <p>
+ * Failures of the socket or of the protocol are thrown as {@link JedisConnectionException}s, after which the connection must be closed.
+ * Error replies are thrown as {@link JedisDataException}s, after which the connection stays usable.
+ * Instances are not thread-safe, except that a single writer and a single reader can run concurrently.
+ * </p>
+ */
+final class RedisRespConnection implements Closeable {
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+
+    /**
+     * Maximum length of a command or bulk string header, that is, the type byte, an int, and the CRLF.
+     */
+    private static final int MAX_HEADER_LENGTH = 1 + 11 + 2;
+
+    private static final byte[] AUTH_COMMAND_BYTES = "AUTH".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] SELECT_COMMAND_BYTES = "SELECT".getBytes(StandardCharsets.US_ASCII);
+
+    private final SocketChannel channel;
+
+    /**
+     * Stream to read the replies from, which, unlike the channel, respects the socket timeout.
+     */
+    private final InputStream inputStream;
+
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+
+    private final ByteBuffer[] gatherBuffers = new ByteBuffer[2];
+
+    private final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+
+    private int readPosition = 0;
+
+    private int readLimit = 0;
+
+    private int pendingReplyCount = 0;
+
+    private RedisRespConnection(SocketChannel channel) throws IOException {
+        this.channel = channel;
+        this.inputStream = channel.socket().getInputStream();
+    }
+
+    /**
+     * Connects to the server, and authenticates and selects the database, if needed.
+     *
+     * @param username username to authenticate with, ignored if the password is <code>null</code>
+     * @param password password to authenticate with, or <code>null</code> to skip authentication
+     */
+    static RedisRespConnection open(
+            String host,
+            int port,
+            int connectionTimeoutMillis,
+            int socketTimeoutMillis,
+            String username,
+            String password,
+            int database) {
+        SocketChannel channel = null;
+        try {
+            channel = SocketChannel.open();
+            Socket socket = channel.socket();
+            socket.setTcpNoDelay(true);
+            socket.setKeepAlive(true);
+            socket.setSoTimeout(socketTimeoutMillis);
+            socket.connect(new InetSocketAddress(host, port), connectionTimeoutMillis);
+            RedisRespConnection connection = new RedisRespConnection(channel);
+            connection.handshake(username, password, database);
+            return connection;
+        } catch (IOException | RuntimeException error) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException closeError) {
+                    error.addSuppressed(closeError);
+                }
+            }
+            throw error instanceof RuntimeException
+                    ? (RuntimeException) error
+                    : new JedisConnectionException("connection failure", error);
+        }
+    }
+
+    private void handshake(String username, String password, int database) {
+        if (password != null) {
+            byte[] passwordBytes = password.getBytes(StandardCharsets.UTF_8);
+            if (username != null) {
+                writeCommandHeader(3);
+                writeBulkString(AUTH_COMMAND_BYTES);
+                writeBulkString(username.getBytes(StandardCharsets.UTF_8));
+            } else {
+                writeCommandHeader(2);
+                writeBulkString(AUTH_COMMAND_BYTES);
+            }
+            writeBulkString(passwordBytes);
+        }
+        if (database != 0) {
+            writeCommandHeader(2);
+            writeBulkString(SELECT_COMMAND_BYTES);
+            writeBulkString(Integer.toString(database).getBytes(StandardCharsets.US_ASCII));
+        }
+        sync();
+    }
+
+    /**
+     * Starts a command, which must be followed by the given number of {@link #writeBulkString(byte[])} calls.
+     */
+    void writeCommandHeader(int argumentCount) {
+        writeHeader((byte) '*', argumentCount);
+        pendingReplyCount++;
+    }
+
+    void writeBulkString(byte[] bytes) {
+        writeBulkString(bytes, 0, bytes.length);
+    }
+
+    void writeBulkString(byte[] bytes, int offset, int length) {
+        writeHeader((byte) '$', length);
+        if (length + 2 <= writeBuffer.remaining()) {
+            writeBuffer.put(bytes, offset, length);
+        } else {
+            writeGathering(bytes, offset, length);
+        }
+        ensureRemaining(2);
+        writeBuffer.put((byte) '\r').put((byte) '\n');
+    }
+
+    private void writeHeader(byte type, int length) {
+        ensureRemaining(MAX_HEADER_LENGTH);
+        writeBuffer.put(type);
+        writeDecimal(length);
+        writeBuffer.put((byte) '\r').put((byte) '\n');
+    }
+
+    /**
+     * Writes the given non-negative value in ASCII, without allocating a string.
+     */
+    private void writeDecimal(int value) {
+        int digitCount = 1;
+        for (int remaining = value / 10; remaining > 0; remaining /= 10) {
+            digitCount++;
+        }
+        int startPosition = writeBuffer.position();
+        for (int digitIndex = digitCount - 1; digitIndex >= 0; digitIndex--) {
+            writeBuffer.put(startPosition + digitIndex, (byte) ('0' + value % 10));
+            value /= 10;
+        }
+        writeBuffer.position(startPosition + digitCount);
+    }
+
+    private void ensureRemaining(int length) {
+        if (writeBuffer.remaining() < length) {
+            flushWriteBuffer();
+        }
+    }
+
+    private void flushWriteBuffer() {
+        writeBuffer.flip();
+        try {
+            while (writeBuffer.hasRemaining()) {
+                channel.write(writeBuffer);
+            }
+        } catch (IOException error) {
+            throw new JedisConnectionException("write failure", error);
+        }
+        writeBuffer.clear();
+    }
+
+    /**
+     * Writes the buffered commands followed by the given payload using a single gather write.
+     */
+    private void writeGathering(byte[] bytes, int offset, int length) {
+        writeBuffer.flip();
+        gatherBuffers[0] = writeBuffer;
+        gatherBuffers[1] = ByteBuffer.wrap(bytes, offset, length);
+        try {
+            while (gatherBuffers[1].hasRemaining()) {
+                channel.write(gatherBuffers);
+            }
+        } catch (IOException error) {
+            throw new JedisConnectionException("write failure", error);
+        } finally {
+            gatherBuffers[1] = null;
+        }
+        writeBuffer.clear();
+    }
+
+    /**
+     * Flushes the pipelined commands, and reads their replies.
+     *
+     * @throws JedisDataException with the first error reply, if any, after all replies are read
+     */
+    void sync() {
+        readReplies(flush());
+    }
+
+    /**
+     * Flushes the pipelined commands.
+     *
+     * @return the number of replies to be read for the flushed commands
+     */
+    int flush() {
+        flushWriteBuffer();
+        int replyCount = pendingReplyCount;
+        pendingReplyCount = 0;
+        return replyCount;
+    }
+
+    /**
+     * Reads the given number of replies.
+     *
+     * @throws JedisDataException with the first error reply, if any, after all replies are read
+     */
+    void readReplies(int replyCount) {
+        String errorMessage = null;
+        try {
+            for (int replyIndex = 0; replyIndex < replyCount; replyIndex++) {
+                String replyErrorMessage = readReply();
+                if (errorMessage == null) {
+                    errorMessage = replyErrorMessage;
+                }
+            }
+        } catch (IOException error) {
+            throw new JedisConnectionException("read failure", error);
+        }
+        if (errorMessage != null) {
+            throw new JedisDataException(errorMessage);
+        }
+    }
+
+    /**
+     * Reads a reply, skipping its content.
+     *
+     * @return the message of the error reply, if the reply (or any of its elements) is an error; <code>null</code>, otherwise
+     */
+    private String readReply() throws IOException {
+        byte type = readByte();
+        switch (type) {
+            case '+':
+            case ':':
+                skipLine();
+                return null;
+            case '-':
+                return readLine();
+            case '$': {
+                int length = readDecimal();
+                if (length >= 0) {
+                    skip(length + 2);
+                }
+                return null;
+            }
+            case '*': {
+                int length = readDecimal();
+                String errorMessage = null;
+                for (int elementIndex = 0; elementIndex < length; elementIndex++) {
+                    String elementErrorMessage = readReply();
+                    if (errorMessage == null) {
+                        errorMessage = elementErrorMessage;
+                    }
+                }
+                return errorMessage;
+            }
+            default:
+                throw new JedisConnectionException("unexpected reply type: " + (char) type);
+        }
+    }
+
+    private int readDecimal() throws IOException {
+        boolean negative = false;
+        int value = 0;
+        for (byte digit; (digit = readByte()) != '\r'; ) {
+            if (digit == '-') {
+                negative = true;
+            } else {
+                value = 10 * value + (digit - '0');
+            }
+        }
+        readByte();     // '\n'
+        return negative ? -value : value;
+    }
+
+    private String readLine() throws IOException {
+        StringBuilder lineBuilder = new StringBuilder();
+        for (byte character; (character = readByte()) != '\r'; ) {
+            lineBuilder.append((char) character);
+        }
+        readByte();     // '\n'
+        return lineBuilder.toString();
+    }
+
+    private void skipLine() throws IOException {
+        while (readByte() != '\r') {
+            // Do nothing.
+        }
+        readByte();     // '\n'
+    }
+
+    private void skip(int length) throws IOException {
+        while (length > 0) {
+            fillReadBuffer();
+            int skippedLength = Math.min(length, readLimit - readPosition);
+            readPosition += skippedLength;
+            length -= skippedLength;
+        }
+    }
+
+    private byte readByte() throws IOException {
+        fillReadBuffer();
+        return readBuffer[readPosition++];
+    }
+
+    /**
+     * Reads as many bytes as available into the read buffer, if it is consumed.
+     */
+    private void fillReadBuffer() throws IOException {
+        if (readPosition == readLimit) {
+            int readLength = inputStream.read(readBuffer, 0, readBuffer.length);
+            if (readLength < 0) {
+                throw new EOFException("unexpected end of stream");
+            }
+            readPosition = 0;
+            readLimit = readLength;
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Do nothing.
+        }
+    }
+
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.apache.logging.log4j.status.StatusLogger;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import java.io.Closeable;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Window of in-flight batches pipelined on a {@link RedisRespConnection}.
+ * <p>
+ * The writer returns as soon as a batch is written, unless the window is full.
+ * A dedicated reader thread reads the replies, matches them to the batches in FIFO order, and acknowledges every batch to the listener.
+ * Hence, the throughput is bounded by the window size over the round trip time, rather than by the batch size over it.
+ * </p>
+ * <p>
+ * Once the connection fails, all in-flight batches get acknowledged with the failure, and further writes are rejected.
+ * </p>
+ */
+final class RedisRespPipeline implements Closeable {
+
+    private static final StatusLogger LOGGER = StatusLogger.getLogger();
+
+    @FunctionalInterface
+    interface Listener {
+
+        /**
+         * @param error the first error reply or the connection failure, if any; <code>null</code>, otherwise
+         */
+        void onAcknowledged(byte[][] events, long latencyNanos, Exception error);
+
+    }
+
+    private static final class InFlightBatch {
+
+        private final byte[][] events;
+
+        private final int replyCount;
+
+        private final long writeNanos;
+
+        private InFlightBatch(byte[][] events, int replyCount, long writeNanos) {
+            this.events = events;
+            this.replyCount = replyCount;
+            this.writeNanos = writeNanos;
+        }
+
+    }
+
+    private final String logPrefix;
+
+    private final RedisRespConnection connection;
+
+    private final int maxInFlightBatchCount;
+
+    private final long timeoutMillis;
+
+    private final Listener listener;
+
+    private final Semaphore windowPermits;
+
+    private final BlockingQueue<InFlightBatch> inFlightBatches = new LinkedBlockingQueue<>();
+
+    private final Thread readerThread;
+
+    private volatile JedisConnectionException failure = null;
+
+    /**
+     * @param timeoutMillis maximum period to wait for a slot in the window while writing, and for in-flight batches while closing
+     */
+    RedisRespPipeline(
+            String logPrefix,
+            String threadName,
+            RedisRespConnection connection,
+            int maxInFlightBatchCount,
+            long timeoutMillis,
+            Listener listener) {
+        this.logPrefix = logPrefix;
+        this.connection = connection;
+        this.maxInFlightBatchCount = maxInFlightBatchCount;
+        this.timeoutMillis = timeoutMillis;
+        this.listener = listener;
+        this.windowPermits = new Semaphore(maxInFlightBatchCount);
+        this.readerThread = new Thread(this::read);
+        this.readerThread.setName(threadName);
+        this.readerThread.setDaemon(true);
+        this.readerThread.start();
+    }
+
+    /**
+     * Writes the commands of the batch, and returns without waiting for their replies, unless the window is full.
+     *
+     * @throws JedisConnectionException if the connection has failed, or no slot has become available in time
+     */
+    void write(byte[][] events, Consumer<RedisRespConnection> commandWriter) {
+        requireNotFailed();
+        acquireWindowPermit();
+        try {
+            requireNotFailed();
+            long writeNanos = System.nanoTime();
+            commandWriter.accept(connection);
+            int replyCount = connection.flush();
+            inFlightBatches.add(new InFlightBatch(events, replyCount, writeNanos));
+        } catch (RuntimeException error) {
+            windowPermits.release();
+            throw error;
+        }
+        // If the reader has failed meanwhile, it might have missed the batch.
+        JedisConnectionException failure = this.failure;
+        if (failure != null) {
+            acknowledgeAll(failure);
+        }
+    }
+
+    private void requireNotFailed() {
+        JedisConnectionException failure = this.failure;
+        if (failure != null) {
+            throw new JedisConnectionException("pipeline failure", failure);
+        }
+    }
+
+    private void acquireWindowPermit() {
+        try {
+            if (!windowPermits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new JedisConnectionException("timed out waiting for a slot in the in-flight window");
+            }
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+            throw new JedisConnectionException("interrupted while waiting for a slot in the in-flight window");
+        }
+    }
+
+    private void read() {
+        InFlightBatch batch = null;
+        try {
+            while (true) {
+                batch = inFlightBatches.take();
+                Exception error = null;
+                try {
+                    connection.readReplies(batch.replyCount);
+                } catch (JedisDataException replyError) {
+                    error = replyError;
+                }
+                acknowledge(batch, error);
+                batch = null;
+            }
+        } catch (InterruptedException ignored) {
+            LOGGER.debug("{} pipeline reader is interrupted", logPrefix);
+        } catch (JedisConnectionException error) {
+            failure = error;
+            connection.close();
+            if (batch != null) {
+                acknowledge(batch, error);
+            }
+            acknowledgeAll(error);
+        }
+    }
+
+    private void acknowledgeAll(Exception error) {
+        for (InFlightBatch batch; (batch = inFlightBatches.poll()) != null; ) {
+            acknowledge(batch, error);
+        }
+    }
+
+    private void acknowledge(InFlightBatch batch, Exception error) {
+        long latencyNanos = System.nanoTime() - batch.writeNanos;
+        try {
+            listener.onAcknowledged(batch.events, latencyNanos, error);
+        } finally {
+            windowPermits.release();
+        }
+    }
+
+    /**
+     * Waits for the in-flight batches to be acknowledged, and closes the connection.
+     * <p>
+     * Batches still in flight after the timeout get acknowledged with a failure.
+     * </p>
+     */
+    @Override
+    public void close() {
+        boolean interrupted = false;
+        try {
+            if (!windowPermits.tryAcquire(maxInFlightBatchCount, timeoutMillis, TimeUnit.MILLISECONDS)) {
+                LOGGER.warn("{} timed out waiting for in-flight batches", logPrefix);
+            }
+        } catch (InterruptedException ignored) {
+            interrupted = true;
+        }
+        readerThread.interrupt();
+        connection.close();
+        try {
+            readerThread.join();
+        } catch (InterruptedException ignored) {
+            interrupted = true;
+        }
+        // Acknowledge the leftovers, if the reader has been interrupted before failing them.
+        acknowledgeAll(new JedisConnectionException("pipeline is closed"));
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
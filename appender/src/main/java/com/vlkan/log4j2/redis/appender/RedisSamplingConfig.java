@@ -0,0 +1,186 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.config.Node;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.config.plugins.PluginBuilderAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginBuilderFactory;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.vlkan.log4j2.redis.appender.Helpers.requireArgument;
+
+/**
+ * Probabilistic sampling of events before they are enqueued.
+ * <p>
+ * The sampling rate of an event is the rate of the longest logger name prefix in {@link #getLoggerRates()} matching
+ * the logger of the event, if any; otherwise, the rate of its level in {@link #getLevelRates()}, if any;
+ * otherwise, {@link #getRate()}. Rates are given in the form of <code>name=rate</code> pairs separated by commas,
+ * e.g., <code>DEBUG=0.01,INFO=0.1</code> or <code>com.acme.chatty=0.05</code>.
+ * </p>
+ */
+@Plugin(name = "RedisSamplingConfig",
+        category = Node.CATEGORY,
+        printObject = true)
+public class RedisSamplingConfig {
+
+    private final double rate;
+
+    private final Map<Level, Double> levelRates;
+
+    private final Map<String, Double> loggerRates;
+
+    private RedisSamplingConfig(Builder builder) {
+        this.rate = builder.rate;
+        this.levelRates = parseLevelRates(builder.levelRates);
+        this.loggerRates = parseRates("loggerRates", builder.loggerRates);
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public Map<Level, Double> getLevelRates() {
+        return levelRates;
+    }
+
+    public Map<String, Double> getLoggerRates() {
+        return loggerRates;
+    }
+
+    private static Map<Level, Double> parseLevelRates(String levelRates) {
+        Map<String, Double> ratesByName = parseRates("levelRates", levelRates);
+        Map<Level, Double> ratesByLevel = new LinkedHashMap<>();
+        ratesByName.forEach((levelName, rate) -> {
+            Level level = Level.getLevel(levelName.toUpperCase());
+            requireArgument(level != null, "unknown level in levelRates: %s", levelName);
+            ratesByLevel.put(level, rate);
+        });
+        return Collections.unmodifiableMap(ratesByLevel);
+    }
+
+    private static Map<String, Double> parseRates(String attributeName, String rates) {
+        if (rates == null || rates.trim().isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Double> ratesByName = new LinkedHashMap<>();
+        for (String pair : rates.trim().split("\\s*,\\s*")) {
+            int separatorIndex = pair.indexOf('=');
+            requireArgument(
+                    separatorIndex > 0,
+                    "expecting: name=rate pairs in %s, found: %s",
+                    attributeName, pair);
+            String name = pair.substring(0, separatorIndex).trim();
+            String rateText = pair.substring(separatorIndex + 1).trim();
+            double rate;
+            try {
+                rate = Double.parseDouble(rateText);
+            } catch (NumberFormatException ignored) {
+                throw new IllegalArgumentException(
+                        String.format("invalid rate in %s: %s", attributeName, pair));
+            }
+            checkRate(attributeName, rate);
+            ratesByName.put(name, rate);
+        }
+        return Collections.unmodifiableMap(ratesByName);
+    }
+
+    private static void checkRate(String attributeName, double rate) {
+        requireArgument(
+                rate >= 0 && rate <= 1,
+                "expecting: %s >= 0 && %s <= 1, found: %s",
+                attributeName, attributeName, rate);
+    }
+
+    @Override
+    public String toString() {
+        return "RedisSamplingConfig{rate=" + rate +
+                ", levelRates=" + levelRates +
+                ", loggerRates=" + loggerRates +
+                '}';
+    }
+
+    @PluginBuilderFactory
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    public static class Builder implements org.apache.logging.log4j.core.util.Builder<RedisSamplingConfig> {
+
+        @PluginBuilderAttribute
+        private double rate = 1;
+
+        @PluginBuilderAttribute
+        private String levelRates = null;
+
+        @PluginBuilderAttribute
+        private String loggerRates = null;
+
+        private Builder() {
+            // Do nothing.
+        }
+
+        public double getRate() {
+            return rate;
+        }
+
+        public Builder setRate(double rate) {
+            this.rate = rate;
+            return this;
+        }
+
+        public String getLevelRates() {
+            return levelRates;
+        }
+
+        public Builder setLevelRates(String levelRates) {
+            this.levelRates = levelRates;
+            return this;
+        }
+
+        public String getLoggerRates() {
+            return loggerRates;
+        }
+
+        public Builder setLoggerRates(String loggerRates) {
+            this.loggerRates = loggerRates;
+            return this;
+        }
+
+        public RedisSamplingConfig build() {
+            check();
+            return new RedisSamplingConfig(this);
+        }
+
+        private void check() {
+            checkRate("rate", rate);
+        }
+
+        @Override
+        public String toString() {
+            return "Builder{rate=" + rate +
+                    ", levelRates=" + levelRates +
+                    ", loggerRates=" + loggerRates +
+                    '}';
+        }
+
+    }
+
+}
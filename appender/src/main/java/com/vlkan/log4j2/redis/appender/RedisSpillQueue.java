@@ -0,0 +1,437 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.apache.logging.log4j.status.StatusLogger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Persistent FIFO queue of events backed by memory-mapped segment files.
+ * <p>
+ * Events are appended to the tail segment as length-prefixed records.
+ * The length prefix is stored as <code>length + 1</code> for unconsumed records, and as <code>-(length + 1)</code> for consumed ones.
+ * Since segments are zero-filled on creation, a zero length prefix marks the end of the written records.
+ * The payload is written before its length prefix, hence a partially written record is never read back after a crash.
+ * </p>
+ * <p>
+ * Consuming is a two-step process: {@link #peek(int)} reads events without removing them, and {@link #remove(int)} marks them consumed.
+ * This allows the caller to remove events only after they are successfully pushed to Redis.
+ * Fully consumed segments get deleted.
+ * </p>
+ * <p>
+ * Queues are shared by directory and reference counted, since certain applications (e.g., Spring Boot) are known to reconfigure
+ * <code>LoggerContext</code> multiple times, causing interleaved start-stop calls of appenders writing to the same directory.
+ * Only instances of the same appender, that is, the owner, can share a queue, since the events get replayed to the key of the appender.
+ * A lock file in the directory guards against concurrent access by other processes.
+ * </p>
+ */
+final class RedisSpillQueue implements AutoCloseable {
+
+    private static final StatusLogger LOGGER = StatusLogger.getLogger();
+
+    private static final Map<Path, RedisSpillQueue> QUEUE_BY_DIRECTORY = new HashMap<>();
+
+    private static final String LOCK_FILE_NAME = ".lock";
+
+    private static final Pattern SEGMENT_FILE_NAME_PATTERN = Pattern.compile("^segment-(\\d+)\\.spill$");
+
+    private static final int LENGTH_PREFIX_BYTE_COUNT = Integer.BYTES;
+
+    private final Path directory;
+
+    private final String ownerName;
+
+    private final RedisSpillQueueConfig config;
+
+    private final int segmentByteCount;
+
+    private final int maxSegmentCount;
+
+    private final String syncPolicy;
+
+    private final String logPrefix;
+
+    private final FileChannel lockChannel;
+
+    private final FileLock lock;
+
+    private final Deque<Segment> segments = new ArrayDeque<>();
+
+    private long nextSegmentSequence;
+
+    private long eventCount;
+
+    /**
+     * Number of {@link RedisThrottler}s sharing this queue, guarded by {@link #QUEUE_BY_DIRECTORY}.
+     */
+    private int referenceCount = 0;
+
+    private RedisSpillQueue(Path directory, String ownerName, RedisSpillQueueConfig config) throws IOException {
+        this.directory = directory;
+        this.ownerName = ownerName;
+        this.config = config;
+        this.segmentByteCount = config.getSegmentByteCount();
+        this.maxSegmentCount = Math.toIntExact(Math.max(1, config.getMaxByteCount() / config.getSegmentByteCount()));
+        this.syncPolicy = config.getSyncPolicy();
+        this.logPrefix = String.format("[RedisSpillQueue{%s}]", directory);
+        Files.createDirectories(directory);
+        this.lockChannel = FileChannel.open(
+                directory.resolve(LOCK_FILE_NAME),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        this.lock = lockChannel.tryLock();
+        if (lock == null) {
+            lockChannel.close();
+            String message = String.format("spill directory is locked by another process (directory=%s)", directory);
+            throw new IllegalStateException(message);
+        }
+        recoverSegments();
+    }
+
+    /**
+     * Opens the queue of the directory, or shares the one already opened by another instance of the same appender.
+     * <p>
+     * If the latter was opened with different settings, they stay in effect until all instances release the queue.
+     * </p>
+     *
+     * @param ownerName name of the appender
+     * @throws IllegalStateException if the directory is in use by another appender or another process
+     */
+    static RedisSpillQueue acquire(String ownerName, RedisSpillQueueConfig config) {
+        Path directory = Paths.get(config.getDirectory()).toAbsolutePath().normalize();
+        synchronized (QUEUE_BY_DIRECTORY) {
+            RedisSpillQueue queue = QUEUE_BY_DIRECTORY.get(directory);
+            if (queue != null) {
+                if (!queue.ownerName.equals(ownerName)) {
+                    String message = String.format(
+                            "spill directory is in use by another appender (directory=%s, owner=%s)",
+                            directory, queue.ownerName);
+                    throw new IllegalStateException(message);
+                }
+                if (!queue.hasSameSettings(config)) {
+                    LOGGER.warn(
+                            "{} sharing the queue opened with different settings, which stay in effect until it is reopened (current={}, requested={})",
+                            queue.logPrefix, queue.config, config);
+                }
+            } else {
+                try {
+                    queue = new RedisSpillQueue(directory, ownerName, config);
+                } catch (IOException error) {
+                    String message = String.format("failed opening the spill queue (directory=%s)", directory);
+                    throw new RuntimeException(message, error);
+                }
+                QUEUE_BY_DIRECTORY.put(directory, queue);
+            }
+            queue.referenceCount++;
+            return queue;
+        }
+    }
+
+    private boolean hasSameSettings(RedisSpillQueueConfig config) {
+        return this.config.getSegmentByteCount() == config.getSegmentByteCount() &&
+                this.config.getMaxByteCount() == config.getMaxByteCount() &&
+                this.config.getSyncPolicy().equals(config.getSyncPolicy());
+    }
+
+    private void recoverSegments() throws IOException {
+
+        // Collect the segment files ordered by their sequences.
+        List<Long> sequences = new ArrayList<>();
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory)) {
+            for (Path path : paths) {
+                Matcher matcher = SEGMENT_FILE_NAME_PATTERN.matcher(path.getFileName().toString());
+                if (matcher.matches()) {
+                    sequences.add(Long.parseLong(matcher.group(1)));
+                }
+            }
+        }
+        sequences.sort(Long::compare);
+
+        // Open the segments, skipping the fully consumed ones.
+        for (long sequence : sequences) {
+            Segment segment = openSegment(sequence, false);
+            if (segment.eventCount > 0) {
+                segments.addLast(segment);
+                eventCount += segment.eventCount;
+            } else {
+                deleteSegment(segment);
+            }
+            nextSegmentSequence = sequence + 1;
+        }
+        if (eventCount > 0) {
+            LOGGER.info("{} recovered {} events in {} segments", logPrefix, eventCount, segments.size());
+        }
+
+    }
+
+    private Segment openSegment(long sequence, boolean create) throws IOException {
+        Path path = directory.resolve(String.format("segment-%020d.spill", sequence));
+        try (FileChannel channel = create
+                ? FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Mapping beyond the file size zero-fills the extension.
+            long byteCount = create ? segmentByteCount : Math.min(Integer.MAX_VALUE, channel.size());
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, byteCount);
+            Segment segment = new Segment(sequence, path, buffer);
+            segment.scan();
+            return segment;
+        }
+    }
+
+    private void deleteSegment(Segment segment) {
+        // The mapping gets released by the garbage collector.
+        // Until then, platforms like Windows will refuse to delete the file.
+        // That is fine, the segment is fully consumed and will be deleted during the next recovery.
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (IOException error) {
+            LOGGER.warn("{} failed deleting the consumed segment (path={})", logPrefix, segment.path, error);
+        }
+    }
+
+    /**
+     * Appends the given events.
+     *
+     * @return the number of events appended, which is less than the given count if the disk budget is exhausted
+     */
+    synchronized int offer(byte[][] events, int offset, int count) {
+        Segment lastSyncedSegment = null;
+        int offeredEventCount = 0;
+        for (int eventIndex = offset; eventIndex < offset + count; eventIndex++) {
+            byte[] event = events[eventIndex];
+            int recordByteCount = LENGTH_PREFIX_BYTE_COUNT + event.length;
+            if (recordByteCount > segmentByteCount) {
+                LOGGER.warn("{} event doesn't fit into a segment (eventByteCount={})", logPrefix, event.length);
+                continue;
+            }
+            Segment segment = segments.peekLast();
+            if (segment == null || !segment.fits(recordByteCount)) {
+                if (segment != null && RedisSpillQueueConfig.SEGMENT_SYNC_POLICY.equals(syncPolicy)) {
+                    segment.buffer.force();
+                }
+                segment = createSegment();
+                if (segment == null) {
+                    break;
+                }
+            }
+            segment.append(event);
+            eventCount++;
+            offeredEventCount++;
+            if (RedisSpillQueueConfig.BATCH_SYNC_POLICY.equals(syncPolicy) && segment != lastSyncedSegment) {
+                if (lastSyncedSegment != null) {
+                    lastSyncedSegment.buffer.force();
+                }
+                lastSyncedSegment = segment;
+            }
+        }
+        if (lastSyncedSegment != null) {
+            lastSyncedSegment.buffer.force();
+        }
+        return offeredEventCount;
+    }
+
+    private Segment createSegment() {
+        if (segments.size() >= maxSegmentCount) {
+            LOGGER.debug("{} disk budget is exhausted (segmentCount={})", logPrefix, segments.size());
+            return null;
+        }
+        try {
+            Segment segment = openSegment(nextSegmentSequence++, true);
+            segments.addLast(segment);
+            return segment;
+        } catch (IOException error) {
+            String message = String.format("%s failed creating a new segment", logPrefix);
+            throw new RuntimeException(message, error);
+        }
+    }
+
+    /**
+     * Reads the events at the head of the queue without removing them.
+     *
+     * @return up to <code>maxCount</code> events, or an empty array if the queue is empty
+     */
+    synchronized byte[][] peek(int maxCount) {
+        int count = (int) Math.min(maxCount, eventCount);
+        byte[][] events = new byte[count][];
+        int eventIndex = 0;
+        for (Segment segment : segments) {
+            int position = segment.readPosition;
+            while (eventIndex < count && position < segment.writePosition) {
+                int length = segment.buffer.getInt(position) - 1;
+                byte[] event = new byte[length];
+                ByteBuffer view = segment.buffer.duplicate();
+                view.position(position + LENGTH_PREFIX_BYTE_COUNT);
+                view.get(event);
+                events[eventIndex++] = event;
+                position += LENGTH_PREFIX_BYTE_COUNT + length;
+            }
+            if (eventIndex == count) {
+                break;
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Marks the given number of events at the head of the queue as consumed.
+     */
+    synchronized void remove(int count) {
+        for (int removedEventCount = 0; removedEventCount < count && eventCount > 0; removedEventCount++) {
+            Segment segment = segments.peekFirst();
+            segment.consume();
+            eventCount--;
+            if (segment.eventCount == 0) {
+                segments.removeFirst();
+                deleteSegment(segment);
+            }
+        }
+    }
+
+    synchronized boolean isEmpty() {
+        return eventCount == 0;
+    }
+
+    synchronized long getEventCount() {
+        return eventCount;
+    }
+
+    @Override
+    public void close() {
+        synchronized (QUEUE_BY_DIRECTORY) {
+            if (--referenceCount == 0) {
+                QUEUE_BY_DIRECTORY.remove(directory);
+                release();
+            }
+        }
+    }
+
+    private synchronized void release() {
+        LOGGER.debug("{} releasing (eventCount={})", logPrefix, eventCount);
+        if (!RedisSpillQueueConfig.NONE_SYNC_POLICY.equals(syncPolicy)) {
+            for (Segment segment : segments) {
+                segment.buffer.force();
+            }
+        }
+        segments.clear();
+        try {
+            lock.release();
+            lockChannel.close();
+        } catch (IOException error) {
+            LOGGER.warn("{} failed releasing the lock", logPrefix, error);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return logPrefix;
+    }
+
+    private static final class Segment {
+
+        private final long sequence;
+
+        private final Path path;
+
+        private final MappedByteBuffer buffer;
+
+        private int readPosition = 0;
+
+        private int writePosition = 0;
+
+        private int eventCount = 0;
+
+        private Segment(long sequence, Path path, MappedByteBuffer buffer) {
+            this.sequence = sequence;
+            this.path = path;
+            this.buffer = buffer;
+        }
+
+        /**
+         * Determines the read and write positions by scanning the records.
+         */
+        private void scan() {
+            int position = 0;
+            int firstUnconsumedPosition = -1;
+            while (position + LENGTH_PREFIX_BYTE_COUNT <= buffer.capacity()) {
+                int lengthPrefix = buffer.getInt(position);
+                if (lengthPrefix == 0) {
+                    break;
+                }
+                int length = Math.abs(lengthPrefix) - 1;
+                int nextPosition = position + LENGTH_PREFIX_BYTE_COUNT + length;
+                if (length < 0 || nextPosition > buffer.capacity()) {
+                    // Corrupt record, ignore the rest.
+                    break;
+                }
+                if (lengthPrefix > 0) {
+                    eventCount++;
+                    if (firstUnconsumedPosition < 0) {
+                        firstUnconsumedPosition = position;
+                    }
+                }
+                position = nextPosition;
+            }
+            writePosition = position;
+            readPosition = firstUnconsumedPosition < 0 ? position : firstUnconsumedPosition;
+        }
+
+        private boolean fits(int recordByteCount) {
+            return writePosition + recordByteCount <= buffer.capacity();
+        }
+
+        private void append(byte[] event) {
+            int payloadPosition = writePosition + LENGTH_PREFIX_BYTE_COUNT;
+            ByteBuffer view = buffer.duplicate();
+            view.position(payloadPosition);
+            view.put(event);
+            buffer.putInt(writePosition, event.length + 1);
+            writePosition = payloadPosition + event.length;
+            eventCount++;
+        }
+
+        private void consume() {
+            int lengthPrefix = buffer.getInt(readPosition);
+            buffer.putInt(readPosition, -lengthPrefix);
+            readPosition += LENGTH_PREFIX_BYTE_COUNT + lengthPrefix - 1;
+            eventCount--;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Segment{sequence=%d, path=%s}", sequence, path);
+        }
+
+    }
+
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.apache.logging.log4j.core.config.Node;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.config.plugins.PluginBuilderAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginBuilderFactory;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.vlkan.log4j2.redis.appender.Helpers.requireArgument;
+import static org.apache.logging.log4j.util.Strings.isNotBlank;
+
+@Plugin(name = "RedisSpillQueueConfig",
+        category = Node.CATEGORY,
+        printObject = true)
+public class RedisSpillQueueConfig {
+
+    /**
+     * Leaves flushing the memory-mapped segments to the disk to the operating system.
+     */
+    static final String NONE_SYNC_POLICY = "none";
+
+    /**
+     * Flushes the memory-mapped segments to the disk after every spilled batch.
+     */
+    static final String BATCH_SYNC_POLICY = "batch";
+
+    /**
+     * Flushes a memory-mapped segment to the disk once it is full, and at shutdown.
+     */
+    static final String SEGMENT_SYNC_POLICY = "segment";
+
+    private static final Set<String> ALLOWED_SYNC_POLICIES =
+            Stream.of(NONE_SYNC_POLICY, BATCH_SYNC_POLICY, SEGMENT_SYNC_POLICY).collect(Collectors.toSet());
+
+    private final String directory;
+
+    private final int segmentByteCount;
+
+    private final long maxByteCount;
+
+    private final String syncPolicy;
+
+    private RedisSpillQueueConfig(Builder builder) {
+        this.directory = builder.directory;
+        this.segmentByteCount = builder.segmentByteCount;
+        this.maxByteCount = builder.maxByteCount;
+        this.syncPolicy = builder.syncPolicy;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public int getSegmentByteCount() {
+        return segmentByteCount;
+    }
+
+    public long getMaxByteCount() {
+        return maxByteCount;
+    }
+
+    public String getSyncPolicy() {
+        return syncPolicy;
+    }
+
+    @Override
+    public String toString() {
+        return "RedisSpillQueueConfig{directory=" + directory +
+                ", segmentByteCount=" + segmentByteCount +
+                ", maxByteCount=" + maxByteCount +
+                ", syncPolicy=" + syncPolicy +
+                '}';
+    }
+
+    @PluginBuilderFactory
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    public static class Builder implements org.apache.logging.log4j.core.util.Builder<RedisSpillQueueConfig> {
+
+        @PluginBuilderAttribute
+        private String directory;
+
+        @PluginBuilderAttribute
+        private int segmentByteCount = 16 * 1024 * 1024;
+
+        @PluginBuilderAttribute
+        private long maxByteCount = 1024L * 1024 * 1024;
+
+        @PluginBuilderAttribute
+        private String syncPolicy = SEGMENT_SYNC_POLICY;
+
+        private Builder() {
+            // Do nothing.
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public Builder setDirectory(String directory) {
+            this.directory = directory;
+            return this;
+        }
+
+        public int getSegmentByteCount() {
+            return segmentByteCount;
+        }
+
+        public Builder setSegmentByteCount(int segmentByteCount) {
+            this.segmentByteCount = segmentByteCount;
+            return this;
+        }
+
+        public long getMaxByteCount() {
+            return maxByteCount;
+        }
+
+        public Builder setMaxByteCount(long maxByteCount) {
+            this.maxByteCount = maxByteCount;
+            return this;
+        }
+
+        public String getSyncPolicy() {
+            return syncPolicy;
+        }
+
+        public Builder setSyncPolicy(String syncPolicy) {
+            this.syncPolicy = syncPolicy;
+            return this;
+        }
+
+        public RedisSpillQueueConfig build() {
+            check();
+            return new RedisSpillQueueConfig(this);
+        }
+
+        private void check() {
+            requireArgument(isNotBlank(directory), "blank directory");
+            requireArgument(
+                    segmentByteCount > 0,
+                    "expecting: segmentByteCount > 0, found: %d",
+                    segmentByteCount);
+            requireArgument(
+                    maxByteCount >= segmentByteCount,
+                    "expecting: maxByteCount >= segmentByteCount, found: %d",
+                    maxByteCount);
+            requireArgument(
+                    ALLOWED_SYNC_POLICIES.contains(syncPolicy),
+                    "expecting: syncPolicy anyOf %s, found: %s",
+                    ALLOWED_SYNC_POLICIES,
+                    syncPolicy);
+        }
+
+        @Override
+        public String toString() {
+            return "Builder{directory=" + directory +
+                    ", segmentByteCount=" + segmentByteCount +
+                    ", maxByteCount=" + maxByteCount +
+                    ", syncPolicy=" + syncPolicy +
+                    '}';
+        }
+
+    }
+
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.apache.logging.log4j.core.config.Node;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.config.plugins.PluginBuilderAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginBuilderFactory;
+import redis.clients.jedis.params.XAddParams;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.vlkan.log4j2.redis.appender.Helpers.requireArgument;
+import static org.apache.logging.log4j.util.Strings.isNotBlank;
+
+/**
+ * Configuration of the <code>XADD</code> command, that is, of the stream entries and the trimming of the stream.
+ */
+@Plugin(name = "RedisStreamConfig",
+        category = Node.CATEGORY,
+        printObject = true)
+public class RedisStreamConfig {
+
+    private final String field;
+
+    private final byte[] fieldBytes;
+
+    private final long maxLen;
+
+    private final long minIdAgeMillis;
+
+    private final boolean approximateTrimming;
+
+    /**
+     * Shared <code>XADD</code> parameters, if they don't change over time, that is, unless trimming by age; <code>null</code>, otherwise.
+     */
+    private final XAddParams xAddParams;
+
+    /**
+     * Shared <code>XADD</code> arguments, if they don't change over time, that is, unless trimming by age; <code>null</code>, otherwise.
+     */
+    private final byte[][] xAddArgBytes;
+
+    private RedisStreamConfig(Builder builder) {
+        this.field = builder.field;
+        this.fieldBytes = builder.field.getBytes(StandardCharsets.UTF_8);
+        this.maxLen = builder.maxLen;
+        this.minIdAgeMillis = builder.minIdAgeMillis;
+        this.approximateTrimming = builder.approximateTrimming;
+        this.xAddParams = minIdAgeMillis > 0 ? null : createXAddParams(0);
+        this.xAddArgBytes = minIdAgeMillis > 0 ? null : createXAddArgBytes(0);
+    }
+
+    /**
+     * @return the <code>MINID</code> to trim the stream to, that is, the millisecond part of the IDs of the entries
+     * added <code>minIdAgeMillis</code> ago, given the server generates IDs from its clock
+     */
+    private String createMinId(long nowMillis) {
+        return Long.toString(Math.max(0, nowMillis - minIdAgeMillis));
+    }
+
+    private XAddParams createXAddParams(long nowMillis) {
+        XAddParams params = XAddParams.xAddParams();
+        if (maxLen > 0) {
+            params.maxLen(maxLen);
+        } else if (minIdAgeMillis > 0) {
+            params.minId(createMinId(nowMillis));
+        } else {
+            return params;
+        }
+        return approximateTrimming
+                ? params.approximateTrimming()
+                : params.exactTrimming();
+    }
+
+    /**
+     * Creates the <code>XADD</code> arguments between the key and the field, that is, the trimming options and the ID.
+     * <p>
+     * These are used by the native protocol writer, which doesn't go through {@link XAddParams}.
+     * </p>
+     */
+    private byte[][] createXAddArgBytes(long nowMillis) {
+        List<String> args = new ArrayList<>(4);
+        if (maxLen > 0 || minIdAgeMillis > 0) {
+            args.add(maxLen > 0 ? "MAXLEN" : "MINID");
+            args.add(approximateTrimming ? "~" : "=");
+            args.add(maxLen > 0 ? Long.toString(maxLen) : createMinId(nowMillis));
+        }
+        // Let the server generate the ID.
+        args.add("*");
+        return args
+                .stream()
+                .map(arg -> arg.getBytes(StandardCharsets.UTF_8))
+                .toArray(byte[][]::new);
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    byte[] getFieldBytes() {
+        return fieldBytes;
+    }
+
+    public long getMaxLen() {
+        return maxLen;
+    }
+
+    public long getMinIdAgeMillis() {
+        return minIdAgeMillis;
+    }
+
+    public boolean isApproximateTrimming() {
+        return approximateTrimming;
+    }
+
+    /**
+     * @param nowMillis current time in milliseconds, determining the <code>MINID</code>, if trimming by age
+     * @return the effectively immutable <code>XADD</code> parameters, which are shared, unless trimming by age
+     */
+    XAddParams getXAddParams(long nowMillis) {
+        return xAddParams != null ? xAddParams : createXAddParams(nowMillis);
+    }
+
+    /**
+     * @param nowMillis current time in milliseconds, determining the <code>MINID</code>, if trimming by age
+     * @return the <code>XADD</code> arguments between the key and the field, which must not be modified, since they are
+     * shared, unless trimming by age
+     */
+    byte[][] getXAddArgBytes(long nowMillis) {
+        return xAddArgBytes != null ? xAddArgBytes : createXAddArgBytes(nowMillis);
+    }
+
+    @Override
+    public String toString() {
+        return "RedisStreamConfig{field=" + field +
+                ", maxLen=" + maxLen +
+                ", minIdAgeMillis=" + minIdAgeMillis +
+                ", approximateTrimming=" + approximateTrimming +
+                '}';
+    }
+
+    @PluginBuilderFactory
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    public static class Builder implements org.apache.logging.log4j.core.util.Builder<RedisStreamConfig> {
+
+        @PluginBuilderAttribute
+        private String field = "event";
+
+        @PluginBuilderAttribute
+        private long maxLen = 0;
+
+        @PluginBuilderAttribute
+        private long minIdAgeMillis = 0;
+
+        @PluginBuilderAttribute
+        private boolean approximateTrimming = true;
+
+        private Builder() {
+            // Do nothing.
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        public Builder setField(String field) {
+            this.field = field;
+            return this;
+        }
+
+        public long getMaxLen() {
+            return maxLen;
+        }
+
+        public Builder setMaxLen(long maxLen) {
+            this.maxLen = maxLen;
+            return this;
+        }
+
+        public long getMinIdAgeMillis() {
+            return minIdAgeMillis;
+        }
+
+        public Builder setMinIdAgeMillis(long minIdAgeMillis) {
+            this.minIdAgeMillis = minIdAgeMillis;
+            return this;
+        }
+
+        public boolean isApproximateTrimming() {
+            return approximateTrimming;
+        }
+
+        public Builder setApproximateTrimming(boolean approximateTrimming) {
+            this.approximateTrimming = approximateTrimming;
+            return this;
+        }
+
+        public RedisStreamConfig build() {
+            check();
+            return new RedisStreamConfig(this);
+        }
+
+        private void check() {
+            requireArgument(isNotBlank(field), "blank field");
+            requireArgument(maxLen >= 0, "expecting: maxLen >= 0, found: %d", maxLen);
+            requireArgument(minIdAgeMillis >= 0, "expecting: minIdAgeMillis >= 0, found: %d", minIdAgeMillis);
+            requireArgument(maxLen == 0 || minIdAgeMillis == 0, "expecting either maxLen or minIdAgeMillis, found both");
+        }
+
+        @Override
+        public String toString() {
+            return "Builder{field=" + field +
+                    ", maxLen=" + maxLen +
+                    ", minIdAgeMillis=" + minIdAgeMillis +
+                    ", approximateTrimming=" + approximateTrimming +
+                    '}';
+        }
+
+    }
+
+}
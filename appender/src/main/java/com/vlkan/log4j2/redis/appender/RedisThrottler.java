@@ -15,7 +15,10 @@
  */
 package com.vlkan.log4j2.redis.appender;
 
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LogEvent;
 import org.apache.logging.log4j.core.LoggerContext;
 import org.apache.logging.log4j.status.StatusLogger;
 
@@ -29,8 +32,7 @@ import java.lang.management.ManagementFactory;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -41,6 +43,15 @@ class RedisThrottler implements AutoCloseable {
 
     private static final AtomicInteger JMX_BEAN_COUNTER = new AtomicInteger(0);
 
+    /**
+     * Empty buffer item waking up a flusher to push its partial batch, see {@link #endBatch()}.
+     * <p>
+     * Markers are recognized by their length rather than their identity, since the off-heap buffer copies items.
+     * Empty events are not pushed in the first place, hence they can't be mistaken for markers.
+     * </p>
+     */
+    private static final byte[] END_OF_BATCH_MARKER = new byte[0];
+
     /**
      * Reference count of JMX beans.
      * <p>
@@ -59,11 +70,29 @@ class RedisThrottler implements AutoCloseable {
 
     private final boolean ignoreExceptions;
 
-    private final BlockingQueue<byte[]> buffer;
+    private final RedisThrottlerBuffer buffer;
+
+    /**
+     * Indicates if the buffer returns the very same event instances offered to it, unlike the off-heap one.
+     */
+    private final boolean bufferPreservingIdentity;
+
+    /**
+     * Per-thread chunks staging events before they reach the {@link #buffer}, if enabled; <code>null</code>, otherwise.
+     */
+    private final RedisThrottlerStagingArea stagingArea;
+
+    private final String overflowPolicy;
 
-    private final byte[][] batch;
+    private final long overflowTimeoutNanos;
 
-    private final Thread flushTrigger;
+    /**
+     * Buffer size beyond which only events at least as severe as {@link RedisThrottlerConfig#getOverflowPriorityLevel()}
+     * are accepted by the {@link RedisThrottlerConfig#PRIORITY_OVERFLOW_POLICY}.
+     */
+    private final int unreservedBufferSize;
+
+    private final Flusher[] flushers;
 
     private final RateLimiter eventRateLimiter;
 
@@ -71,6 +100,17 @@ class RedisThrottler implements AutoCloseable {
 
     private final RateLimiter errorRateLimiter;
 
+    /**
+     * Optional retry budget shared by all flushers, to avoid retry storms while Redis is struggling.
+     */
+    private final RateLimiter retryRateLimiter;
+
+    private final RedisCircuitBreaker circuitBreaker;
+
+    private final RedisEventSampler sampler;
+
+    private final RedisEventDeduplicator deduplicator;
+
     private final ObjectName jmxBeanName;
 
     private volatile boolean started = false;
@@ -78,15 +118,46 @@ class RedisThrottler implements AutoCloseable {
     private volatile RedisThrottlerJmxBean jmxBean = null;
 
     /**
-     * Index pointing to the next empty item of {@link #batch}.
+     * Optional disk spill queue for events failed to be pushed.
      * <p>
-     * This doesn't need to be guarded, since it is only accessed by the {@link #flushTrigger}.
+     * This is set before and released after the {@link #flushers} run, which are the only accessors.
      * </p>
      */
-    private int batchIndex = 0;
+    private RedisSpillQueue spillQueue = null;
 
     private final AtomicReference<Throwable> lastThrownRef = new AtomicReference<>(null);
 
+    /**
+     * Encoding failure to be thrown to the next logging thread, if exceptions are not ignored, see {@link #failEncoding(Throwable)}.
+     */
+    private final AtomicReference<Throwable> encodingErrorRef = new AtomicReference<>(null);
+
+    /**
+     * Event sampled to measure the delivery latency, that is, the time from enqueueing to a successful Redis push.
+     * <p>
+     * Timing every event would need a timestamp per buffer slot.
+     * Instead, a single event is sampled at a time: a producer claims the sample if there is none,
+     * and the flusher pushing it releases the sample, hence the next event gets sampled.
+     * </p>
+     * <p>
+     * The sample is matched by identity, or by content for buffers not preserving identity, see {@link #isSampledEvent(byte[])}.
+     * </p>
+     */
+    private final AtomicReference<byte[]> sampledEventRef = new AtomicReference<>(null);
+
+    /**
+     * Enqueue time of the {@link #sampledEventRef}.
+     * <p>
+     * This is written before the event gets offered to the buffer, which makes it visible to the flusher polling the event.
+     * </p>
+     */
+    private long sampledEventEnqueueNanos;
+
+    /**
+     * Indicates if the appender acknowledges pushes asynchronously, see {@link #acknowledgePipelinedPush(byte[][], long, Exception)}.
+     */
+    private final boolean pushPipelined;
+
     RedisThrottler(
             RedisThrottlerConfig config,
             RedisAppender appender,
@@ -95,9 +166,22 @@ class RedisThrottler implements AutoCloseable {
         this.appender = appender;
         this.logPrefix = String.format("[RedisThrottler{%s}]", appender.getName());
         this.ignoreExceptions = ignoreExceptions;
-        this.buffer = new ArrayBlockingQueue<>(config.getBufferSize());
-        this.batch = new byte[config.getBatchSize()][];
-        this.flushTrigger = createFlushTrigger(appender.getName());
+        this.buffer = RedisThrottlerBuffer.ofType(
+                config.getBufferType(),
+                config.getBufferSize(),
+                config.getMaxBufferByteCount());
+        this.bufferPreservingIdentity = !(buffer instanceof RedisThrottlerOffHeapBuffer);
+        this.stagingArea = config.getStagingChunkSize() > 0
+                ? new RedisThrottlerStagingArea(
+                        buffer,
+                        config.getStagingChunkSize(),
+                        config.getStagingPeriodMillis(),
+                        this::dropStagedEvent)
+                : null;
+        this.overflowPolicy = config.getOverflowPolicy();
+        this.overflowTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(config.getOverflowTimeoutMillis());
+        this.unreservedBufferSize = config.getBufferSize() - config.getOverflowReservedBufferSize();
+        this.flushers = createFlushers(config.getFlushThreadCount(), appender.getName());
         this.eventRateLimiter = config.getMaxEventCountPerSecond() > 0
                 ? RateLimiter.ofMaxPermitCountPerSecond(
                         appender.getName() + "-EventRateLimiter",
@@ -113,7 +197,22 @@ class RedisThrottler implements AutoCloseable {
                         appender.getName()  + "-ErrorRateLimiter",
                         config.getMaxErrorCountPerSecond())
                 : null;
+        this.retryRateLimiter = config.getMaxRetryCountPerSecond() > 0
+                ? RateLimiter.ofMaxPermitCountPerSecond(
+                        appender.getName()  + "-RetryRateLimiter",
+                        config.getMaxRetryCountPerSecond())
+                : null;
+        this.circuitBreaker = config.getCircuitBreakerConfig() != null
+                ? RedisCircuitBreaker.of(appender.getName() + "-CircuitBreaker", config.getCircuitBreakerConfig())
+                : null;
+        this.sampler = config.getSamplingConfig() != null
+                ? new RedisEventSampler(config.getSamplingConfig())
+                : null;
+        this.deduplicator = config.getDeduplicationConfig() != null
+                ? new RedisEventDeduplicator(config.getDeduplicationConfig())
+                : null;
         this.jmxBeanName = createJmxBeanName();
+        this.pushPipelined = appender.isPushPipelined();
     }
 
     private ObjectName createJmxBeanName() {
@@ -134,119 +233,421 @@ class RedisThrottler implements AutoCloseable {
         }
     }
 
-    private Thread createFlushTrigger(String appenderName) {
-        Thread thread = new Thread(this::flushContinuously);
-        thread.setName(appenderName + " Throttler");
-        thread.setDaemon(true);
-        return thread;
+    private Flusher[] createFlushers(int flusherCount, String appenderName) {
+        Flusher[] flushers = new Flusher[flusherCount];
+        for (int flusherIndex = 0; flusherIndex < flusherCount; flusherIndex++) {
+            String threadName = flusherCount == 1
+                    ? appenderName + " Throttler"
+                    : appenderName + " Throttler-" + flusherIndex;
+            flushers[flusherIndex] = new Flusher(flusherIndex, threadName);
+        }
+        return flushers;
     }
 
-    private void flushContinuously() {
+    /**
+     * Background task polling the buffer, batching the events, and pushing them.
+     * <p>
+     * There are as many flushers as {@link RedisThrottlerConfig#getFlushThreadCount()}, draining the shared buffer concurrently.
+     * Each flusher owns a batch, and borrows a connection per push.
+     * </p>
+     */
+    private final class Flusher implements Runnable {
+
+        private final int index;
+
+        private final Thread thread;
+
+        private final byte[][] batch;
+
+        /**
+         * Index pointing to the next empty item of {@link #batch}.
+         * <p>
+         * This doesn't need to be guarded, since it is only accessed by the {@link #thread}.
+         * </p>
+         */
+        private int batchIndex = 0;
+
+        /**
+         * Indicates if the {@link #batch} contains the {@link #sampledEventRef}.
+         */
+        private boolean sampledEventBatched = false;
+
+        /**
+         * Optional controller adapting the batch size and the flush period.
+         * <p>
+         * If present, only the first {@link RedisThrottlerBatchController#getBatchSize()} items of the {@link #batch} are used.
+         * </p>
+         */
+        private final RedisThrottlerBatchController batchController;
+
+        private Flusher(int index, String threadName) {
+            this.index = index;
+            this.thread = new Thread(this);
+            this.thread.setName(threadName);
+            this.thread.setDaemon(true);
+            this.batch = new byte[config.getBatchSize()][];
+            this.batchController = config.isAdaptiveBatchingEnabled()
+                    ? new RedisThrottlerBatchController(config)
+                    : null;
+        }
+
+        @Override
+        public void run() {
+
+            // Determine the wait period.
+            long waitPeriodNanos = Math.multiplyExact(1_000_000L, config.getFlushPeriodMillis());
+            if (LOGGER.isInfoEnabled()) {
+                String waitPeriod = String.format("%.3fs", waitPeriodNanos * 1e-9);
+                LOGGER.info("{} background task #{} has started (waitPeriod={})", logPrefix, index, waitPeriod);
+            }
+
+            // Flush continuously.
+            boolean interrupted = false;
+            while (started) {
+                LOGGER.debug("{} background task #{} is flushing", logPrefix, index);
+                try {
+                    if (batchController != null) {
+                        batchController.onFlush(buffer.size());
+                        waitPeriodNanos = batchController.getFlushPeriodNanos();
+                        jmxBean.updateAdaptiveFlushPeriodNanos(waitPeriodNanos);
+                    }
+                    flush(waitPeriodNanos);
+                }
+                // Catch the interrupted exception to avoid getting the current thread interrupted.
+                // This is needed because further Redis I/O for the leftovers in the buffer might be performed.
+                // `interrupted` flag will be restored later on.
+                catch (InterruptedException ignored) {
+                    LOGGER.debug("{} background task #{} is interrupted", logPrefix, index);
+                    interrupted = true;
+                    break;
+                }
+            }
+
+            // Upon graceful shutdown, flush one last time for any leftovers in the buffer.
+            if (started) {
+                LOGGER.debug("{} background task #{} is interrupted abruptly, skipping flushing one last time", logPrefix, index);
+            } else {
+                LOGGER.debug("{} background task #{} is flushing one last time", logPrefix, index);
+                try {
+                    flush(0);
+                } catch (InterruptedException ignored) {
+                    LOGGER.debug("{} last run of the background task #{} is interrupted", logPrefix, index);
+                    interrupted = true;
+                }
+            }
+
+            // Restore the `interrupted` flag, if necessary.
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
 
-        // Determine the wait period.
-        long waitPeriodNanos = Math.multiplyExact(1_000_000L, config.getFlushPeriodMillis());
-        if (LOGGER.isInfoEnabled()) {
-            String waitPeriod = String.format("%.3fs", waitPeriodNanos * 1e-9);
-            LOGGER.info("{} background task has started (waitPeriod={})", logPrefix, waitPeriod);
         }
 
-        // Flush continuously.
-        boolean interrupted = false;
-        while (started) {
-            LOGGER.debug("{} background task is flushing", logPrefix);
-            try {
-                flush(waitPeriodNanos);
-            }
-            // Catch the interrupted exception to avoid getting the current thread interrupted.
-            // This is needed because further Redis I/O for the leftovers in the buffer might be performed.
-            // `interrupted` flag will be restored later on.
-            catch (InterruptedException ignored) {
-                LOGGER.debug("{} background task is interrupted", logPrefix);
-                interrupted = true;
-                break;
+        private void flush(long waitPeriodNanos) throws InterruptedException {
+
+            // If waiting on the buffer is not allowed, flush events indeed without waiting.
+            if (waitPeriodNanos <= 0) {
+                if (stagingArea != null) {
+                    stagingArea.publishAll();
+                }
+                for (byte[] event; (event = buffer.poll()) != null;) {
+                    if (isEndOfBatchMarker(event)) {
+                        continue;
+                    }
+                    if (LOGGER.isTraceEnabled()) {
+                        LOGGER.trace("{} background task #{} has polled: {}", logPrefix, index, new String(event).trim());
+                    }
+                    add(event);
+                }
+            }
+
+            // Otherwise, wait on the buffer for events to appear.
+            else {
+                while (waitPeriodNanos > 0) {
+                    long pollTimeNanos = System.nanoTime();
+                    // If staging, wake up at least once per staging period to publish the stale chunks of quiet threads.
+                    long pollTimeoutNanos = waitPeriodNanos;
+                    if (stagingArea != null) {
+                        stagingArea.publishStale(pollTimeNanos);
+                        pollTimeoutNanos = Math.min(waitPeriodNanos, stagingArea.getPeriodNanos());
+                    }
+                    byte[] event = buffer.poll(pollTimeoutNanos, TimeUnit.NANOSECONDS);
+                    if (event != null) {
+                        // Push the partial batch right away at the end of a producer batch.
+                        if (isEndOfBatchMarker(event)) {
+                            LOGGER.debug("{} background task #{} has reached the end of batch", logPrefix, index);
+                            break;
+                        }
+                        if (LOGGER.isTraceEnabled()) {
+                            LOGGER.trace("{} background task #{} has polled: {}", logPrefix, index, new String(event).trim());
+                        }
+                        add(event);
+                    } else if (stagingArea == null) {
+                        break;
+                    }
+                    long pollPeriodNanos = System.nanoTime() - pollTimeNanos;
+                    waitPeriodNanos -= pollPeriodNanos;
+                }
+            }
+
+            // Flush the last remaining.
+            if (batchIndex > 0) {
+                LOGGER.debug(
+                        "{} background task #{} is pushing last {} events that didn't fit into the batch",
+                        logPrefix, index, batchIndex);
+                byte[][] subBatch = Arrays.copyOfRange(batch, 0, batchIndex);
+                push(subBatch);
             }
+
+            // Try to replay the spilled events, even if there were no new events to trigger a push.
+            if (spillQueue != null && !spillQueue.isEmpty()) {
+                replaySpilledEvents(index);
+            }
+
         }
 
-        // Upon graceful shutdown, flush one last time for any leftovers in the buffer.
-        if (started) {
-            LOGGER.debug("{} background task is interrupted abruptly, skipping flushing one last time", logPrefix);
-        } else {
-            LOGGER.debug("{} background task is flushing one last time", logPrefix);
-            try {
-                flush(0);
-            } catch (InterruptedException ignored) {
-                LOGGER.debug("{} last run of the background task is interrupted", logPrefix);
-                interrupted = true;
+        private void add(byte[] event) {
+            // Recorded by the flusher rather than the producers, which would otherwise contend on the bucket of the typical size.
+            jmxBean.recordEventByteCount(event.length);
+            if (isSampledEvent(event)) {
+                sampledEventBatched = true;
+            }
+            batch[batchIndex++] = event;
+            int batchSize = batchController != null ? batchController.getBatchSize() : batch.length;
+            if (batchIndex == batchSize) {
+                push(batchSize == batch.length ? batch : Arrays.copyOfRange(batch, 0, batchSize));
             }
         }
 
-        // Restore the `interrupted` flag, if necessary.
-        if (interrupted) {
-            Thread.currentThread().interrupt();
+        private void push(byte[][] events) {
+            long startNanos = System.nanoTime();
+            boolean pushed = RedisThrottler.this.push(index, events);
+            if (batchController != null) {
+                long latencyNanos = System.nanoTime() - startNanos;
+                batchController.onPush(events.length, latencyNanos, pushed, buffer.size());
+                jmxBean.updateAdaptiveBatchSize(batchController.getBatchSize());
+            }
+            batchIndex = 0;
+            if (sampledEventBatched) {
+                if (pushed) {
+                    jmxBean.recordEventDeliveryLatencyNanos(System.nanoTime() - sampledEventEnqueueNanos);
+                }
+                sampledEventBatched = false;
+                sampledEventRef.set(null);
+            }
         }
 
     }
 
-    private void flush(long waitPeriodNanos) throws InterruptedException {
+    private static boolean isEndOfBatchMarker(byte[] event) {
+        return event.length == 0;
+    }
 
-        // If waiting on the buffer is not allowed, flush events indeed without waiting.
-        if (waitPeriodNanos <= 0) {
-            for (byte[] event; (event = buffer.poll()) != null;) {
-                if (LOGGER.isTraceEnabled()) {
-                    LOGGER.trace("{} background task has polled: {}", logPrefix, new String(event).trim());
-                }
-                batch[batchIndex++] = event;
-                if (batchIndex == batch.length) {
-                    push(batch);
-                    batchIndex = 0;
-                }
-            }
+    private boolean isSampledEvent(byte[] event) {
+        byte[] sampledEvent = sampledEventRef.get();
+        return sampledEvent != null && (bufferPreservingIdentity ? event == sampledEvent : Arrays.equals(event, sampledEvent));
+    }
+
+    /**
+     * @return {@code true}, if the events are pushed to Redis; {@code false}, if they are spilled or dropped
+     */
+    private boolean push(final int flusherIndex, final byte[][] events) {
+
+        // Spilled events need to be replayed first to preserve the order.
+        // If they cannot be, new events need to be spilled behind them, and are accounted as failed, like any spilled event.
+        if (spillQueue != null && !spillQueue.isEmpty() && !replaySpilledEvents(flusherIndex)) {
+            jmxBean.incrementRedisPushFailureCount(events.length);
+            spill(events);
+            return false;
         }
 
-        // Otherwise, wait on the buffer for events to appear.
-        else {
-            while (waitPeriodNanos > 0) {
-                long pollTimeNanos = System.nanoTime();
-                byte[] event = buffer.poll(waitPeriodNanos, TimeUnit.NANOSECONDS);
-                if (event == null) {
-                    break;
+        // Prepare the events once, so that retries don't compress them, or sample them for a dictionary, again.
+        // Preparation failures don't go away by retrying, hence they fail the push right away.
+        RedisAppender.Batch batch;
+        try {
+            batch = appender.createBatch(flusherIndex, events);
+        } catch (Exception thrown) {
+            failPush(events, thrown);
+            return false;
+        }
+
+        // Push the events, retrying in place on failure.
+        // Since the flusher doesn't poll any new events meanwhile, this preserves the order.
+        int eventCount = events.length;
+        for (int attemptIndex = 0; ; attemptIndex++) {
+            try {
+                LOGGER.debug("{} background task is pushing {} events", logPrefix, eventCount);
+                consumeThrottledEvents(flusherIndex, batch);
+                if (!pushPipelined) {
+                    jmxBean.incrementRedisPushSuccessCount(eventCount);
                 }
-                if (LOGGER.isTraceEnabled()) {
-                    LOGGER.trace("{} background task has polled: {}", logPrefix, new String(event).trim());
+                return true;
+            } catch (CallNotPermittedException thrown) {
+                // Retrying would only be rejected again, since the circuit stays open for the entire wait period.
+                LOGGER.debug("{} background task push is rejected by the circuit breaker", logPrefix);
+                jmxBean.incrementCircuitBreakerRejectedEventCount(eventCount);
+                if (spillQueue != null) {
+                    spill(events);
+                } else {
+                    lastThrownRef.set(thrown);
                 }
-                batch[batchIndex++] = event;
-                if (batchIndex == batch.length) {
-                    push(batch);
-                    batchIndex = 0;
+                return false;
+            } catch (Exception thrown) {
+                if (attemptIndex < config.getMaxRetryCount() && backOff(attemptIndex)) {
+                    LOGGER.debug("{} background task push failure, retrying (attemptIndex={})", logPrefix, attemptIndex, thrown);
+                    jmxBean.incrementRedisPushRetryCount(1);
+                    continue;
                 }
-                long pollPeriodNanos = System.nanoTime() - pollTimeNanos;
-                waitPeriodNanos -= pollPeriodNanos;
+                failPush(events, thrown);
+                return false;
             }
         }
 
-        // Flush the last remaining.
-        if (batchIndex > 0) {
-            LOGGER.debug("{} background task is pushing last {} events that didn't fit into the batch", logPrefix, batchIndex);
-            byte[][] subBatch = Arrays.copyOfRange(batch, 0, batchIndex);
-            push(subBatch);
-            batchIndex = 0;
+    }
+
+    /**
+     * Spills or drops the events of a push failed for good.
+     */
+    private void failPush(final byte[][] events, final Exception thrown) {
+        if (LOGGER.isWarnEnabled() && (errorRateLimiter == null || errorRateLimiter.tryAcquire())) {
+            LOGGER.warn("{} background task push failure", logPrefix, thrown);
+        }
+        jmxBean.incrementRedisPushFailureCount(events.length);
+        if (spillQueue != null) {
+            spill(events);
+        } else {
+            lastThrownRef.set(thrown);
         }
+    }
 
+    /**
+     * Waits before the next push attempt, if the retry budget allows.
+     * <p>
+     * The wait period is drawn uniformly from <code>[0, min(maxRetryBackoffMillis, retryBackoffMillis * 2^attemptIndex)]</code>,
+     * that is, exponential backoff with full jitter, to avoid flushers of many applications retrying in lockstep.
+     * </p>
+     *
+     * @return {@code true}, if a retry is allowed; {@code false}, if the retry budget is exhausted or the thread is interrupted
+     */
+    private boolean backOff(int attemptIndex) {
+        if (retryRateLimiter != null && !retryRateLimiter.tryAcquire()) {
+            LOGGER.debug("{} background task retry budget is exhausted", logPrefix);
+            jmxBean.incrementRedisPushRetryRejectionCount(1);
+            return false;
+        }
+        long backoffMillis = Math.min(
+                config.getMaxRetryBackoffMillis(),
+                config.getRetryBackoffMillis() << Math.min(attemptIndex, 20));
+        long jitteredBackoffMillis = ThreadLocalRandom.current().nextLong(backoffMillis + 1);
+        try {
+            Thread.sleep(jitteredBackoffMillis);
+            return true;
+        } catch (InterruptedException ignored) {
+            // Restore the flag, so that the flusher gets interrupted at the next poll.
+            Thread.currentThread().interrupt();
+            return false;
+        }
     }
 
-    private void push(final byte[][] events) {
-        int eventCount = events.length;
+    /**
+     * Accounts a pipelined push, once its replies arrive.
+     * <p>
+     * Failed events are dropped, but not retried, since the later batches in flight have already overtaken them.
+     * </p>
+     *
+     * @param latencyNanos time from writing the events until the arrival of their replies
+     * @param error the failure of the push, if any; <code>null</code>, otherwise
+     */
+    void acknowledgePipelinedPush(final byte[][] events, final long latencyNanos, final Exception error) {
+        jmxBean.recordRedisPushLatencyNanos(latencyNanos);
+        if (error == null) {
+            jmxBean.incrementRedisPushSuccessCount(events.length);
+            return;
+        }
+        if (LOGGER.isWarnEnabled() && (errorRateLimiter == null || errorRateLimiter.tryAcquire())) {
+            LOGGER.warn("{} pipelined push failure", logPrefix, error);
+        }
+        jmxBean.incrementRedisPushFailureCount(events.length);
+        lastThrownRef.set(error);
+    }
+
+    /**
+     * Passes the batch to the appender, recording the batch size and the push latency, regardless of the outcome.
+     * <p>
+     * If there is a circuit breaker, the push is guarded by it, and the state of the circuit is reflected to the JMX bean.
+     * </p>
+     */
+    private void consumeThrottledEvents(final int flusherIndex, final RedisAppender.Batch batch) throws Exception {
+        jmxBean.recordRedisPushBatchSize(batch.getEventCount());
+        long startNanos = System.nanoTime();
         try {
-            LOGGER.debug("{} background task is pushing {} events", logPrefix, eventCount);
-            appender.consumeThrottledEvents(events);
-            jmxBean.incrementRedisPushSuccessCount(eventCount);
-        } catch (Exception thrown) {
-            if (LOGGER.isWarnEnabled()) {
-                LOGGER.warn("{} background task push failure", logPrefix, thrown);
-                thrown.printStackTrace();
+            if (circuitBreaker == null) {
+                appender.consumeThrottledEvents(flusherIndex, batch);
+            } else {
+                circuitBreaker.run(appender::ping, () -> appender.consumeThrottledEvents(flusherIndex, batch));
+            }
+        } catch (CallNotPermittedException error) {
+            jmxBean.incrementCircuitBreakerRejectionCount(1);
+            throw error;
+        } finally {
+            // Pipelined pushes record the latency upon acknowledgement.
+            if (!pushPipelined) {
+                jmxBean.recordRedisPushLatencyNanos(System.nanoTime() - startNanos);
             }
+            if (circuitBreaker != null) {
+                jmxBean.updateCircuitBreakerState(circuitBreaker.getState());
+            }
+        }
+    }
+
+    private void spill(final byte[][] events) {
+        int spilledEventCount;
+        try {
+            spilledEventCount = spillQueue.offer(events, 0, events.length);
+        } catch (Exception thrown) {
+            LOGGER.warn("{} background task spill failure", logPrefix, thrown);
+            jmxBean.incrementSpillFailureCount(events.length);
             lastThrownRef.set(thrown);
-            jmxBean.incrementRedisPushFailureCount(eventCount);
+            return;
+        }
+        LOGGER.debug("{} background task has spilled {} events", logPrefix, spilledEventCount);
+        jmxBean.incrementSpilledEventCount(spilledEventCount);
+        int droppedEventCount = events.length - spilledEventCount;
+        if (droppedEventCount > 0) {
+            jmxBean.incrementSpillFailureCount(droppedEventCount);
+            String message = String.format("spill queue is full, dropped %d events", droppedEventCount);
+            lastThrownRef.set(new RuntimeException(message));
+        }
+    }
+
+    /**
+     * Pushes the spilled events in batches until either the spill queue is drained or a push fails.
+     * <p>
+     * Spill queues are shared by the instances of the same appender, hence replays are exclusive to avoid pushing the same events twice.
+     * </p>
+     * <p>
+     * Replayed events are only counted by the replayed event count, since they are already counted as push failures.
+     * </p>
+     *
+     * @return {@code true}, if all spilled events are pushed; {@code false}, otherwise
+     */
+    private boolean replaySpilledEvents(final int flusherIndex) {
+        synchronized (spillQueue) {
+            for (byte[][] events; (events = spillQueue.peek(config.getBatchSize())).length > 0; ) {
+                try {
+                    LOGGER.debug("{} background task is replaying {} spilled events", logPrefix, events.length);
+                    consumeThrottledEvents(flusherIndex, appender.createBatch(flusherIndex, events));
+                } catch (Exception thrown) {
+                    // Replays are attempted at every flush, hence failures are rate limited to not flood the logs during outages.
+                    if (LOGGER.isWarnEnabled() && (errorRateLimiter == null || errorRateLimiter.tryAcquire())) {
+                        LOGGER.warn("{} background task spilled events replay failure", logPrefix, thrown);
+                    }
+                    return false;
+                }
+                spillQueue.remove(events.length);
+                jmxBean.incrementReplayedEventCount(events.length);
+            }
+            return true;
         }
     }
 
@@ -254,20 +655,67 @@ class RedisThrottler implements AutoCloseable {
         return jmxBean;
     }
 
-    synchronized void push(byte[] event) {
+    /**
+     * Applies sampling and deduplication, if configured, to the event before it is encoded and {@link #push(byte[], Level) pushed}.
+     * <p>
+     * This stage runs ahead of the rate limiters, hence bursts of noise (e.g., the same stack trace logged thousands of
+     * times per second during an incident) don't consume the budget of useful events. It also runs ahead of encoding,
+     * since it needs the logger name and the message, and to avoid encoding events that are going to be dropped anyway.
+     * </p>
+     *
+     * @return the event to be encoded, possibly carrying a repeat count, see {@link RedisEventDeduplicator};
+     * or {@code null}, if the event is dropped
+     */
+    LogEvent admit(LogEvent event) {
+        if (sampler != null && !sampler.sample(event)) {
+            jmxBean.incrementTotalEventCount(1);
+            jmxBean.incrementSampledOutEventCount(1);
+            return null;
+        }
+        if (deduplicator != null) {
+            long fingerprint = RedisEventDeduplicator.fingerprint(event);
+            int repeatCount = deduplicator.deduplicate(fingerprint, System.nanoTime());
+            if (repeatCount < 0) {
+                jmxBean.incrementTotalEventCount(1);
+                jmxBean.incrementDeduplicatedEventCount(1);
+                return null;
+            }
+            if (repeatCount > 0) {
+                return RedisEventDeduplicator.withRepeatCount(event, repeatCount);
+            }
+        }
+        return event;
+    }
+
+    /**
+     * Enqueues the event to be pushed by the flush thread, applying the overflow policy if the buffer is full.
+     * <p>
+     * This method is called concurrently by logging threads, yet doesn't need any mutual exclusion:
+     * JMX bean counters, rate limiters, and the buffer are thread-safe on their own.
+     * The earlier failure is consumed atomically, and only after a cheap read, to avoid a contended write per call.
+     * </p>
+     */
+    void push(byte[] event, Level level) {
 
         if (!started) {
             LOGGER.debug("{} not started yet, ignoring the push request", logPrefix);
             return;
         }
 
+        if (event.length == 0) {
+            LOGGER.debug("{} ignoring empty event", logPrefix);
+            return;
+        }
+
         jmxBean.incrementTotalEventCount(1);
 
-        Throwable lastThrown = lastThrownRef.getAndSet(null);
-        if (lastThrown != null) {
-            jmxBean.incrementIgnoredEventCount(1);
-            tryThrow("failed pushing due to an earlier throttler failure", lastThrown);
-            return;
+        if (lastThrownRef.get() != null) {
+            Throwable lastThrown = lastThrownRef.getAndSet(null);
+            if (lastThrown != null) {
+                jmxBean.incrementIgnoredEventCount(1);
+                tryThrow("failed pushing due to an earlier throttler failure", lastThrown);
+                return;
+            }
         }
 
         if (eventRateLimiter != null && !eventRateLimiter.tryAcquire()) {
@@ -282,13 +730,158 @@ class RedisThrottler implements AutoCloseable {
             return;
         }
 
-        if (!buffer.offer(event)) {
+        boolean sampled = sampledEventRef.get() == null && sampledEventRef.compareAndSet(null, event);
+        if (sampled) {
+            sampledEventEnqueueNanos = System.nanoTime();
+        }
+
+        if (stagingArea != null) {
+            stagingArea.add(event);
+            return;
+        }
+
+        if (!offer(event, level)) {
+            if (sampled) {
+                sampledEventRef.set(null);
+            }
             jmxBean.incrementUnavailableBufferSpaceFailureCount(1);
             tryThrow("failed enqueueing");
         }
 
     }
 
+    /**
+     * Accounts for an event that couldn't be handed over for encoding, see {@link RedisEventEncoderPool}.
+     */
+    void rejectUnencodedEvent() {
+        jmxBean.incrementTotalEventCount(1);
+        jmxBean.incrementUnavailableBufferSpaceFailureCount(1);
+        tryThrow("failed enqueueing for encoding");
+    }
+
+    /**
+     * Accounts for an event the layout failed to encode, either on the logging thread or on an encoder thread.
+     * <p>
+     * The failure is not thrown right away, since encoder threads have no caller to throw to.
+     * Instead, it is thrown by the next {@link #throwEncodingFailure()}, unless exceptions are ignored.
+     * </p>
+     */
+    void failEncoding(Throwable error) {
+        jmxBean.incrementTotalEventCount(1);
+        jmxBean.incrementEventEncodingFailureCount(1);
+        // A layout failing on every event would otherwise flood the logs.
+        if (errorRateLimiter == null || errorRateLimiter.tryAcquire()) {
+            LOGGER.error("{} event encoding failure", logPrefix, error);
+        }
+        if (!ignoreExceptions) {
+            encodingErrorRef.set(error);
+        }
+    }
+
+    /**
+     * Throws the last encoding failure, if there is any, see {@link #failEncoding(Throwable)}.
+     */
+    void throwEncodingFailure() {
+        if (encodingErrorRef.get() != null) {
+            Throwable error = encodingErrorRef.getAndSet(null);
+            if (error != null) {
+                throw new RuntimeException("event encoding failure", error);
+            }
+        }
+    }
+
+    /**
+     * Signals the end of a batch of events from the producer, e.g., the last event of a drain of async loggers, see
+     * {@link LogEvent#isEndOfBatch()}. This gets the partial batch pushed right away,
+     * rather than waiting for the flush period.
+     * <p>
+     * Flushers only wait on the buffer, hence they are woken up by {@link #END_OF_BATCH_MARKER markers} offered to it,
+     * one per flusher. Markers are best-effort: they are skipped if the buffer is about to fill up, in which case
+     * batches fill up and get pushed anyway.
+     * </p>
+     */
+    void endBatch() {
+        if (!started || !config.isEndOfBatchFlushEnabled()) {
+            return;
+        }
+        if (stagingArea != null) {
+            stagingArea.publishCurrentThread();
+        }
+        for (int flusherIndex = 0; flusherIndex < flushers.length && buffer.size() < unreservedBufferSize; flusherIndex++) {
+            if (!buffer.offer(END_OF_BATCH_MARKER)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Accounts for a staged event that didn't fit into the buffer while publishing its chunk, see {@link RedisThrottlerStagingArea}.
+     * <p>
+     * This might be called by a flusher publishing a stale chunk, hence the failure is only logged rather than thrown.
+     * </p>
+     */
+    /**
+     * Accounts for the events dropped by the appender, since they don't carry a key, see {@link RedisKeyRouter#groupByKey(byte[][])}.
+     * <p>
+     * This can happen for every batch, e.g., while replaying events spilled before a key pattern was configured,
+     * hence the warning is rate limited.
+     * </p>
+     */
+    void dropUnroutableEvents(int eventCount) {
+        jmxBean.incrementUnroutableEventCount(eventCount);
+        if (LOGGER.isWarnEnabled() && (errorRateLimiter == null || errorRateLimiter.tryAcquire())) {
+            LOGGER.warn("{} dropping {} events without a key", logPrefix, eventCount);
+        }
+    }
+
+    private void dropStagedEvent(byte[] event) {
+        if (isSampledEvent(event)) {
+            sampledEventRef.set(null);
+        }
+        jmxBean.incrementUnavailableBufferSpaceFailureCount(1);
+        if (errorRateLimiter == null || errorRateLimiter.tryAcquire()) {
+            LOGGER.error("{} failed enqueueing staged event", logPrefix);
+        }
+    }
+
+    private boolean offer(byte[] event, Level level) {
+        switch (overflowPolicy) {
+
+            case RedisThrottlerConfig.DROP_OLDEST_OVERFLOW_POLICY:
+                while (!buffer.offer(event)) {
+                    byte[] evictedEvent = buffer.poll();
+                    // If there is nothing left to evict, the event is larger than the buffer byte budget.
+                    if (evictedEvent == null) {
+                        return false;
+                    }
+                    if (isEndOfBatchMarker(evictedEvent)) {
+                        continue;
+                    }
+                    if (isSampledEvent(evictedEvent)) {
+                        sampledEventRef.set(null);
+                    }
+                    jmxBean.incrementEvictedEventCount(1);
+                }
+                return true;
+
+            case RedisThrottlerConfig.BLOCK_OVERFLOW_POLICY:
+                try {
+                    return buffer.offer(event, overflowTimeoutNanos, TimeUnit.NANOSECONDS);
+                } catch (InterruptedException ignored) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+
+            case RedisThrottlerConfig.PRIORITY_OVERFLOW_POLICY:
+                boolean prioritized = level.isMoreSpecificThan(config.getOverflowPriorityLevel());
+                return (prioritized || buffer.size() < unreservedBufferSize) && buffer.offer(event);
+
+            default:
+                return buffer.offer(event);
+
+        }
+    }
+
     @SuppressWarnings("SameParameterValue")
     private void tryThrow(String message, Throwable error) {
         if (errorRateLimiter == null || errorRateLimiter.tryAcquire()) {
@@ -311,7 +904,13 @@ class RedisThrottler implements AutoCloseable {
             LOGGER.info("{} starting", logPrefix);
             started = true;
             jmxBean = registerOrGetJmxBean();
-            flushTrigger.start();
+            RedisSpillQueueConfig spillQueueConfig = config.getSpillQueueConfig();
+            if (spillQueueConfig != null) {
+                spillQueue = RedisSpillQueue.acquire(appender.getName(), spillQueueConfig);
+            }
+            for (Flusher flusher : flushers) {
+                flusher.thread.start();
+            }
         }
     }
 
@@ -352,13 +951,24 @@ class RedisThrottler implements AutoCloseable {
         if (started) {
             LOGGER.info("{} closing", logPrefix);
             started = false;
-            flushTrigger.interrupt();
+            for (Flusher flusher : flushers) {
+                flusher.thread.interrupt();
+            }
             try {
-                flushTrigger.join();
+                for (Flusher flusher : flushers) {
+                    flusher.thread.join();
+                }
             } catch (InterruptedException ignored) {
                 LOGGER.debug("{} stop interrupted", logPrefix);
                 Thread.currentThread().interrupt();
             }
+            appender.closePipelines();
+            if (stagingArea != null) {
+                stagingArea.close();
+            }
+            if (spillQueue != null) {
+                spillQueue.close();
+            }
             unregisterJmxBean();
         }
     }
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adapts the batch size and the flush period of a {@link RedisThrottler} flusher to the observed Redis latency and load.
+ * <p>
+ * The batch size follows an AIMD (additive-increase, multiplicative-decrease) scheme, in the spirit of TCP congestion control:
+ * </p>
+ * <ul>
+ * <li>If a push fails or takes longer than {@link RedisThrottlerConfig#getTargetPushLatencyMillis()}, the batch size is halved.</li>
+ * <li>Otherwise, if the batch was full and there are still events waiting in the buffer, the batch size is increased by
+ * {@link RedisThrottlerConfig#getMinBatchSize()}.</li>
+ * </ul>
+ * <p>
+ * The batch size stays between {@link RedisThrottlerConfig#getMinBatchSize()} and {@link RedisThrottlerConfig#getBatchSize()}.
+ * The flush period is shortened in proportion to the buffer occupancy, so that partial batches don't linger while the buffer fills up.
+ * </p>
+ * <p>
+ * Instances are confined to a single flusher thread, hence not thread-safe.
+ * </p>
+ */
+final class RedisThrottlerBatchController {
+
+    private static final long MIN_FLUSH_PERIOD_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final int bufferSize;
+
+    private final int minBatchSize;
+
+    private final int maxBatchSize;
+
+    private final long maxFlushPeriodNanos;
+
+    private final long targetPushLatencyNanos;
+
+    private int batchSize;
+
+    private long flushPeriodNanos;
+
+    RedisThrottlerBatchController(RedisThrottlerConfig config) {
+        this.bufferSize = config.getBufferSize();
+        this.minBatchSize = config.getMinBatchSize();
+        this.maxBatchSize = config.getBatchSize();
+        this.maxFlushPeriodNanos = TimeUnit.MILLISECONDS.toNanos(config.getFlushPeriodMillis());
+        this.targetPushLatencyNanos = TimeUnit.MILLISECONDS.toNanos(config.getTargetPushLatencyMillis());
+        this.batchSize = minBatchSize;
+        this.flushPeriodNanos = maxFlushPeriodNanos;
+    }
+
+    int getBatchSize() {
+        return batchSize;
+    }
+
+    long getFlushPeriodNanos() {
+        return flushPeriodNanos;
+    }
+
+    /**
+     * Adapts the batch size and the flush period to the outcome of a push.
+     *
+     * @param eventCount number of pushed events
+     * @param latencyNanos time the push took
+     * @param succeeded indicates if the push succeeded
+     * @param bufferedEventCount number of events in the buffer after the push
+     */
+    void onPush(int eventCount, long latencyNanos, boolean succeeded, int bufferedEventCount) {
+        if (!succeeded || latencyNanos > targetPushLatencyNanos) {
+            batchSize = Math.max(minBatchSize, batchSize / 2);
+        } else if (eventCount >= batchSize && bufferedEventCount > 0) {
+            batchSize = Math.min(maxBatchSize, batchSize + minBatchSize);
+        }
+        onFlush(bufferedEventCount);
+    }
+
+    /**
+     * Adapts the flush period to the buffer occupancy.
+     *
+     * @param bufferedEventCount number of events in the buffer
+     */
+    void onFlush(int bufferedEventCount) {
+        double occupancy = Math.min(1, (double) bufferedEventCount / bufferSize);
+        flushPeriodNanos = Math.max(MIN_FLUSH_PERIOD_NANOS, (long) (maxFlushPeriodNanos * (1 - occupancy)));
+    }
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RedisThrottlerBuffer} backed by an {@link ArrayBlockingQueue}.
+ */
+final class RedisThrottlerBlockingBuffer implements RedisThrottlerBuffer {
+
+    private final BlockingQueue<byte[]> queue;
+
+    RedisThrottlerBlockingBuffer(int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    @Override
+    public boolean offer(byte[] event) {
+        return queue.offer(event);
+    }
+
+    @Override
+    public boolean offer(byte[] event, long timeout, TimeUnit timeUnit) throws InterruptedException {
+        return queue.offer(event, timeout, timeUnit);
+    }
+
+    @Override
+    public byte[] poll() {
+        return queue.poll();
+    }
+
+    @Override
+    public byte[] poll(long timeout, TimeUnit timeUnit) throws InterruptedException {
+        return queue.poll(timeout, timeUnit);
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded buffer of encoded events shared between the logging threads (producers) and the {@link RedisThrottler} flush thread (consumer).
+ */
+interface RedisThrottlerBuffer {
+
+    /**
+     * Enqueues the event, if there is available space.
+     *
+     * @return {@code true}, if the event is enqueued; {@code false}, otherwise
+     */
+    boolean offer(byte[] event);
+
+    /**
+     * Enqueues the event, waiting up to the given period for space to become available.
+     *
+     * @return {@code true}, if the event is enqueued; {@code false}, if the period has elapsed
+     */
+    boolean offer(byte[] event, long timeout, TimeUnit timeUnit) throws InterruptedException;
+
+    /**
+     * Enqueues the leading events that there is available space for, in order.
+     * <p>
+     * Implementations are expected to claim the space for all events at once, e.g., with a single CAS or lock acquisition.
+     * The default implementation offers the events one by one.
+     * </p>
+     *
+     * @return the number of enqueued events
+     */
+    default int offer(byte[][] events, int offset, int length) {
+        for (int index = 0; index < length; index++) {
+            if (!offer(events[offset + index])) {
+                return index;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Dequeues an event without waiting.
+     *
+     * @return the dequeued event, or {@code null}, if the buffer is empty
+     */
+    byte[] poll();
+
+    /**
+     * Dequeues an event, waiting up to the given period for one to appear.
+     *
+     * @return the dequeued event, or {@code null}, if the period has elapsed
+     */
+    byte[] poll(long timeout, TimeUnit timeUnit) throws InterruptedException;
+
+    /**
+     * @return the number of enqueued events, which is only an estimate while there are concurrent producers or consumers
+     */
+    int size();
+
+    /**
+     * Creates a buffer of the given type, bounded by the given number of events and, if positive, bytes.
+     */
+    static RedisThrottlerBuffer ofType(String bufferType, int bufferSize, long maxBufferByteCount) {
+        RedisThrottlerBuffer buffer;
+        if (RedisThrottlerConfig.BLOCKING_BUFFER_TYPE.equals(bufferType)) {
+            buffer = new RedisThrottlerBlockingBuffer(bufferSize);
+        } else if (RedisThrottlerConfig.LOCK_FREE_BUFFER_TYPE.equals(bufferType)) {
+            buffer = new RedisThrottlerRingBuffer(bufferSize);
+        } else if (RedisThrottlerConfig.DISRUPTOR_BUFFER_TYPE.equals(bufferType)) {
+            buffer = new RedisThrottlerDisruptorBuffer(bufferSize);
+        } else if (RedisThrottlerConfig.OFF_HEAP_BUFFER_TYPE.equals(bufferType)) {
+            // The arena bounds the bytes on its own.
+            return new RedisThrottlerOffHeapBuffer(bufferSize, Math.toIntExact(maxBufferByteCount));
+        } else {
+            String message = String.format("unknown buffer type: `%s`", bufferType);
+            throw new IllegalArgumentException(message);
+        }
+        return maxBufferByteCount > 0
+                ? new RedisThrottlerByteBoundedBuffer(buffer, maxBufferByteCount)
+                : buffer;
+    }
+
+}
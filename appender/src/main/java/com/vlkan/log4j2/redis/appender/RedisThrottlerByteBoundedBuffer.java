@@ -0,0 +1,193 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link RedisThrottlerBuffer} decorator bounding the total size of the enqueued events.
+ * <p>
+ * Producers reserve the size of an event with a CAS before enqueueing it, and consumers release it after dequeueing.
+ * Hence, events larger than the available budget get rejected, just like events not fitting into a full buffer.
+ * Producers waiting for budget block on a lock, which consumers only touch if there is a producer waiting.
+ * </p>
+ */
+final class RedisThrottlerByteBoundedBuffer implements RedisThrottlerBuffer {
+
+    private final RedisThrottlerBuffer buffer;
+
+    private final long maxByteCount;
+
+    private final AtomicLong byteCount = new AtomicLong(0);
+
+    private final AtomicInteger waitingProducerCount = new AtomicInteger(0);
+
+    private final ReentrantLock waitLock = new ReentrantLock();
+
+    private final Condition budgetReleased = waitLock.newCondition();
+
+    RedisThrottlerByteBoundedBuffer(RedisThrottlerBuffer buffer, long maxByteCount) {
+        Helpers.requireArgument(maxByteCount > 0, "expecting: maxByteCount > 0, found: %d", maxByteCount);
+        this.buffer = buffer;
+        this.maxByteCount = maxByteCount;
+    }
+
+    @Override
+    public boolean offer(byte[] event) {
+        if (!tryReserve(event.length)) {
+            return false;
+        }
+        if (buffer.offer(event)) {
+            return true;
+        }
+        release(event.length);
+        return false;
+    }
+
+    /**
+     * Reserves the size of as many of the events as the budget allows with a single CAS, and offers them to the decorated buffer.
+     */
+    @Override
+    public int offer(byte[][] events, int offset, int length) {
+        int reservedCount;
+        for (;;) {
+            long currentByteCount = byteCount.get();
+            long reservedByteCount = 0;
+            reservedCount = 0;
+            while (reservedCount < length) {
+                int eventByteCount = events[offset + reservedCount].length;
+                if (currentByteCount + reservedByteCount + eventByteCount > maxByteCount) {
+                    break;
+                }
+                reservedByteCount += eventByteCount;
+                reservedCount++;
+            }
+            if (reservedCount == 0) {
+                return 0;
+            }
+            if (byteCount.compareAndSet(currentByteCount, currentByteCount + reservedByteCount)) {
+                break;
+            }
+        }
+        int offeredCount = buffer.offer(events, offset, reservedCount);
+        long unusedByteCount = 0;
+        for (int index = offeredCount; index < reservedCount; index++) {
+            unusedByteCount += events[offset + index].length;
+        }
+        if (unusedByteCount > 0) {
+            release(unusedByteCount);
+        }
+        return offeredCount;
+    }
+
+    @Override
+    public boolean offer(byte[] event, long timeout, TimeUnit timeUnit) throws InterruptedException {
+        long deadlineNanos = System.nanoTime() + timeUnit.toNanos(timeout);
+        if (!tryReserve(event.length) && !awaitReservation(event.length, deadlineNanos)) {
+            return false;
+        }
+        boolean offered = false;
+        try {
+            offered = buffer.offer(event, deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+            return offered;
+        } finally {
+            if (!offered) {
+                release(event.length);
+            }
+        }
+    }
+
+    private boolean awaitReservation(int eventByteCount, long deadlineNanos) throws InterruptedException {
+        if (eventByteCount > maxByteCount) {
+            return false;
+        }
+        waitLock.lockInterruptibly();
+        try {
+            waitingProducerCount.incrementAndGet();
+            try {
+                // Consumers signal only after releasing budget, and only while holding the lock.
+                // Hence, reserving before every await guarantees no signal gets lost.
+                boolean reserved;
+                long remainingNanos;
+                while (!(reserved = tryReserve(eventByteCount)) && (remainingNanos = deadlineNanos - System.nanoTime()) > 0) {
+                    budgetReleased.awaitNanos(remainingNanos);
+                }
+                return reserved;
+            } finally {
+                waitingProducerCount.decrementAndGet();
+            }
+        } finally {
+            waitLock.unlock();
+        }
+    }
+
+    private boolean tryReserve(int eventByteCount) {
+        for (;;) {
+            long currentByteCount = byteCount.get();
+            long nextByteCount = currentByteCount + eventByteCount;
+            if (nextByteCount > maxByteCount) {
+                return false;
+            }
+            if (byteCount.compareAndSet(currentByteCount, nextByteCount)) {
+                return true;
+            }
+        }
+    }
+
+    private void release(long eventByteCount) {
+        byteCount.addAndGet(-eventByteCount);
+        if (waitingProducerCount.get() > 0) {
+            waitLock.lock();
+            try {
+                budgetReleased.signalAll();
+            } finally {
+                waitLock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public byte[] poll() {
+        byte[] event = buffer.poll();
+        if (event != null) {
+            release(event.length);
+        }
+        return event;
+    }
+
+    @Override
+    public byte[] poll(long timeout, TimeUnit timeUnit) throws InterruptedException {
+        byte[] event = buffer.poll(timeout, timeUnit);
+        if (event != null) {
+            release(event.length);
+        }
+        return event;
+    }
+
+    @Override
+    public int size() {
+        return buffer.size();
+    }
+
+    long getByteCount() {
+        return byteCount.get();
+    }
+
+}
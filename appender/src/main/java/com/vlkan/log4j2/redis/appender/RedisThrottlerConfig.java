@@ -15,12 +15,19 @@
  */
 package com.vlkan.log4j2.redis.appender;
 
+import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.core.config.Node;
 import org.apache.logging.log4j.core.config.plugins.Plugin;
 import org.apache.logging.log4j.core.config.plugins.PluginBuilderAttribute;
 import org.apache.logging.log4j.core.config.plugins.PluginBuilderFactory;
+import org.apache.logging.log4j.core.config.plugins.PluginElement;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.vlkan.log4j2.redis.appender.Helpers.requireArgument;
+import static java.util.Objects.requireNonNull;
 import static org.apache.logging.log4j.util.Strings.isBlank;
 
 @Plugin(name = "RedisThrottlerConfig",
@@ -28,34 +35,136 @@ import static org.apache.logging.log4j.util.Strings.isBlank;
         printObject = true)
 public class RedisThrottlerConfig {
 
+    static final String BLOCKING_BUFFER_TYPE = "blocking";
+
+    static final String LOCK_FREE_BUFFER_TYPE = "lockFree";
+
+    static final String OFF_HEAP_BUFFER_TYPE = "offHeap";
+
+    static final String DISRUPTOR_BUFFER_TYPE = "disruptor";
+
+    private static final Set<String> ALLOWED_BUFFER_TYPES =
+            Stream.of(BLOCKING_BUFFER_TYPE, LOCK_FREE_BUFFER_TYPE, OFF_HEAP_BUFFER_TYPE, DISRUPTOR_BUFFER_TYPE)
+                    .collect(Collectors.toSet());
+
+    static final String DROP_NEWEST_OVERFLOW_POLICY = "dropNewest";
+
+    static final String DROP_OLDEST_OVERFLOW_POLICY = "dropOldest";
+
+    static final String BLOCK_OVERFLOW_POLICY = "block";
+
+    static final String PRIORITY_OVERFLOW_POLICY = "priority";
+
+    private static final Set<String> ALLOWED_OVERFLOW_POLICIES =
+            Stream.of(
+                            DROP_NEWEST_OVERFLOW_POLICY,
+                            DROP_OLDEST_OVERFLOW_POLICY,
+                            BLOCK_OVERFLOW_POLICY,
+                            PRIORITY_OVERFLOW_POLICY)
+                    .collect(Collectors.toSet());
+
     private final int bufferSize;
 
+    private final String bufferType;
+
+    private final long maxBufferByteCount;
+
     private final int batchSize;
 
     private final long flushPeriodMillis;
 
+    private final boolean adaptiveBatchingEnabled;
+
+    private final int minBatchSize;
+
+    private final long targetPushLatencyMillis;
+
+    private final int flushThreadCount;
+
+    private final boolean orderedFlushEnabled;
+
+    private final boolean endOfBatchFlushEnabled;
+
+    private final int stagingChunkSize;
+
+    private final long stagingPeriodMillis;
+
+    private final String overflowPolicy;
+
+    private final long overflowTimeoutMillis;
+
+    private final Level overflowPriorityLevel;
+
+    private final int overflowReservedBufferSize;
+
     private final double maxEventCountPerSecond;
 
     private final double maxByteCountPerSecond;
 
     private final double maxErrorCountPerSecond;
 
+    private final int maxRetryCount;
+
+    private final long retryBackoffMillis;
+
+    private final long maxRetryBackoffMillis;
+
+    private final double maxRetryCountPerSecond;
+
     private final String jmxBeanName;
 
+    private final RedisSpillQueueConfig spillQueueConfig;
+
+    private final RedisCircuitBreakerConfig circuitBreakerConfig;
+
+    private final RedisSamplingConfig samplingConfig;
+
+    private final RedisDeduplicationConfig deduplicationConfig;
+
     private RedisThrottlerConfig(Builder builder) {
         this.bufferSize = builder.bufferSize;
+        this.bufferType = builder.bufferType;
+        this.maxBufferByteCount = builder.maxBufferByteCount;
         this.batchSize = builder.batchSize;
         this.flushPeriodMillis = builder.flushPeriodMillis;
+        this.adaptiveBatchingEnabled = builder.adaptiveBatchingEnabled;
+        this.minBatchSize = builder.minBatchSize;
+        this.targetPushLatencyMillis = builder.targetPushLatencyMillis;
+        this.flushThreadCount = builder.flushThreadCount;
+        this.orderedFlushEnabled = builder.orderedFlushEnabled;
+        this.endOfBatchFlushEnabled = builder.endOfBatchFlushEnabled;
+        this.stagingChunkSize = builder.stagingChunkSize;
+        this.stagingPeriodMillis = builder.stagingPeriodMillis;
+        this.overflowPolicy = builder.overflowPolicy;
+        this.overflowTimeoutMillis = builder.overflowTimeoutMillis;
+        this.overflowPriorityLevel = builder.overflowPriorityLevel;
+        this.overflowReservedBufferSize = builder.overflowReservedBufferSize;
         this.maxEventCountPerSecond = builder.maxEventCountPerSecond;
         this.maxByteCountPerSecond = builder.maxByteCountPerSecond;
         this.maxErrorCountPerSecond = builder.maxErrorCountPerSecond;
+        this.maxRetryCount = builder.maxRetryCount;
+        this.retryBackoffMillis = builder.retryBackoffMillis;
+        this.maxRetryBackoffMillis = builder.maxRetryBackoffMillis;
+        this.maxRetryCountPerSecond = builder.maxRetryCountPerSecond;
         this.jmxBeanName = isBlank(builder.jmxBeanName) ? null : builder.jmxBeanName;
+        this.spillQueueConfig = builder.spillQueueConfig;
+        this.circuitBreakerConfig = builder.circuitBreakerConfig;
+        this.samplingConfig = builder.samplingConfig;
+        this.deduplicationConfig = builder.deduplicationConfig;
     }
 
     public int getBufferSize() {
         return bufferSize;
     }
 
+    public String getBufferType() {
+        return bufferType;
+    }
+
+    public long getMaxBufferByteCount() {
+        return maxBufferByteCount;
+    }
+
     public int getBatchSize() {
         return batchSize;
     }
@@ -64,6 +173,54 @@ public class RedisThrottlerConfig {
         return flushPeriodMillis;
     }
 
+    public boolean isAdaptiveBatchingEnabled() {
+        return adaptiveBatchingEnabled;
+    }
+
+    public int getMinBatchSize() {
+        return minBatchSize;
+    }
+
+    public long getTargetPushLatencyMillis() {
+        return targetPushLatencyMillis;
+    }
+
+    public int getFlushThreadCount() {
+        return flushThreadCount;
+    }
+
+    public boolean isOrderedFlushEnabled() {
+        return orderedFlushEnabled;
+    }
+
+    public boolean isEndOfBatchFlushEnabled() {
+        return endOfBatchFlushEnabled;
+    }
+
+    public int getStagingChunkSize() {
+        return stagingChunkSize;
+    }
+
+    public long getStagingPeriodMillis() {
+        return stagingPeriodMillis;
+    }
+
+    public String getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public long getOverflowTimeoutMillis() {
+        return overflowTimeoutMillis;
+    }
+
+    public Level getOverflowPriorityLevel() {
+        return overflowPriorityLevel;
+    }
+
+    public int getOverflowReservedBufferSize() {
+        return overflowReservedBufferSize;
+    }
+
     public double getMaxEventCountPerSecond() {
         return maxEventCountPerSecond;
     }
@@ -76,19 +233,73 @@ public class RedisThrottlerConfig {
         return maxErrorCountPerSecond;
     }
 
+    public int getMaxRetryCount() {
+        return maxRetryCount;
+    }
+
+    public long getRetryBackoffMillis() {
+        return retryBackoffMillis;
+    }
+
+    public long getMaxRetryBackoffMillis() {
+        return maxRetryBackoffMillis;
+    }
+
+    public double getMaxRetryCountPerSecond() {
+        return maxRetryCountPerSecond;
+    }
+
     public String getJmxBeanName() {
         return jmxBeanName;
     }
 
+    public RedisSpillQueueConfig getSpillQueueConfig() {
+        return spillQueueConfig;
+    }
+
+    public RedisCircuitBreakerConfig getCircuitBreakerConfig() {
+        return circuitBreakerConfig;
+    }
+
+    public RedisSamplingConfig getSamplingConfig() {
+        return samplingConfig;
+    }
+
+    public RedisDeduplicationConfig getDeduplicationConfig() {
+        return deduplicationConfig;
+    }
+
     @Override
     public String toString() {
         return "RedisThrottlerConfig{bufferSize=" + bufferSize +
+                ", bufferType=" + bufferType +
+                ", maxBufferByteCount=" + maxBufferByteCount +
                 ", batchSize=" + batchSize +
                 ", flushPeriodMillis=" + flushPeriodMillis +
+                ", adaptiveBatchingEnabled=" + adaptiveBatchingEnabled +
+                ", minBatchSize=" + minBatchSize +
+                ", targetPushLatencyMillis=" + targetPushLatencyMillis +
+                ", flushThreadCount=" + flushThreadCount +
+                ", orderedFlushEnabled=" + orderedFlushEnabled +
+                ", endOfBatchFlushEnabled=" + endOfBatchFlushEnabled +
+                ", stagingChunkSize=" + stagingChunkSize +
+                ", stagingPeriodMillis=" + stagingPeriodMillis +
+                ", overflowPolicy=" + overflowPolicy +
+                ", overflowTimeoutMillis=" + overflowTimeoutMillis +
+                ", overflowPriorityLevel=" + overflowPriorityLevel +
+                ", overflowReservedBufferSize=" + overflowReservedBufferSize +
                 ", maxEventCountPerSecond=" + maxEventCountPerSecond +
                 ", maxByteCountPerSecond=" + maxByteCountPerSecond +
                 ", maxErrorCountPerSecond=" + maxErrorCountPerSecond +
+                ", maxRetryCount=" + maxRetryCount +
+                ", retryBackoffMillis=" + retryBackoffMillis +
+                ", maxRetryBackoffMillis=" + maxRetryBackoffMillis +
+                ", maxRetryCountPerSecond=" + maxRetryCountPerSecond +
                 ", jmxBeanName=" + jmxBeanName +
+                ", spillQueueConfig=" + spillQueueConfig +
+                ", circuitBreakerConfig=" + circuitBreakerConfig +
+                ", samplingConfig=" + samplingConfig +
+                ", deduplicationConfig=" + deduplicationConfig +
                 '}';
     }
 
@@ -102,12 +313,54 @@ public class RedisThrottlerConfig {
         @PluginBuilderAttribute
         private int bufferSize = 500;
 
+        @PluginBuilderAttribute
+        private String bufferType = BLOCKING_BUFFER_TYPE;
+
+        @PluginBuilderAttribute
+        private long maxBufferByteCount = 0;
+
         @PluginBuilderAttribute
         private int batchSize = 100;
 
         @PluginBuilderAttribute
         private long flushPeriodMillis = 1000;
 
+        @PluginBuilderAttribute
+        private boolean adaptiveBatchingEnabled = false;
+
+        @PluginBuilderAttribute
+        private int minBatchSize = 1;
+
+        @PluginBuilderAttribute
+        private long targetPushLatencyMillis = 10;
+
+        @PluginBuilderAttribute
+        private int flushThreadCount = 1;
+
+        @PluginBuilderAttribute
+        private boolean orderedFlushEnabled = false;
+
+        @PluginBuilderAttribute
+        private boolean endOfBatchFlushEnabled = true;
+
+        @PluginBuilderAttribute
+        private int stagingChunkSize = 0;
+
+        @PluginBuilderAttribute
+        private long stagingPeriodMillis = 10;
+
+        @PluginBuilderAttribute
+        private String overflowPolicy = DROP_NEWEST_OVERFLOW_POLICY;
+
+        @PluginBuilderAttribute
+        private long overflowTimeoutMillis = 1000;
+
+        @PluginBuilderAttribute
+        private Level overflowPriorityLevel = Level.WARN;
+
+        @PluginBuilderAttribute
+        private int overflowReservedBufferSize = 0;
+
         @PluginBuilderAttribute
         private double maxEventCountPerSecond = 0;
 
@@ -117,9 +370,33 @@ public class RedisThrottlerConfig {
         @PluginBuilderAttribute
         private double maxErrorCountPerSecond = 0;
 
+        @PluginBuilderAttribute
+        private int maxRetryCount = 0;
+
+        @PluginBuilderAttribute
+        private long retryBackoffMillis = 10;
+
+        @PluginBuilderAttribute
+        private long maxRetryBackoffMillis = 1000;
+
+        @PluginBuilderAttribute
+        private double maxRetryCountPerSecond = 0;
+
         @PluginBuilderAttribute
         private String jmxBeanName = null;
 
+        @PluginElement("RedisSpillQueueConfig")
+        private RedisSpillQueueConfig spillQueueConfig = null;
+
+        @PluginElement("RedisCircuitBreakerConfig")
+        private RedisCircuitBreakerConfig circuitBreakerConfig = null;
+
+        @PluginElement("RedisSamplingConfig")
+        private RedisSamplingConfig samplingConfig = null;
+
+        @PluginElement("RedisDeduplicationConfig")
+        private RedisDeduplicationConfig deduplicationConfig = null;
+
         private Builder() {
             // Do nothing.
         }
@@ -133,6 +410,24 @@ public class RedisThrottlerConfig {
             return this;
         }
 
+        public String getBufferType() {
+            return bufferType;
+        }
+
+        public Builder setBufferType(String bufferType) {
+            this.bufferType = bufferType;
+            return this;
+        }
+
+        public long getMaxBufferByteCount() {
+            return maxBufferByteCount;
+        }
+
+        public Builder setMaxBufferByteCount(long maxBufferByteCount) {
+            this.maxBufferByteCount = maxBufferByteCount;
+            return this;
+        }
+
         public int getBatchSize() {
             return batchSize;
         }
@@ -151,6 +446,114 @@ public class RedisThrottlerConfig {
             return this;
         }
 
+        public boolean isAdaptiveBatchingEnabled() {
+            return adaptiveBatchingEnabled;
+        }
+
+        public Builder setAdaptiveBatchingEnabled(boolean adaptiveBatchingEnabled) {
+            this.adaptiveBatchingEnabled = adaptiveBatchingEnabled;
+            return this;
+        }
+
+        public int getMinBatchSize() {
+            return minBatchSize;
+        }
+
+        public Builder setMinBatchSize(int minBatchSize) {
+            this.minBatchSize = minBatchSize;
+            return this;
+        }
+
+        public long getTargetPushLatencyMillis() {
+            return targetPushLatencyMillis;
+        }
+
+        public Builder setTargetPushLatencyMillis(long targetPushLatencyMillis) {
+            this.targetPushLatencyMillis = targetPushLatencyMillis;
+            return this;
+        }
+
+        public int getFlushThreadCount() {
+            return flushThreadCount;
+        }
+
+        public Builder setFlushThreadCount(int flushThreadCount) {
+            this.flushThreadCount = flushThreadCount;
+            return this;
+        }
+
+        public boolean isOrderedFlushEnabled() {
+            return orderedFlushEnabled;
+        }
+
+        public Builder setOrderedFlushEnabled(boolean orderedFlushEnabled) {
+            this.orderedFlushEnabled = orderedFlushEnabled;
+            return this;
+        }
+
+        public boolean isEndOfBatchFlushEnabled() {
+            return endOfBatchFlushEnabled;
+        }
+
+        public Builder setEndOfBatchFlushEnabled(boolean endOfBatchFlushEnabled) {
+            this.endOfBatchFlushEnabled = endOfBatchFlushEnabled;
+            return this;
+        }
+
+        public int getStagingChunkSize() {
+            return stagingChunkSize;
+        }
+
+        public Builder setStagingChunkSize(int stagingChunkSize) {
+            this.stagingChunkSize = stagingChunkSize;
+            return this;
+        }
+
+        public long getStagingPeriodMillis() {
+            return stagingPeriodMillis;
+        }
+
+        public Builder setStagingPeriodMillis(long stagingPeriodMillis) {
+            this.stagingPeriodMillis = stagingPeriodMillis;
+            return this;
+        }
+
+        public String getOverflowPolicy() {
+            return overflowPolicy;
+        }
+
+        public Builder setOverflowPolicy(String overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+            return this;
+        }
+
+        public long getOverflowTimeoutMillis() {
+            return overflowTimeoutMillis;
+        }
+
+        public Builder setOverflowTimeoutMillis(long overflowTimeoutMillis) {
+            this.overflowTimeoutMillis = overflowTimeoutMillis;
+            return this;
+        }
+
+        public Level getOverflowPriorityLevel() {
+            return overflowPriorityLevel;
+        }
+
+        public Builder setOverflowPriorityLevel(Level overflowPriorityLevel) {
+            this.overflowPriorityLevel = overflowPriorityLevel;
+            return this;
+        }
+
+        public int getOverflowReservedBufferSize() {
+            return overflowReservedBufferSize;
+        }
+
+        public Builder setOverflowReservedBufferSize(int overflowReservedBufferSize) {
+            this.overflowReservedBufferSize = overflowReservedBufferSize;
+            return this;
+        }
+
         public double getMaxEventCountPerSecond() {
             return maxEventCountPerSecond;
         }
@@ -178,6 +581,42 @@ public class RedisThrottlerConfig {
             return this;
         }
 
+        public int getMaxRetryCount() {
+            return maxRetryCount;
+        }
+
+        public Builder setMaxRetryCount(int maxRetryCount) {
+            this.maxRetryCount = maxRetryCount;
+            return this;
+        }
+
+        public long getRetryBackoffMillis() {
+            return retryBackoffMillis;
+        }
+
+        public Builder setRetryBackoffMillis(long retryBackoffMillis) {
+            this.retryBackoffMillis = retryBackoffMillis;
+            return this;
+        }
+
+        public long getMaxRetryBackoffMillis() {
+            return maxRetryBackoffMillis;
+        }
+
+        public Builder setMaxRetryBackoffMillis(long maxRetryBackoffMillis) {
+            this.maxRetryBackoffMillis = maxRetryBackoffMillis;
+            return this;
+        }
+
+        public double getMaxRetryCountPerSecond() {
+            return maxRetryCountPerSecond;
+        }
+
+        public Builder setMaxRetryCountPerSecond(double maxRetryCountPerSecond) {
+            this.maxRetryCountPerSecond = maxRetryCountPerSecond;
+            return this;
+        }
+
         public String getJmxBeanName() {
             return jmxBeanName;
         }
@@ -187,6 +626,42 @@ public class RedisThrottlerConfig {
             return this;
         }
 
+        public RedisSpillQueueConfig getSpillQueueConfig() {
+            return spillQueueConfig;
+        }
+
+        public Builder setSpillQueueConfig(RedisSpillQueueConfig spillQueueConfig) {
+            this.spillQueueConfig = spillQueueConfig;
+            return this;
+        }
+
+        public RedisCircuitBreakerConfig getCircuitBreakerConfig() {
+            return circuitBreakerConfig;
+        }
+
+        public Builder setCircuitBreakerConfig(RedisCircuitBreakerConfig circuitBreakerConfig) {
+            this.circuitBreakerConfig = circuitBreakerConfig;
+            return this;
+        }
+
+        public RedisSamplingConfig getSamplingConfig() {
+            return samplingConfig;
+        }
+
+        public Builder setSamplingConfig(RedisSamplingConfig samplingConfig) {
+            this.samplingConfig = samplingConfig;
+            return this;
+        }
+
+        public RedisDeduplicationConfig getDeduplicationConfig() {
+            return deduplicationConfig;
+        }
+
+        public Builder setDeduplicationConfig(RedisDeduplicationConfig deduplicationConfig) {
+            this.deduplicationConfig = deduplicationConfig;
+            return this;
+        }
+
         public RedisThrottlerConfig build() {
             check();
             return new RedisThrottlerConfig(this);
@@ -194,6 +669,21 @@ public class RedisThrottlerConfig {
 
         private void check() {
             requireArgument(bufferSize > 0, "expecting: bufferSize > 0, found: %s", bufferSize);
+            requireArgument(
+                    ALLOWED_BUFFER_TYPES.contains(bufferType),
+                    "expecting: bufferType anyOf %s, found: %s",
+                    ALLOWED_BUFFER_TYPES,
+                    bufferType);
+            requireArgument(
+                    maxBufferByteCount >= 0,
+                    "expecting: maxBufferByteCount >= 0, found: %s",
+                    maxBufferByteCount);
+            requireArgument(
+                    !OFF_HEAP_BUFFER_TYPE.equals(bufferType) || (maxBufferByteCount > 0 && maxBufferByteCount <= Integer.MAX_VALUE),
+                    "expecting: maxBufferByteCount > 0 && maxBufferByteCount <= %s for the %s buffer type, found: %s",
+                    Integer.MAX_VALUE,
+                    OFF_HEAP_BUFFER_TYPE,
+                    maxBufferByteCount);
             requireArgument(
                     batchSize > 0 && batchSize < bufferSize,
                     "expecting: batchSize > 0 && batchSize < bufferSize, found: %s",
@@ -202,6 +692,68 @@ public class RedisThrottlerConfig {
                     flushPeriodMillis > 0,
                     "expecting: flushPeriodMillis > 0, found: %s",
                     flushPeriodMillis);
+            requireArgument(
+                    minBatchSize > 0 && minBatchSize <= batchSize,
+                    "expecting: minBatchSize > 0 && minBatchSize <= batchSize, found: %s",
+                    minBatchSize);
+            requireArgument(
+                    targetPushLatencyMillis > 0,
+                    "expecting: targetPushLatencyMillis > 0, found: %s",
+                    targetPushLatencyMillis);
+            requireArgument(
+                    flushThreadCount > 0,
+                    "expecting: flushThreadCount > 0, found: %s",
+                    flushThreadCount);
+            requireArgument(
+                    ALLOWED_OVERFLOW_POLICIES.contains(overflowPolicy),
+                    "expecting: overflowPolicy anyOf %s, found: %s",
+                    ALLOWED_OVERFLOW_POLICIES,
+                    overflowPolicy);
+            requireArgument(
+                    !BLOCK_OVERFLOW_POLICY.equals(overflowPolicy) || overflowTimeoutMillis > 0,
+                    "expecting: overflowTimeoutMillis > 0 for the %s overflow policy, found: %s",
+                    BLOCK_OVERFLOW_POLICY,
+                    overflowTimeoutMillis);
+            requireNonNull(overflowPriorityLevel, "overflowPriorityLevel");
+            requireArgument(
+                    overflowReservedBufferSize >= 0 && overflowReservedBufferSize < bufferSize,
+                    "expecting: overflowReservedBufferSize >= 0 && overflowReservedBufferSize < bufferSize, found: %s",
+                    overflowReservedBufferSize);
+            requireArgument(
+                    !PRIORITY_OVERFLOW_POLICY.equals(overflowPolicy) || overflowReservedBufferSize > 0,
+                    "expecting: overflowReservedBufferSize > 0 for the %s overflow policy, found: %s",
+                    PRIORITY_OVERFLOW_POLICY,
+                    overflowReservedBufferSize);
+            // The reservation only counts events, hence the events of other levels could still take up all the bytes.
+            requireArgument(
+                    !PRIORITY_OVERFLOW_POLICY.equals(overflowPolicy) || maxBufferByteCount == 0,
+                    "expecting: maxBufferByteCount == 0 for the %s overflow policy, found: %s",
+                    PRIORITY_OVERFLOW_POLICY,
+                    maxBufferByteCount);
+            // The disruptor buffer supports a single consumer, whereas the dropOldest policy makes producers consume as well.
+            requireArgument(
+                    !DISRUPTOR_BUFFER_TYPE.equals(bufferType) || flushThreadCount == 1,
+                    "expecting: flushThreadCount == 1 for the %s buffer type, found: %s",
+                    DISRUPTOR_BUFFER_TYPE,
+                    flushThreadCount);
+            requireArgument(
+                    !DISRUPTOR_BUFFER_TYPE.equals(bufferType) || !DROP_OLDEST_OVERFLOW_POLICY.equals(overflowPolicy),
+                    "expecting: overflowPolicy other than %s for the %s buffer type",
+                    DROP_OLDEST_OVERFLOW_POLICY,
+                    DISRUPTOR_BUFFER_TYPE);
+            requireArgument(
+                    stagingChunkSize >= 0 && stagingChunkSize <= bufferSize,
+                    "expecting: stagingChunkSize >= 0 && stagingChunkSize <= bufferSize, found: %s",
+                    stagingChunkSize);
+            requireArgument(
+                    stagingPeriodMillis > 0,
+                    "expecting: stagingPeriodMillis > 0, found: %s",
+                    stagingPeriodMillis);
+            requireArgument(
+                    stagingChunkSize == 0 || DROP_NEWEST_OVERFLOW_POLICY.equals(overflowPolicy),
+                    "expecting: %s overflow policy for stagingChunkSize > 0, found: %s",
+                    DROP_NEWEST_OVERFLOW_POLICY,
+                    overflowPolicy);
             requireArgument(
                     maxEventCountPerSecond >= 0,
                     "expecting: maxEventCountPerSecond >= 0, found: %d",
@@ -214,17 +766,55 @@ public class RedisThrottlerConfig {
                     maxErrorCountPerSecond >= 0,
                     "expecting: maxErrorCountPerSecond >= 0, found: %d",
                     maxErrorCountPerSecond);
+            requireArgument(
+                    maxRetryCount >= 0,
+                    "expecting: maxRetryCount >= 0, found: %s",
+                    maxRetryCount);
+            requireArgument(
+                    retryBackoffMillis > 0,
+                    "expecting: retryBackoffMillis > 0, found: %s",
+                    retryBackoffMillis);
+            requireArgument(
+                    maxRetryBackoffMillis >= retryBackoffMillis,
+                    "expecting: maxRetryBackoffMillis >= retryBackoffMillis, found: %s",
+                    maxRetryBackoffMillis);
+            requireArgument(
+                    maxRetryCountPerSecond >= 0,
+                    "expecting: maxRetryCountPerSecond >= 0, found: %s",
+                    maxRetryCountPerSecond);
         }
 
         @Override
         public String toString() {
             return "Builder{bufferSize=" + bufferSize +
+                    ", bufferType=" + bufferType +
+                    ", maxBufferByteCount=" + maxBufferByteCount +
                     ", batchSize=" + batchSize +
                     ", flushPeriodMillis=" + flushPeriodMillis +
+                    ", adaptiveBatchingEnabled=" + adaptiveBatchingEnabled +
+                    ", minBatchSize=" + minBatchSize +
+                    ", targetPushLatencyMillis=" + targetPushLatencyMillis +
+                    ", flushThreadCount=" + flushThreadCount +
+                    ", orderedFlushEnabled=" + orderedFlushEnabled +
+                    ", endOfBatchFlushEnabled=" + endOfBatchFlushEnabled +
+                    ", stagingChunkSize=" + stagingChunkSize +
+                    ", stagingPeriodMillis=" + stagingPeriodMillis +
+                    ", overflowPolicy=" + overflowPolicy +
+                    ", overflowTimeoutMillis=" + overflowTimeoutMillis +
+                    ", overflowPriorityLevel=" + overflowPriorityLevel +
+                    ", overflowReservedBufferSize=" + overflowReservedBufferSize +
                     ", maxEventCountPerSecond=" + maxEventCountPerSecond +
                     ", maxByteCountPerSecond=" + maxByteCountPerSecond +
                     ", maxErrorCountPerSecond=" + maxErrorCountPerSecond +
+                    ", maxRetryCount=" + maxRetryCount +
+                    ", retryBackoffMillis=" + retryBackoffMillis +
+                    ", maxRetryBackoffMillis=" + maxRetryBackoffMillis +
+                    ", maxRetryCountPerSecond=" + maxRetryCountPerSecond +
                     ", jmxBeanName=" + jmxBeanName +
+                    ", spillQueueConfig=" + spillQueueConfig +
+                    ", circuitBreakerConfig=" + circuitBreakerConfig +
+                    ", samplingConfig=" + samplingConfig +
+                    ", deduplicationConfig=" + deduplicationConfig +
                     '}';
         }
 
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Multi-producer, single-consumer {@link RedisThrottlerBuffer} in the style of the LMAX Disruptor.
+ * <p>
+ * Producers claim a sequence with a single CAS on the producer cursor, store the event in the slot of the sequence,
+ * and publish it by writing the sequence into the availability array of the slot.
+ * The consumer owns its sequence, hence consuming an event costs neither a CAS nor a lock.
+ * </p>
+ * <p>
+ * Unlike {@link RedisThrottlerRingBuffer}, waiting never involves a lock, and producers never signal the consumer.
+ * Instead, waiters spin, then yield, and finally park, similar to the <code>SleepingWaitStrategy</code> of the Disruptor.
+ * This brings the handoff latency of a busy consumer down to a few hundred nanoseconds,
+ * at the expense of an idle consumer waking up periodically.
+ * The park period doubles with every attempt up to {@link #MAX_PARK_PERIOD_NANOS}, hence an idle consumer wakes up about
+ * a thousand times per second, rather than as often as the timer resolution of the operating system allows.
+ * </p>
+ * <p>
+ * Only a single thread can consume from this buffer.
+ * </p>
+ */
+final class RedisThrottlerDisruptorBuffer implements RedisThrottlerBuffer {
+
+    private static final int SPIN_COUNT = 100;
+
+    private static final int YIELD_COUNT = 100;
+
+    private static final long MIN_PARK_PERIOD_NANOS = 100;
+
+    private static final long MAX_PARK_PERIOD_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * Number of park attempts after which the park period doesn't grow anymore, that is, reaches {@link #MAX_PARK_PERIOD_NANOS}.
+     */
+    private static final int MAX_PARK_SHIFT = 63 - Long.numberOfLeadingZeros(MAX_PARK_PERIOD_NANOS / MIN_PARK_PERIOD_NANOS) + 1;
+
+    /**
+     * {@link AtomicLong} padded to not share a cache line with other hot fields.
+     */
+    @SuppressWarnings("unused")
+    private static final class PaddedAtomicLong extends AtomicLong {
+
+        private static final long serialVersionUID = 1L;
+
+        private long p1, p2, p3, p4, p5, p6, p7;
+
+        private PaddedAtomicLong(long initialValue) {
+            super(initialValue);
+        }
+
+    }
+
+    private final int capacity;
+
+    private final AtomicReferenceArray<byte[]> events;
+
+    /**
+     * Sequences published to slots, that is, slot <code>s % capacity</code> is readable if it contains <code>s</code>.
+     */
+    private final AtomicLongArray publishedSequences;
+
+    /**
+     * The last sequence claimed by producers.
+     */
+    private final PaddedAtomicLong producerCursor = new PaddedAtomicLong(-1);
+
+    /**
+     * The last sequence consumed.
+     */
+    private final PaddedAtomicLong consumerSequence = new PaddedAtomicLong(-1);
+
+    /**
+     * Cache of {@link #consumerSequence} to spare producers reading it while the buffer is far from full.
+     */
+    private final PaddedAtomicLong cachedConsumerSequence = new PaddedAtomicLong(-1);
+
+    RedisThrottlerDisruptorBuffer(int capacity) {
+        Helpers.requireArgument(capacity > 0, "expecting: capacity > 0, found: %d", capacity);
+        this.capacity = capacity;
+        this.events = new AtomicReferenceArray<>(capacity);
+        this.publishedSequences = new AtomicLongArray(capacity);
+        for (int slot = 0; slot < capacity; slot++) {
+            publishedSequences.set(slot, -1);
+        }
+    }
+
+    @Override
+    public boolean offer(byte[] event) {
+        for (;;) {
+            long cursor = producerCursor.get();
+            long sequence = cursor + 1;
+            long wrapPoint = sequence - capacity;
+            if (wrapPoint > cachedConsumerSequence.get()) {
+                long consumed = consumerSequence.get();
+                cachedConsumerSequence.lazySet(consumed);
+                // The slot is not consumed yet, that is, the buffer is full.
+                if (wrapPoint > consumed) {
+                    return false;
+                }
+            }
+            if (producerCursor.compareAndSet(cursor, sequence)) {
+                int slot = (int) (sequence % capacity);
+                events.lazySet(slot, event);
+                publishedSequences.set(slot, sequence);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Claims sequences for as many of the events as there is space for with a single CAS, and publishes them in order.
+     */
+    @Override
+    public int offer(byte[][] events, int offset, int length) {
+        for (;;) {
+            long cursor = producerCursor.get();
+            long consumed = cachedConsumerSequence.get();
+            long available = capacity - (cursor - consumed);
+            if (available < length) {
+                consumed = consumerSequence.get();
+                cachedConsumerSequence.lazySet(consumed);
+                available = capacity - (cursor - consumed);
+            }
+            int claimedCount = (int) Math.min(length, available);
+            if (claimedCount <= 0) {
+                return 0;
+            }
+            if (producerCursor.compareAndSet(cursor, cursor + claimedCount)) {
+                for (int index = 0; index < claimedCount; index++) {
+                    long sequence = cursor + 1 + index;
+                    int slot = (int) (sequence % capacity);
+                    this.events.lazySet(slot, events[offset + index]);
+                    publishedSequences.set(slot, sequence);
+                }
+                return claimedCount;
+            }
+        }
+    }
+
+    @Override
+    public boolean offer(byte[] event, long timeout, TimeUnit timeUnit) throws InterruptedException {
+        long deadlineNanos = System.nanoTime() + timeUnit.toNanos(timeout);
+        for (int attemptIndex = 0; ; attemptIndex++) {
+            if (offer(event)) {
+                return true;
+            }
+            if (!await(attemptIndex, deadlineNanos)) {
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public byte[] poll() {
+        long sequence = consumerSequence.get() + 1;
+        int slot = (int) (sequence % capacity);
+        if (publishedSequences.get(slot) != sequence) {
+            // The slot is not published yet, that is, the buffer is empty.
+            return null;
+        }
+        byte[] event = events.get(slot);
+        events.lazySet(slot, null);
+        consumerSequence.lazySet(sequence);
+        return event;
+    }
+
+    @Override
+    public byte[] poll(long timeout, TimeUnit timeUnit) throws InterruptedException {
+        long deadlineNanos = System.nanoTime() + timeUnit.toNanos(timeout);
+        for (int attemptIndex = 0; ; attemptIndex++) {
+            byte[] event = poll();
+            if (event != null) {
+                return event;
+            }
+            if (!await(attemptIndex, deadlineNanos)) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Waits before the next attempt, by spinning, yielding, or parking, depending on the number of attempts so far.
+     * <p>
+     * The park period grows exponentially, and never exceeds the time left until the deadline.
+     * </p>
+     *
+     * @return {@code true}, if another attempt is allowed; {@code false}, if the deadline has passed
+     */
+    private static boolean await(int attemptIndex, long deadlineNanos) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        long remainingNanos = deadlineNanos - System.nanoTime();
+        if (remainingNanos <= 0) {
+            return false;
+        }
+        if (attemptIndex < SPIN_COUNT) {
+            // Do nothing, that is, spin.
+        } else if (attemptIndex < SPIN_COUNT + YIELD_COUNT) {
+            Thread.yield();
+        } else {
+            int parkShift = Math.min(attemptIndex - SPIN_COUNT - YIELD_COUNT, MAX_PARK_SHIFT);
+            long parkPeriodNanos = Math.min(MAX_PARK_PERIOD_NANOS, MIN_PARK_PERIOD_NANOS << parkShift);
+            LockSupport.parkNanos(Math.min(parkPeriodNanos, remainingNanos));
+        }
+        return true;
+    }
+
+    @Override
+    public int size() {
+        long size = producerCursor.get() - consumerSequence.get();
+        return (int) Math.max(0, Math.min(capacity, size));
+    }
+
+}
@@ -33,6 +33,44 @@ public class RedisThrottlerInternalJmxBean implements RedisThrottlerJmxBean {
 
     private final LongAdder redisPushSuccessCount = new LongAdder();
 
+    private final LongAdder redisPushRetryCount = new LongAdder();
+
+    private final LongAdder circuitBreakerRejectionCount = new LongAdder();
+
+    private volatile String circuitBreakerState = null;
+
+    private final LongAdder spilledEventCount = new LongAdder();
+
+    private final LongAdder replayedEventCount = new LongAdder();
+
+    private final LongAdder spillFailureCount = new LongAdder();
+
+    private final LongAdder evictedEventCount = new LongAdder();
+
+    private final LongAdder sampledOutEventCount = new LongAdder();
+
+    private final LongAdder deduplicatedEventCount = new LongAdder();
+
+    private final LongAdder unroutableEventCount = new LongAdder();
+
+    private final LongAdder eventEncodingFailureCount = new LongAdder();
+
+    private final LongAdder redisPushRetryRejectionCount = new LongAdder();
+
+    private final LongAdder circuitBreakerRejectedEventCount = new LongAdder();
+
+    private volatile long adaptiveBatchSize = 0;
+
+    private volatile long adaptiveFlushPeriodNanos = 0;
+
+    private final RedisHistogram redisPushLatencyNanos = new RedisHistogram();
+
+    private final RedisHistogram redisPushBatchSize = new RedisHistogram();
+
+    private final RedisHistogram eventByteCount = new RedisHistogram();
+
+    private final RedisHistogram eventDeliveryLatencyNanos = new RedisHistogram();
+
     public RedisThrottlerInternalJmxBean() {
         // Do nothing.
     }
@@ -107,6 +145,256 @@ public class RedisThrottlerInternalJmxBean implements RedisThrottlerJmxBean {
         redisPushSuccessCount.add(increment);
     }
 
+    @Override
+    public long getRedisPushRetryCount() {
+        return redisPushRetryCount.sum();
+    }
+
+    @Override
+    public void incrementRedisPushRetryCount(long increment) {
+        redisPushRetryCount.add(increment);
+    }
+
+    @Override
+    public long getCircuitBreakerRejectionCount() {
+        return circuitBreakerRejectionCount.sum();
+    }
+
+    @Override
+    public void incrementCircuitBreakerRejectionCount(long increment) {
+        circuitBreakerRejectionCount.add(increment);
+    }
+
+    @Override
+    public String getCircuitBreakerState() {
+        return circuitBreakerState;
+    }
+
+    @Override
+    public void updateCircuitBreakerState(String circuitBreakerState) {
+        this.circuitBreakerState = circuitBreakerState;
+    }
+
+    @Override
+    public long getSpilledEventCount() {
+        return spilledEventCount.sum();
+    }
+
+    @Override
+    public void incrementSpilledEventCount(long increment) {
+        spilledEventCount.add(increment);
+    }
+
+    @Override
+    public long getReplayedEventCount() {
+        return replayedEventCount.sum();
+    }
+
+    @Override
+    public void incrementReplayedEventCount(long increment) {
+        replayedEventCount.add(increment);
+    }
+
+    @Override
+    public long getSpillFailureCount() {
+        return spillFailureCount.sum();
+    }
+
+    @Override
+    public void incrementSpillFailureCount(long increment) {
+        spillFailureCount.add(increment);
+    }
+
+    @Override
+    public long getEvictedEventCount() {
+        return evictedEventCount.sum();
+    }
+
+    @Override
+    public void incrementEvictedEventCount(long increment) {
+        evictedEventCount.add(increment);
+    }
+
+    @Override
+    public long getAdaptiveBatchSize() {
+        return adaptiveBatchSize;
+    }
+
+    @Override
+    public void updateAdaptiveBatchSize(long adaptiveBatchSize) {
+        this.adaptiveBatchSize = adaptiveBatchSize;
+    }
+
+    @Override
+    public long getAdaptiveFlushPeriodNanos() {
+        return adaptiveFlushPeriodNanos;
+    }
+
+    @Override
+    public void updateAdaptiveFlushPeriodNanos(long adaptiveFlushPeriodNanos) {
+        this.adaptiveFlushPeriodNanos = adaptiveFlushPeriodNanos;
+    }
+
+    @Override
+    public long getRedisPushLatencyNanosP50() {
+        return redisPushLatencyNanos.getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getRedisPushLatencyNanosP99() {
+        return redisPushLatencyNanos.getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getRedisPushLatencyNanosP999() {
+        return redisPushLatencyNanos.getValueAtPercentile(99.9);
+    }
+
+    @Override
+    public long getRedisPushLatencyNanosMax() {
+        return redisPushLatencyNanos.getMax();
+    }
+
+    @Override
+    public void recordRedisPushLatencyNanos(long value) {
+        redisPushLatencyNanos.record(value);
+    }
+
+    @Override
+    public long getRedisPushBatchSizeP50() {
+        return redisPushBatchSize.getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getRedisPushBatchSizeP99() {
+        return redisPushBatchSize.getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getRedisPushBatchSizeP999() {
+        return redisPushBatchSize.getValueAtPercentile(99.9);
+    }
+
+    @Override
+    public long getRedisPushBatchSizeMax() {
+        return redisPushBatchSize.getMax();
+    }
+
+    @Override
+    public void recordRedisPushBatchSize(long value) {
+        redisPushBatchSize.record(value);
+    }
+
+    @Override
+    public long getEventByteCountP50() {
+        return eventByteCount.getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getEventByteCountP99() {
+        return eventByteCount.getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getEventByteCountP999() {
+        return eventByteCount.getValueAtPercentile(99.9);
+    }
+
+    @Override
+    public long getEventByteCountMax() {
+        return eventByteCount.getMax();
+    }
+
+    @Override
+    public void recordEventByteCount(long value) {
+        eventByteCount.record(value);
+    }
+
+    @Override
+    public long getEventDeliveryLatencyNanosP50() {
+        return eventDeliveryLatencyNanos.getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getEventDeliveryLatencyNanosP99() {
+        return eventDeliveryLatencyNanos.getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getEventDeliveryLatencyNanosP999() {
+        return eventDeliveryLatencyNanos.getValueAtPercentile(99.9);
+    }
+
+    @Override
+    public long getEventDeliveryLatencyNanosMax() {
+        return eventDeliveryLatencyNanos.getMax();
+    }
+
+    @Override
+    public void recordEventDeliveryLatencyNanos(long value) {
+        eventDeliveryLatencyNanos.record(value);
+    }
+
+    @Override
+    public long getSampledOutEventCount() {
+        return sampledOutEventCount.sum();
+    }
+
+    @Override
+    public void incrementSampledOutEventCount(long increment) {
+        sampledOutEventCount.add(increment);
+    }
+
+    @Override
+    public long getDeduplicatedEventCount() {
+        return deduplicatedEventCount.sum();
+    }
+
+    @Override
+    public void incrementDeduplicatedEventCount(long increment) {
+        deduplicatedEventCount.add(increment);
+    }
+
+    @Override
+    public long getUnroutableEventCount() {
+        return unroutableEventCount.sum();
+    }
+
+    @Override
+    public void incrementUnroutableEventCount(long increment) {
+        unroutableEventCount.add(increment);
+    }
+
+    @Override
+    public long getEventEncodingFailureCount() {
+        return eventEncodingFailureCount.sum();
+    }
+
+    @Override
+    public void incrementEventEncodingFailureCount(long increment) {
+        eventEncodingFailureCount.add(increment);
+    }
+
+    @Override
+    public long getRedisPushRetryRejectionCount() {
+        return redisPushRetryRejectionCount.sum();
+    }
+
+    @Override
+    public void incrementRedisPushRetryRejectionCount(long increment) {
+        redisPushRetryRejectionCount.add(increment);
+    }
+
+    @Override
+    public long getCircuitBreakerRejectedEventCount() {
+        return circuitBreakerRejectedEventCount.sum();
+    }
+
+    @Override
+    public void incrementCircuitBreakerRejectedEventCount(long increment) {
+        circuitBreakerRejectedEventCount.add(increment);
+    }
+
     @Override
     public String toString() {
         return "RedisThrottlerInternalJmxBean{" +
@@ -117,6 +405,25 @@ public class RedisThrottlerInternalJmxBean implements RedisThrottlerJmxBean {
                 ", unavailableBufferSpaceFailureCount=" + unavailableBufferSpaceFailureCount.sum() +
                 ", redisPushFailureCount=" + redisPushFailureCount.sum() +
                 ", redisPushSuccessCount=" + redisPushSuccessCount.sum() +
+                ", redisPushRetryCount=" + redisPushRetryCount.sum() +
+                ", circuitBreakerRejectionCount=" + circuitBreakerRejectionCount.sum() +
+                ", circuitBreakerState=" + circuitBreakerState +
+                ", spilledEventCount=" + spilledEventCount.sum() +
+                ", replayedEventCount=" + replayedEventCount.sum() +
+                ", spillFailureCount=" + spillFailureCount.sum() +
+                ", evictedEventCount=" + evictedEventCount.sum() +
+                ", sampledOutEventCount=" + sampledOutEventCount.sum() +
+                ", deduplicatedEventCount=" + deduplicatedEventCount.sum() +
+                ", unroutableEventCount=" + unroutableEventCount.sum() +
+                ", eventEncodingFailureCount=" + eventEncodingFailureCount.sum() +
+                ", redisPushRetryRejectionCount=" + redisPushRetryRejectionCount.sum() +
+                ", circuitBreakerRejectedEventCount=" + circuitBreakerRejectedEventCount.sum() +
+                ", adaptiveBatchSize=" + adaptiveBatchSize +
+                ", adaptiveFlushPeriodNanos=" + adaptiveFlushPeriodNanos +
+                ", redisPushLatencyNanos=" + redisPushLatencyNanos +
+                ", redisPushBatchSize=" + redisPushBatchSize +
+                ", eventByteCount=" + eventByteCount +
+                ", eventDeliveryLatencyNanos=" + eventDeliveryLatencyNanos +
                 '}';
     }
 
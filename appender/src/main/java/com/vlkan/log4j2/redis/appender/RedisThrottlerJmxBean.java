@@ -66,4 +66,198 @@ public interface RedisThrottlerJmxBean {
 
     void incrementRedisPushSuccessCount(int increment);
 
+    /**
+     * Number of Redis push retries.
+     */
+    long getRedisPushRetryCount();
+
+    void incrementRedisPushRetryCount(long increment);
+
+    /**
+     * Number of Redis pushes rejected by the open circuit breaker.
+     */
+    long getCircuitBreakerRejectionCount();
+
+    void incrementCircuitBreakerRejectionCount(long increment);
+
+    /**
+     * State of the circuit breaker (<code>CLOSED</code>, <code>OPEN</code>, or <code>HALF_OPEN</code>), or <code>null</code>, if it is disabled.
+     */
+    String getCircuitBreakerState();
+
+    void updateCircuitBreakerState(String circuitBreakerState);
+
+    /**
+     * Number of events spilled to the disk due to Redis push failures.
+     */
+    long getSpilledEventCount();
+
+    void incrementSpilledEventCount(long increment);
+
+    /**
+     * Number of spilled events pushed to Redis.
+     * These are counted neither as succeeded pushes, nor as failed ones once more, since their initial push is counted as failed.
+     */
+    long getReplayedEventCount();
+
+    void incrementReplayedEventCount(long increment);
+
+    /**
+     * Number of events dropped due to unavailable spill queue space.
+     */
+    long getSpillFailureCount();
+
+    void incrementSpillFailureCount(long increment);
+
+    /**
+     * Number of events dropped from the buffer to make room for newer ones due to the <code>dropOldest</code> overflow policy.
+     */
+    long getEvictedEventCount();
+
+    void incrementEvictedEventCount(long increment);
+
+    /**
+     * Batch size lastly decided by the adaptive batching, or zero, if it is disabled.
+     */
+    long getAdaptiveBatchSize();
+
+    void updateAdaptiveBatchSize(long adaptiveBatchSize);
+
+    /**
+     * Flush period in nanoseconds lastly decided by the adaptive batching, or zero, if it is disabled.
+     */
+    long getAdaptiveFlushPeriodNanos();
+
+    void updateAdaptiveFlushPeriodNanos(long adaptiveFlushPeriodNanos);
+
+    /**
+     * Median of the Redis push latency in nanoseconds per batch.
+     */
+    long getRedisPushLatencyNanosP50();
+
+    /**
+     * 99th percentile of the Redis push latency in nanoseconds per batch.
+     */
+    long getRedisPushLatencyNanosP99();
+
+    /**
+     * 99.9th percentile of the Redis push latency in nanoseconds per batch.
+     */
+    long getRedisPushLatencyNanosP999();
+
+    /**
+     * Maximum of the Redis push latency in nanoseconds per batch.
+     */
+    long getRedisPushLatencyNanosMax();
+
+    void recordRedisPushLatencyNanos(long value);
+
+    /**
+     * Median of the number of events per Redis push.
+     */
+    long getRedisPushBatchSizeP50();
+
+    /**
+     * 99th percentile of the number of events per Redis push.
+     */
+    long getRedisPushBatchSizeP99();
+
+    /**
+     * 99.9th percentile of the number of events per Redis push.
+     */
+    long getRedisPushBatchSizeP999();
+
+    /**
+     * Maximum of the number of events per Redis push.
+     */
+    long getRedisPushBatchSizeMax();
+
+    void recordRedisPushBatchSize(long value);
+
+    /**
+     * Median of the encoded event size in bytes.
+     */
+    long getEventByteCountP50();
+
+    /**
+     * 99th percentile of the encoded event size in bytes.
+     */
+    long getEventByteCountP99();
+
+    /**
+     * 99.9th percentile of the encoded event size in bytes.
+     */
+    long getEventByteCountP999();
+
+    /**
+     * Maximum of the encoded event size in bytes.
+     */
+    long getEventByteCountMax();
+
+    void recordEventByteCount(long value);
+
+    /**
+     * Median of the sampled time in nanoseconds from enqueueing an event to its successful Redis push.
+     */
+    long getEventDeliveryLatencyNanosP50();
+
+    /**
+     * 99th percentile of the sampled time in nanoseconds from enqueueing an event to its successful Redis push.
+     */
+    long getEventDeliveryLatencyNanosP99();
+
+    /**
+     * 99.9th percentile of the sampled time in nanoseconds from enqueueing an event to its successful Redis push.
+     */
+    long getEventDeliveryLatencyNanosP999();
+
+    /**
+     * Maximum of the sampled time in nanoseconds from enqueueing an event to its successful Redis push.
+     */
+    long getEventDeliveryLatencyNanosMax();
+
+    void recordEventDeliveryLatencyNanos(long value);
+
+    /**
+     * Number of events dropped by sampling before being enqueued.
+     */
+    long getSampledOutEventCount();
+
+    void incrementSampledOutEventCount(long increment);
+
+    /**
+     * Number of events dropped as duplicates of a recent event before being enqueued.
+     */
+    long getDeduplicatedEventCount();
+
+    void incrementDeduplicatedEventCount(long increment);
+
+    /**
+     * Number of events dropped since they were not framed with a key, e.g., spilled while there was no key pattern.
+     */
+    long getUnroutableEventCount();
+
+    void incrementUnroutableEventCount(long increment);
+
+    /**
+     * Number of events that failed to be encoded by the layout.
+     */
+    long getEventEncodingFailureCount();
+
+    void incrementEventEncodingFailureCount(long increment);
+
+    /**
+     * Number of Redis push retries denied by the retry budget, see <code>maxRetryCountPerSecond</code>.
+     */
+    long getRedisPushRetryRejectionCount();
+
+    void incrementRedisPushRetryRejectionCount(long increment);
+
+    /**
+     * Number of events rejected by the open circuit breaker, which get spilled or dropped without retries.
+     */
+    long getCircuitBreakerRejectedEventCount();
+
+    void incrementCircuitBreakerRejectedEventCount(long increment);
+
 }
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link RedisThrottlerBuffer} keeping the events in a fixed-size off-heap arena.
+ * <p>
+ * Events are copied into a direct {@link ByteBuffer} used as a circular byte queue, and copied back out while polling.
+ * Hence, buffered events don't stay on the heap, and a burst of logs doesn't get them promoted to the old generation.
+ * The price is a copy per event in each direction.
+ * </p>
+ * <p>
+ * The buffer is bounded both by the number of events and by the arena size.
+ * Similar to {@link java.util.concurrent.ArrayBlockingQueue}, all access is guarded by a single lock.
+ * </p>
+ */
+final class RedisThrottlerOffHeapBuffer implements RedisThrottlerBuffer {
+
+    private final ByteBuffer arena;
+
+    /**
+     * Sizes of the enqueued events in FIFO order, as a circular array.
+     */
+    private final int[] eventByteCounts;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Condition notFull = lock.newCondition();
+
+    private int takeIndex = 0;
+
+    private int eventCount = 0;
+
+    /**
+     * Arena offset of the first byte of the oldest event.
+     */
+    private int headByteIndex = 0;
+
+    private int byteCount = 0;
+
+    RedisThrottlerOffHeapBuffer(int capacity, int byteCapacity) {
+        Helpers.requireArgument(capacity > 0, "expecting: capacity > 0, found: %d", capacity);
+        Helpers.requireArgument(byteCapacity > 0, "expecting: byteCapacity > 0, found: %d", byteCapacity);
+        this.arena = ByteBuffer.allocateDirect(byteCapacity);
+        this.eventByteCounts = new int[capacity];
+    }
+
+    @Override
+    public boolean offer(byte[] event) {
+        lock.lock();
+        try {
+            return enqueue(event);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int offer(byte[][] events, int offset, int length) {
+        lock.lock();
+        try {
+            int index = 0;
+            while (index < length && enqueue(events[offset + index])) {
+                index++;
+            }
+            return index;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(byte[] event, long timeout, TimeUnit timeUnit) throws InterruptedException {
+        if (event.length > arena.capacity()) {
+            return false;
+        }
+        long remainingNanos = timeUnit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            boolean offered;
+            while (!(offered = enqueue(event)) && remainingNanos > 0) {
+                remainingNanos = notFull.awaitNanos(remainingNanos);
+            }
+            return offered;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean enqueue(byte[] event) {
+        if (eventCount == eventByteCounts.length || byteCount + event.length > arena.capacity()) {
+            return false;
+        }
+        int putIndex = (takeIndex + eventCount) % eventByteCounts.length;
+        eventByteCounts[putIndex] = event.length;
+        int tailByteIndex = (headByteIndex + byteCount) % arena.capacity();
+        int firstPartLength = Math.min(event.length, arena.capacity() - tailByteIndex);
+        arena.position(tailByteIndex);
+        arena.put(event, 0, firstPartLength);
+        if (firstPartLength < event.length) {
+            arena.position(0);
+            arena.put(event, firstPartLength, event.length - firstPartLength);
+        }
+        eventCount++;
+        byteCount += event.length;
+        notEmpty.signal();
+        return true;
+    }
+
+    @Override
+    public byte[] poll() {
+        lock.lock();
+        try {
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public byte[] poll(long timeout, TimeUnit timeUnit) throws InterruptedException {
+        long remainingNanos = timeUnit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            byte[] event;
+            while ((event = dequeue()) == null && remainingNanos > 0) {
+                remainingNanos = notEmpty.awaitNanos(remainingNanos);
+            }
+            return event;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private byte[] dequeue() {
+        if (eventCount == 0) {
+            return null;
+        }
+        byte[] event = new byte[eventByteCounts[takeIndex]];
+        int firstPartLength = Math.min(event.length, arena.capacity() - headByteIndex);
+        arena.position(headByteIndex);
+        arena.get(event, 0, firstPartLength);
+        if (firstPartLength < event.length) {
+            arena.position(0);
+            arena.get(event, firstPartLength, event.length - firstPartLength);
+        }
+        takeIndex = (takeIndex + 1) % eventByteCounts.length;
+        eventCount--;
+        headByteIndex = (headByteIndex + event.length) % arena.capacity();
+        byteCount -= event.length;
+        notFull.signalAll();
+        return event;
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return eventCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lock-free bounded {@link RedisThrottlerBuffer}.
+ * <p>
+ * This is an implementation of Dmitry Vyukov's bounded MPMC queue.
+ * Every slot carries a sequence number telling whether it is ready to be written to or read from.
+ * Producers and consumers claim indices with a single CAS, and never block each other.
+ * </p>
+ * <p>
+ * Consumers waiting on an empty buffer (and producers waiting on a full one) do block on a lock, though.
+ * Producers only touch that lock if there is a consumer waiting, that is, only when the buffer has been drained.
+ * Likewise, consumers only touch it if there is a producer waiting, that is, only when the buffer is full.
+ * </p>
+ */
+final class RedisThrottlerRingBuffer implements RedisThrottlerBuffer {
+
+    private final int capacity;
+
+    private final AtomicReferenceArray<byte[]> events;
+
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong producerIndex = new AtomicLong(0);
+
+    private final AtomicLong consumerIndex = new AtomicLong(0);
+
+    private final AtomicInteger waitingConsumerCount = new AtomicInteger(0);
+
+    private final AtomicInteger waitingProducerCount = new AtomicInteger(0);
+
+    private final ReentrantLock waitLock = new ReentrantLock();
+
+    private final Condition notEmpty = waitLock.newCondition();
+
+    private final Condition notFull = waitLock.newCondition();
+
+    RedisThrottlerRingBuffer(int capacity) {
+        Helpers.requireArgument(capacity > 0, "expecting: capacity > 0, found: %d", capacity);
+        this.capacity = capacity;
+        this.events = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int slot = 0; slot < capacity; slot++) {
+            sequences.set(slot, slot);
+        }
+    }
+
+    @Override
+    public boolean offer(byte[] event) {
+        long index = producerIndex.get();
+        for (;;) {
+            int slot = (int) (index % capacity);
+            long sequence = sequences.get(slot);
+            long difference = sequence - index;
+            if (difference == 0) {
+                if (producerIndex.compareAndSet(index, index + 1)) {
+                    events.lazySet(slot, event);
+                    sequences.set(slot, index + 1);
+                    signalWaitingConsumers();
+                    return true;
+                }
+                index = producerIndex.get();
+            } else if (difference < 0) {
+                // The slot is not consumed yet, that is, the buffer is full.
+                return false;
+            } else {
+                // Another producer has claimed the index, retry.
+                index = producerIndex.get();
+            }
+        }
+    }
+
+    /**
+     * Claims indices for as many of the events as there are free slots for with a single CAS, and publishes them in order.
+     * <p>
+     * Slots past the producer index can only get freed by consumers meanwhile, hence they remain free until the CAS.
+     * </p>
+     */
+    @Override
+    public int offer(byte[][] events, int offset, int length) {
+        for (;;) {
+            long index = producerIndex.get();
+            int claimedCount = 0;
+            while (claimedCount < length && sequences.get((int) ((index + claimedCount) % capacity)) == index + claimedCount) {
+                claimedCount++;
+            }
+            if (claimedCount == 0) {
+                // Either the buffer is full, or another producer has claimed the index.
+                if (index == producerIndex.get()) {
+                    return 0;
+                }
+                continue;
+            }
+            if (producerIndex.compareAndSet(index, index + claimedCount)) {
+                for (int eventIndex = 0; eventIndex < claimedCount; eventIndex++) {
+                    int slot = (int) ((index + eventIndex) % capacity);
+                    this.events.lazySet(slot, events[offset + eventIndex]);
+                    sequences.set(slot, index + eventIndex + 1);
+                }
+                signalWaitingConsumers();
+                return claimedCount;
+            }
+        }
+    }
+
+    @Override
+    public boolean offer(byte[] event, long timeout, TimeUnit timeUnit) throws InterruptedException {
+        if (offer(event)) {
+            return true;
+        }
+        long remainingNanos = timeUnit.toNanos(timeout);
+        waitLock.lockInterruptibly();
+        try {
+            waitingProducerCount.incrementAndGet();
+            try {
+                // Consumers signal only after releasing a slot, and only while holding the lock.
+                // Hence, offering before every await guarantees no signal gets lost.
+                boolean offered;
+                while (!(offered = offer(event)) && remainingNanos > 0) {
+                    remainingNanos = notFull.awaitNanos(remainingNanos);
+                }
+                return offered;
+            } finally {
+                waitingProducerCount.decrementAndGet();
+            }
+        } finally {
+            waitLock.unlock();
+        }
+    }
+
+    private void signalWaitingConsumers() {
+        if (waitingConsumerCount.get() > 0) {
+            waitLock.lock();
+            try {
+                notEmpty.signalAll();
+            } finally {
+                waitLock.unlock();
+            }
+        }
+    }
+
+    private void signalWaitingProducers() {
+        if (waitingProducerCount.get() > 0) {
+            waitLock.lock();
+            try {
+                notFull.signalAll();
+            } finally {
+                waitLock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public byte[] poll() {
+        long index = consumerIndex.get();
+        for (;;) {
+            int slot = (int) (index % capacity);
+            long sequence = sequences.get(slot);
+            long difference = sequence - (index + 1);
+            if (difference == 0) {
+                if (consumerIndex.compareAndSet(index, index + 1)) {
+                    byte[] event = events.get(slot);
+                    events.lazySet(slot, null);
+                    sequences.set(slot, index + capacity);
+                    signalWaitingProducers();
+                    return event;
+                }
+                index = consumerIndex.get();
+            } else if (difference < 0) {
+                // The slot is not published yet, that is, the buffer is empty.
+                return null;
+            } else {
+                // Another consumer has claimed the index, retry.
+                index = consumerIndex.get();
+            }
+        }
+    }
+
+    @Override
+    public byte[] poll(long timeout, TimeUnit timeUnit) throws InterruptedException {
+        byte[] event = poll();
+        if (event != null) {
+            return event;
+        }
+        long remainingNanos = timeUnit.toNanos(timeout);
+        waitLock.lockInterruptibly();
+        try {
+            waitingConsumerCount.incrementAndGet();
+            try {
+                // Producers signal only after publishing, and only while holding the lock.
+                // Hence, polling before every await guarantees no signal gets lost.
+                while ((event = poll()) == null && remainingNanos > 0) {
+                    remainingNanos = notEmpty.awaitNanos(remainingNanos);
+                }
+                return event;
+            } finally {
+                waitingConsumerCount.decrementAndGet();
+            }
+        } finally {
+            waitLock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        long size = producerIndex.get() - consumerIndex.get();
+        return (int) Math.max(0, Math.min(capacity, size));
+    }
+
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Per-thread staging of events, publishing them to the shared {@link RedisThrottlerBuffer} in chunks.
+ * <p>
+ * Every producer thread collects events into a chunk of its own, and publishes the chunk once it is full,
+ * using a single bulk offer, see {@link RedisThrottlerBuffer#offer(byte[][], int, int)}.
+ * Hence, producers touch the shared buffer once per chunk rather than once per event.
+ * </p>
+ * <p>
+ * Each stage is guarded by its own monitor, which its producer takes for every event.
+ * The monitor is only contended while a flusher publishes a stale chunk, and otherwise stays on a cache line private to
+ * the producer, unlike the contended CAS or lock of the shared buffer it replaces.
+ * A lock-free alternative would still need a full fence per event to let flushers take over stale chunks safely,
+ * which costs about the same as an uncontended monitor.
+ * </p>
+ * <p>
+ * Flushers publish chunks staged for longer than the staging period, so that quiet threads don't hold back their events.
+ * Hence, an event can be delayed by up to twice the staging period before reaching the shared buffer.
+ * Events of a thread are published in order, yet the events of different threads interleave by chunks rather than by events.
+ * </p>
+ * <p>
+ * Stages are referenced by the thread-locals of their producers, which outlive the staging area.
+ * Hence, {@link #close()} releases the chunks of the stages, leaving behind only empty stage objects.
+ * </p>
+ */
+final class RedisThrottlerStagingArea {
+
+    private static final class Stage {
+
+        private final Thread owner;
+
+        /**
+         * Staged events, or <code>null</code>, once the staging area is closed.
+         */
+        private byte[][] events;
+
+        private int eventCount = 0;
+
+        private long firstEventNanos = 0;
+
+        private Stage(Thread owner, int chunkSize) {
+            this.owner = owner;
+            this.events = new byte[chunkSize][];
+        }
+
+    }
+
+    private final RedisThrottlerBuffer buffer;
+
+    private final int chunkSize;
+
+    private final long periodNanos;
+
+    private final Consumer<byte[]> droppedEventConsumer;
+
+    private final Queue<Stage> stages = new ConcurrentLinkedQueue<>();
+
+    private final ThreadLocal<Stage> stageRef = ThreadLocal.withInitial(this::createStage);
+
+    /**
+     * Earliest time for the next stale chunk check, to spare busy flushers from checking every stage for every event.
+     */
+    private volatile long nextStaleCheckNanos = System.nanoTime();
+
+    private boolean closed = false;
+
+    /**
+     * @param droppedEventConsumer invoked for every event that doesn't fit into the shared buffer while publishing
+     */
+    RedisThrottlerStagingArea(
+            RedisThrottlerBuffer buffer,
+            int chunkSize,
+            long periodMillis,
+            Consumer<byte[]> droppedEventConsumer) {
+        this.buffer = buffer;
+        this.chunkSize = chunkSize;
+        this.periodNanos = TimeUnit.MILLISECONDS.toNanos(periodMillis);
+        this.droppedEventConsumer = droppedEventConsumer;
+    }
+
+    private Stage createStage() {
+        Stage stage = new Stage(Thread.currentThread(), chunkSize);
+        // Synchronized with close(), so that no stage gets registered after it.
+        synchronized (stages) {
+            if (closed) {
+                stage.events = null;
+            } else {
+                stages.add(stage);
+            }
+        }
+        return stage;
+    }
+
+    long getPeriodNanos() {
+        return periodNanos;
+    }
+
+    /**
+     * Stages the event in the chunk of the current thread, and publishes the chunk, if it is full.
+     */
+    void add(byte[] event) {
+        Stage stage = stageRef.get();
+        synchronized (stage) {
+            if (stage.events == null) {
+                droppedEventConsumer.accept(event);
+                return;
+            }
+            if (stage.eventCount == 0) {
+                stage.firstEventNanos = System.nanoTime();
+            }
+            stage.events[stage.eventCount++] = event;
+            if (stage.eventCount == chunkSize) {
+                publish(stage);
+            }
+        }
+    }
+
+    /**
+     * Publishes the chunk of the current thread, e.g., at the end of a batch of events.
+     */
+    void publishCurrentThread() {
+        Stage stage = stageRef.get();
+        synchronized (stage) {
+            publish(stage);
+        }
+    }
+
+    /**
+     * Publishes the chunks staged for longer than the staging period, unless there has been a check within the period.
+     * Stages of terminated threads are published and discarded.
+     */
+    void publishStale(long nowNanos) {
+        if (nowNanos - nextStaleCheckNanos < 0) {
+            return;
+        }
+        nextStaleCheckNanos = nowNanos + periodNanos;
+        for (Iterator<Stage> iterator = stages.iterator(); iterator.hasNext(); ) {
+            Stage stage = iterator.next();
+            synchronized (stage) {
+                boolean ownerTerminated = !stage.owner.isAlive();
+                if (ownerTerminated || (stage.eventCount > 0 && nowNanos - stage.firstEventNanos >= periodNanos)) {
+                    publish(stage);
+                }
+                if (ownerTerminated) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Publishes all chunks, e.g., while closing.
+     */
+    void publishAll() {
+        for (Stage stage : stages) {
+            synchronized (stage) {
+                publish(stage);
+            }
+        }
+    }
+
+    /**
+     * Publishes the chunk of the stage, which must be guarded by the caller.
+     */
+    private void publish(Stage stage) {
+        int eventCount = stage.eventCount;
+        if (eventCount == 0 || stage.events == null) {
+            return;
+        }
+        int publishedEventCount = buffer.offer(stage.events, 0, eventCount);
+        for (int eventIndex = publishedEventCount; eventIndex < eventCount; eventIndex++) {
+            droppedEventConsumer.accept(stage.events[eventIndex]);
+        }
+        Arrays.fill(stage.events, 0, eventCount, null);
+        stage.eventCount = 0;
+    }
+
+    /**
+     * Releases the chunks of all stages, dropping the events staged after the last {@link #publishAll()}, if any.
+     */
+    void close() {
+        synchronized (stages) {
+            closed = true;
+        }
+        for (Stage stage : stages) {
+            synchronized (stage) {
+                for (int eventIndex = 0; eventIndex < stage.eventCount; eventIndex++) {
+                    droppedEventConsumer.accept(stage.events[eventIndex]);
+                }
+                stage.events = null;
+                stage.eventCount = 0;
+            }
+        }
+        stages.clear();
+        stageRef.remove();
+    }
+
+}
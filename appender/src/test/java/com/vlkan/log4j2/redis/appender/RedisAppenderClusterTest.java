@@ -0,0 +1,148 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.status.StatusLogger;
+import org.assertj.core.api.Assertions;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import redis.clients.jedis.Jedis;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class RedisAppenderClusterTest {
+
+    private static final Logger LOGGER = StatusLogger.getLogger();
+
+    private static final String CLASS_NAME = RedisAppenderClusterTest.class.getSimpleName();
+
+    private static final String LOGGER_PREFIX = "[" + CLASS_NAME + "]";
+
+    private static final int NODE_COUNT = 3;
+
+    private static final int KEY_SHARD_COUNT = 6;
+
+    private final String redisHost = NetworkUtils.localHostName();
+
+    private final int[] redisPorts = createPorts(redisHost);
+
+    private final String redisUsername = String.format("%s-RedisUsername-%s:%d", CLASS_NAME, redisHost, redisPorts[0]);
+
+    private final String redisPassword = String.format("%s-RedisPassword-%s:%d", CLASS_NAME, redisHost, redisPorts[0]);
+
+    private final String redisKey = String.format("%s-RedisKey-%s:%d", CLASS_NAME, redisHost, redisPorts[0]);
+
+    private final String redisAppenderName = String.format("%s-RedisAppender-%s-%d", CLASS_NAME, redisHost, redisPorts[0]);
+
+    @Order(1)
+    @RegisterExtension
+    final RedisClusterExtension redisClusterExtension =
+            new RedisClusterExtension(redisHost, redisPorts, redisUsername, redisPassword);
+
+    @Order(2)
+    @RegisterExtension
+    final LoggerContextExtension loggerContextExtension =
+            new LoggerContextExtension(
+                    CLASS_NAME,
+                    redisAppenderName,
+                    configBuilder -> configBuilder.add(configBuilder
+                            .newAppender(redisAppenderName, "RedisAppender")
+                            .addAttribute("clusterNodes", redisClusterExtension.getNodes())
+                            .addAttribute("keyShardCount", KEY_SHARD_COUNT)
+                            .addAttribute("username", redisUsername)
+                            .addAttribute("password", redisPassword)
+                            .addAttribute("key", redisKey)
+                            .addAttribute("ignoreExceptions", false)
+                            .add(configBuilder
+                                    .newLayout("PatternLayout")
+                                    .addAttribute("pattern", "%m"))
+                            .addComponent(configBuilder
+                                    .newComponent("RedisThrottlerConfig")
+                                    .addAttribute("flushPeriodMillis", 100L)
+                                    .addAttribute("batchSize", 12))));
+
+    private static int[] createPorts(String host) {
+        int[] ports = new int[NODE_COUNT];
+        for (int nodeIndex = 0; nodeIndex < NODE_COUNT; nodeIndex++) {
+            ports[nodeIndex] = NetworkUtils.findUnusedPort(host);
+        }
+        return ports;
+    }
+
+    @Test
+    void events_should_be_sharded_across_nodes() {
+
+        // Log messages.
+        LOGGER.debug("{} logging messages", LOGGER_PREFIX);
+        Logger logger = loggerContextExtension.getLoggerContext().getLogger(RedisAppenderClusterTest.class);
+        int messageCount = 60;
+        for (int messageIndex = 0; messageIndex < messageCount; messageIndex++) {
+            logger.info("{}", messageIndex);
+        }
+
+        // Wait for the messages to be pushed.
+        RedisAppender appender = loggerContextExtension.getConfig().getAppender(redisAppenderName);
+        Awaitility
+                .await("Redis write await")
+                .atMost(Duration.ofSeconds(10))
+                .untilAsserted(() -> Assertions
+                        .assertThat(appender.getJmxBean().getRedisPushSuccessCount())
+                        .isEqualTo(messageCount));
+
+        // Collect the shards from the nodes owning them.
+        List<List<Integer>> shards = new ArrayList<>();
+        int nonEmptyNodeCount = 0;
+        for (int nodeIndex = 0; nodeIndex < NODE_COUNT; nodeIndex++) {
+            try (Jedis client = redisClusterExtension.createNodeClient(nodeIndex)) {
+                int nodeShardCount = 0;
+                for (int shardIndex = 0; shardIndex < KEY_SHARD_COUNT; shardIndex++) {
+                    String shardKey = String.format("%s:{%d}", redisKey, shardIndex);
+                    int slot = (int) client.clusterKeySlot(shardKey);
+                    if (client.clusterCountKeysInSlot(slot) > 0) {
+                        List<Integer> shard = client
+                                .lrange(shardKey, 0, -1)
+                                .stream()
+                                .map(Integer::parseInt)
+                                .collect(Collectors.toList());
+                        shards.add(shard);
+                        nodeShardCount++;
+                    }
+                }
+                if (nodeShardCount > 0) {
+                    nonEmptyNodeCount++;
+                }
+            }
+        }
+
+        // Verify that the shards are spread across nodes, and contain all messages in order.
+        Assertions.assertThat(nonEmptyNodeCount).isGreaterThan(1);
+        Assertions.assertThat(shards).hasSize(KEY_SHARD_COUNT);
+        Assertions.assertThat(shards).allSatisfy(shard -> Assertions.assertThat(shard).isSorted());
+        List<Integer> expectedMessages = IntStream.range(0, messageCount).boxed().collect(Collectors.toList());
+        Assertions
+                .assertThat(shards.stream().flatMap(List::stream))
+                .containsExactlyInAnyOrderElementsOf(expectedMessages);
+
+    }
+
+}
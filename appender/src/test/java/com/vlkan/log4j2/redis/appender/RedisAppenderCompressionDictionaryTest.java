@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.status.StatusLogger;
+import org.assertj.core.api.Assertions;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import redis.clients.jedis.Jedis;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+
+class RedisAppenderCompressionDictionaryTest {
+
+    private static final Logger LOGGER = StatusLogger.getLogger();
+
+    private static final String CLASS_NAME = RedisAppenderCompressionDictionaryTest.class.getSimpleName();
+
+    private static final String LOGGER_PREFIX = "[" + CLASS_NAME + "]";
+
+    private final String redisHost = NetworkUtils.localHostName();
+
+    private final int redisPort = NetworkUtils.findUnusedPort(redisHost);
+
+    private final String redisUsername = String.format("%s-RedisUsername-%s:%d", CLASS_NAME, redisHost, redisPort);
+
+    private final String redisPassword = String.format("%s-RedisPassword-%s:%d", CLASS_NAME, redisHost, redisPort);
+
+    private final String redisKey = String.format("%s-RedisKey-%s:%d", CLASS_NAME, redisHost, redisPort);
+
+    private final String redisDictionaryKey = String.format("%s-RedisDictionaryKey-%s:%d", CLASS_NAME, redisHost, redisPort);
+
+    private final String redisAppenderName = String.format("%s-RedisAppender-%s-%d", CLASS_NAME, redisHost, redisPort);
+
+    @Order(1)
+    @RegisterExtension
+    final RedisServerExtension redisServerExtension = new RedisServerExtension(redisPort, redisUsername, redisPassword);
+
+    @Order(2)
+    @RegisterExtension
+    final RedisClientExtension redisClientExtension = new RedisClientExtension(redisHost, redisPort, redisUsername, redisPassword);
+
+    @Order(3)
+    @RegisterExtension
+    final LoggerContextExtension loggerContextExtension =
+            new LoggerContextExtension(
+                    CLASS_NAME,
+                    redisAppenderName,
+                    configBuilder -> configBuilder.add(configBuilder
+                            .newAppender(redisAppenderName, "RedisAppender")
+                            .addAttribute("host", redisHost)
+                            .addAttribute("port", redisPort)
+                            .addAttribute("username", redisUsername)
+                            .addAttribute("password", redisPassword)
+                            .addAttribute("key", redisKey)
+                            .addAttribute("ignoreExceptions", false)
+                            .add(configBuilder
+                                    .newLayout("PatternLayout")
+                                    .addAttribute("pattern", "%m"))
+                            .addComponent(configBuilder
+                                    .newComponent("RedisThrottlerConfig")
+                                    // This test needs a `flushPeriodMillis` long enough that it won't kick in during the lifetime of the test.
+                                    .addAttribute("flushPeriodMillis", 60_000L)
+                                    // This test needs a `batchSize` of 3, so that the first batch completes the sample.
+                                    .addAttribute("batchSize", 3))
+                            .addComponent(configBuilder
+                                    .newComponent("RedisCompressionConfig")
+                                    .addAttribute("dictionaryKey", redisDictionaryKey)
+                                    .addAttribute("dictionarySampleCount", 3))));
+
+    @Test
+    void events_should_be_compressed_using_the_published_dictionary() {
+
+        // Log messages.
+        LOGGER.debug("{} logging messages", LOGGER_PREFIX);
+        Logger logger = loggerContextExtension.getLoggerContext().getLogger(RedisAppenderCompressionDictionaryTest.class);
+        String[] messages = new String[6];
+        for (int messageIndex = 0; messageIndex < messages.length; messageIndex++) {
+            messages[messageIndex] = String.format("request completed (userId=%d, durationMillis=%d)", messageIndex, 10 * messageIndex);
+            logger.info(messages[messageIndex]);
+        }
+
+        // Verify that events are pushed one by one.
+        Jedis jedis = redisClientExtension.getClient();
+        byte[] redisKeyBytes = redisKey.getBytes(StandardCharsets.UTF_8);
+        Awaitility
+                .await("Redis write await")
+                .atMost(Duration.ofSeconds(5))
+                .untilAsserted(() -> Assertions.assertThat(jedis.llen(redisKeyBytes)).isEqualTo(messages.length));
+
+        // Verify the published dictionary.
+        byte[] redisDictionaryKeyBytes = redisDictionaryKey.getBytes(StandardCharsets.UTF_8);
+        Set<String> dictionaryIds = jedis.hkeys(redisDictionaryKey);
+        Assertions.assertThat(dictionaryIds).hasSize(1);
+        String dictionaryId = dictionaryIds.iterator().next();
+
+        // Verify the events, all compressed with the dictionary, since the sample is complete with the first batch.
+        for (String message : messages) {
+            byte[] payload = jedis.lpop(redisKeyBytes);
+            byte[] event = RedisCompressionDictionary.decompress(payload, id -> {
+                Assertions.assertThat(id).isEqualTo(dictionaryId);
+                return jedis.hget(redisDictionaryKeyBytes, id.getBytes(StandardCharsets.US_ASCII));
+            });
+            Assertions.assertThat(new String(event, StandardCharsets.UTF_8)).isEqualTo(message);
+        }
+
+        // Verify the throttler counters.
+        RedisAppender appender = loggerContextExtension.getConfig().getAppender(redisAppenderName);
+        Assertions.assertThat(appender.getJmxBean().getRedisPushSuccessCount()).isEqualTo(messages.length);
+
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.status.StatusLogger;
+import org.assertj.core.api.Assertions;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+class RedisAppenderEncoderThreadsTest {
+
+    private static final Logger LOGGER = StatusLogger.getLogger();
+
+    private static final String CLASS_NAME = RedisAppenderEncoderThreadsTest.class.getSimpleName();
+
+    private static final String LOGGER_PREFIX = "[" + CLASS_NAME + "]";
+
+    private final String redisHost = NetworkUtils.localHostName();
+
+    private final int redisPort = NetworkUtils.findUnusedPort(redisHost);
+
+    private final String redisUsername = String.format("%s-RedisUsername-%s:%d", CLASS_NAME, redisHost, redisPort);
+
+    private final String redisPassword = String.format("%s-RedisPassword-%s:%d", CLASS_NAME, redisHost, redisPort);
+
+    private final String redisKey = String.format("%s-RedisKey-%s:%d", CLASS_NAME, redisHost, redisPort);
+
+    private final String redisAppenderName = String.format("%s-RedisAppender-%s-%d", CLASS_NAME, redisHost, redisPort);
+
+    @Order(1)
+    @RegisterExtension
+    final RedisServerExtension redisServerExtension = new RedisServerExtension(redisPort, redisUsername, redisPassword);
+
+    @Order(2)
+    @RegisterExtension
+    final RedisClientExtension redisClientExtension = new RedisClientExtension(redisHost, redisPort, redisUsername, redisPassword);
+
+    @Order(3)
+    @RegisterExtension
+    final LoggerContextExtension loggerContextExtension =
+            new LoggerContextExtension(
+                    CLASS_NAME,
+                    redisAppenderName,
+                    configBuilder -> configBuilder.add(configBuilder
+                            .newAppender(redisAppenderName, "RedisAppender")
+                            .addAttribute("host", redisHost)
+                            .addAttribute("port", redisPort)
+                            .addAttribute("username", redisUsername)
+                            .addAttribute("password", redisPassword)
+                            .addAttribute("key", redisKey)
+                            .addAttribute("ignoreExceptions", false)
+                            .addAttribute("encoderThreadCount", 4)
+                            .add(configBuilder
+                                    .newLayout("PatternLayout")
+                                    .addAttribute("pattern", "%m"))
+                            .addComponent(configBuilder
+                                    .newComponent("RedisThrottlerConfig")
+                                    .addAttribute("bufferSize", 2_000)
+                                    .addAttribute("flushPeriodMillis", 100L)
+                                    .addAttribute("batchSize", 10))));
+
+    @Test
+    void events_should_be_pushed_in_order() {
+
+        // Log messages.
+        LOGGER.debug("{} logging messages", LOGGER_PREFIX);
+        Logger logger = loggerContextExtension.getLoggerContext().getLogger(RedisAppenderEncoderThreadsTest.class);
+        int messageCount = 1_000;
+        List<String> expectedMessages = new ArrayList<>(messageCount);
+        for (int messageIndex = 0; messageIndex < messageCount; messageIndex++) {
+            String message = "message-" + messageIndex;
+            logger.info(message);
+            expectedMessages.add(message);
+        }
+
+        // Wait for the messages to be pushed.
+        RedisAppender appender = loggerContextExtension.getConfig().getAppender(redisAppenderName);
+        Awaitility
+                .await("Redis write await")
+                .atMost(Duration.ofSeconds(10))
+                .untilAsserted(() -> Assertions
+                        .assertThat(appender.getJmxBean().getRedisPushSuccessCount())
+                        .isEqualTo(messageCount));
+
+        // Verify that the messages are pushed in order.
+        Assertions
+                .assertThat(redisClientExtension.getClient().lrange(redisKey, 0, -1))
+                .isEqualTo(expectedMessages);
+
+    }
+
+}
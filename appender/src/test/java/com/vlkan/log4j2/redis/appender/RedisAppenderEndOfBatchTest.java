@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.apache.logging.log4j.status.StatusLogger;
+import org.assertj.core.api.Assertions;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.time.Duration;
+
+class RedisAppenderEndOfBatchTest {
+
+    private static final Logger LOGGER = StatusLogger.getLogger();
+
+    private static final String CLASS_NAME = RedisAppenderEndOfBatchTest.class.getSimpleName();
+
+    private static final String LOGGER_PREFIX = "[" + CLASS_NAME + "]";
+
+    private final String redisHost = NetworkUtils.localHostName();
+
+    private final int redisPort = NetworkUtils.findUnusedPort(redisHost);
+
+    private final String redisUsername = String.format("%s-RedisUsername-%s:%d", CLASS_NAME, redisHost, redisPort);
+
+    private final String redisPassword = String.format("%s-RedisPassword-%s:%d", CLASS_NAME, redisHost, redisPort);
+
+    private final String redisKey = String.format("%s-RedisKey-%s:%d", CLASS_NAME, redisHost, redisPort);
+
+    private final String redisAppenderName = String.format("%s-RedisAppender-%s-%d", CLASS_NAME, redisHost, redisPort);
+
+    @Order(1)
+    @RegisterExtension
+    final RedisServerExtension redisServerExtension = new RedisServerExtension(redisPort, redisUsername, redisPassword);
+
+    @Order(2)
+    @RegisterExtension
+    final RedisClientExtension redisClientExtension = new RedisClientExtension(redisHost, redisPort, redisUsername, redisPassword);
+
+    @Order(3)
+    @RegisterExtension
+    final LoggerContextExtension loggerContextExtension =
+            new LoggerContextExtension(
+                    CLASS_NAME,
+                    redisAppenderName,
+                    configBuilder -> configBuilder.add(configBuilder
+                            .newAppender(redisAppenderName, "RedisAppender")
+                            .addAttribute("host", redisHost)
+                            .addAttribute("port", redisPort)
+                            .addAttribute("username", redisUsername)
+                            .addAttribute("password", redisPassword)
+                            .addAttribute("key", redisKey)
+                            .addAttribute("ignoreExceptions", false)
+                            .add(configBuilder
+                                    .newLayout("PatternLayout")
+                                    .addAttribute("pattern", "%m"))
+                            .addComponent(configBuilder
+                                    .newComponent("RedisThrottlerConfig")
+                                    // Neither the batch size, nor the flush period is reached by the test.
+                                    .addAttribute("flushPeriodMillis", 60_000L)
+                                    .addAttribute("batchSize", 100))));
+
+    @Test
+    void partial_batches_should_be_pushed_at_end_of_batch() throws InterruptedException {
+
+        // Append events without an end-of-batch signal.
+        LOGGER.debug("{} appending events", LOGGER_PREFIX);
+        RedisAppender appender = loggerContextExtension.getConfig().getAppender(redisAppenderName);
+        appender.append(createEvent("foo", false));
+        appender.append(createEvent("bar", false));
+
+        // Verify that events wait for the batch to fill up.
+        Thread.sleep(500);
+        Assertions.assertThat(appender.getJmxBean().getRedisPushSuccessCount()).isZero();
+
+        // Append an event marking the end of batch.
+        appender.append(createEvent("baz", true));
+
+        // Verify that the partial batch is pushed right away.
+        Awaitility
+                .await("Redis write await")
+                .atMost(Duration.ofSeconds(5))
+                .untilAsserted(() -> Assertions
+                        .assertThat(appender.getJmxBean().getRedisPushSuccessCount())
+                        .isEqualTo(3));
+        Assertions
+                .assertThat(redisClientExtension.getClient().lrange(redisKey, 0, -1))
+                .containsExactly("foo", "bar", "baz");
+
+    }
+
+    private static LogEvent createEvent(String message, boolean endOfBatch) {
+        return Log4jLogEvent
+                .newBuilder()
+                .setLoggerName(CLASS_NAME)
+                .setLevel(Level.INFO)
+                .setMessage(new SimpleMessage(message))
+                .setEndOfBatch(endOfBatch)
+                .build();
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.status.StatusLogger;
+import org.assertj.core.api.Assertions;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import redis.clients.jedis.Jedis;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class RedisAppenderFlushThreadTest {
+
+    private static final Logger LOGGER = StatusLogger.getLogger();
+
+    private static final String CLASS_NAME = RedisAppenderFlushThreadTest.class.getSimpleName();
+
+    private static final String LOGGER_PREFIX = "[" + CLASS_NAME + "]";
+
+    private static final int FLUSH_THREAD_COUNT = 2;
+
+    private static final int KEY_SHARD_COUNT = 4;
+
+    private final String redisHost = NetworkUtils.localHostName();
+
+    private final int redisPort = NetworkUtils.findUnusedPort(redisHost);
+
+    private final String redisUsername = String.format("%s-RedisUsername-%s:%d", CLASS_NAME, redisHost, redisPort);
+
+    private final String redisPassword = String.format("%s-RedisPassword-%s:%d", CLASS_NAME, redisHost, redisPort);
+
+    private final String redisKey = String.format("%s-RedisKey-%s:%d", CLASS_NAME, redisHost, redisPort);
+
+    private final String redisAppenderName = String.format("%s-RedisAppender-%s-%d", CLASS_NAME, redisHost, redisPort);
+
+    @Order(1)
+    @RegisterExtension
+    final RedisServerExtension redisServerExtension = new RedisServerExtension(redisPort, redisUsername, redisPassword);
+
+    @Order(2)
+    @RegisterExtension
+    final RedisClientExtension redisClientExtension = new RedisClientExtension(redisHost, redisPort, redisUsername, redisPassword);
+
+    @Order(3)
+    @RegisterExtension
+    final LoggerContextExtension loggerContextExtension =
+            new LoggerContextExtension(
+                    CLASS_NAME,
+                    redisAppenderName,
+                    configBuilder -> configBuilder.add(configBuilder
+                            .newAppender(redisAppenderName, "RedisAppender")
+                            .addAttribute("host", redisHost)
+                            .addAttribute("port", redisPort)
+                            .addAttribute("username", redisUsername)
+                            .addAttribute("password", redisPassword)
+                            .addAttribute("key", redisKey)
+                            .addAttribute("ignoreExceptions", false)
+                            .add(configBuilder
+                                    .newLayout("PatternLayout")
+                                    .addAttribute("pattern", "%m"))
+                            .addAttribute("keyShardCount", KEY_SHARD_COUNT)
+                            .addComponent(configBuilder
+                                    .newComponent("RedisThrottlerConfig")
+                                    .addAttribute("bufferSize", 1_000)
+                                    .addAttribute("batchSize", 10)
+                                    .addAttribute("flushPeriodMillis", 100L)
+                                    .addAttribute("flushThreadCount", FLUSH_THREAD_COUNT)
+                                    .addAttribute("orderedFlushEnabled", true))));
+
+    @Test
+    void ordered_flush_should_preserve_order_per_key() {
+
+        // Log messages.
+        LOGGER.debug("{} logging messages", LOGGER_PREFIX);
+        Logger logger = loggerContextExtension.getLoggerContext().getLogger(RedisAppenderFlushThreadTest.class);
+        int messageCount = 500;
+        for (int messageIndex = 0; messageIndex < messageCount; messageIndex++) {
+            logger.info("{}", messageIndex);
+        }
+
+        // Wait for the messages to be pushed.
+        RedisAppender appender = loggerContextExtension.getConfig().getAppender(redisAppenderName);
+        Awaitility
+                .await("Redis write await")
+                .atMost(Duration.ofSeconds(10))
+                .untilAsserted(() -> Assertions
+                        .assertThat(appender.getJmxBean().getRedisPushSuccessCount())
+                        .isEqualTo(messageCount));
+
+        // Verify that every shard is ordered, and all messages are there.
+        Jedis jedis = redisClientExtension.getClient();
+        List<Integer> messages = new ArrayList<>(messageCount);
+        for (int shardIndex = 0; shardIndex < KEY_SHARD_COUNT; shardIndex++) {
+            String shardKey = String.format("%s:{%d}", redisKey, shardIndex);
+            List<Integer> shardMessages = jedis
+                    .lrange(shardKey, 0, -1)
+                    .stream()
+                    .map(Integer::parseInt)
+                    .collect(Collectors.toList());
+            Assertions.assertThat(shardMessages).isSorted();
+            messages.addAll(shardMessages);
+        }
+        List<Integer> expectedMessages = IntStream.range(0, messageCount).boxed().collect(Collectors.toList());
+        Assertions.assertThat(messages).containsExactlyInAnyOrderElementsOf(expectedMessages);
+
+    }
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.status.StatusLogger;
+import org.assertj.core.api.Assertions;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import redis.clients.jedis.Jedis;
+
+import java.time.Duration;
+import java.util.List;
+
+class RedisAppenderOverflowTest {
+
+    private static final Logger LOGGER = StatusLogger.getLogger();
+
+    private static final String CLASS_NAME = RedisAppenderOverflowTest.class.getSimpleName();
+
+    private static final String LOGGER_PREFIX = "[" + CLASS_NAME + "]";
+
+    private final String redisHost = NetworkUtils.localHostName();
+
+    private final int redisPort = NetworkUtils.findUnusedPort(redisHost);
+
+    private final String redisUsername = String.format("%s-RedisUsername-%s:%d", CLASS_NAME, redisHost, redisPort);
+
+    private final String redisPassword = String.format("%s-RedisPassword-%s:%d", CLASS_NAME, redisHost, redisPort);
+
+    private final String redisKey = String.format("%s-RedisKey-%s:%d", CLASS_NAME, redisHost, redisPort);
+
+    private final String redisAppenderName = String.format("%s-RedisAppender-%s-%d", CLASS_NAME, redisHost, redisPort);
+
+    @Order(1)
+    @RegisterExtension
+    final RedisServerExtension redisServerExtension = new RedisServerExtension(redisPort, redisUsername, redisPassword);
+
+    @Order(2)
+    @RegisterExtension
+    final RedisClientExtension redisClientExtension = new RedisClientExtension(redisHost, redisPort, redisUsername, redisPassword);
+
+    @Order(3)
+    @RegisterExtension
+    final LoggerContextExtension loggerContextExtension =
+            new LoggerContextExtension(
+                    CLASS_NAME,
+                    redisAppenderName,
+                    configBuilder -> configBuilder.add(configBuilder
+                            .newAppender(redisAppenderName, "RedisAppender")
+                            .addAttribute("host", redisHost)
+                            .addAttribute("port", redisPort)
+                            .addAttribute("username", redisUsername)
+                            .addAttribute("password", redisPassword)
+                            .addAttribute("key", redisKey)
+                            .addAttribute("ignoreExceptions", true)
+                            .add(configBuilder
+                                    .newLayout("PatternLayout")
+                                    .addAttribute("pattern", "%level %m"))
+                            .addComponent(configBuilder
+                                    .newComponent("RedisThrottlerConfig")
+                                    .addAttribute("bufferSize", 10)
+                                    .addAttribute("batchSize", 2)
+                                    .addAttribute("flushPeriodMillis", 100L)
+                                    .addAttribute("overflowPolicy", RedisThrottlerConfig.PRIORITY_OVERFLOW_POLICY)
+                                    .addAttribute("overflowReservedBufferSize", 5))));
+
+    @Test
+    void priority_policy_should_reserve_buffer_for_severe_events() {
+
+        // Stall the flush thread by pausing Redis clients.
+        Jedis jedis = redisClientExtension.getClient();
+        jedis.clientPause(1_000);
+
+        // Overflow the buffer with INFO messages, and then log ERROR ones.
+        LOGGER.debug("{} logging messages", LOGGER_PREFIX);
+        Logger logger = loggerContextExtension.getLoggerContext().getLogger(RedisAppenderOverflowTest.class);
+        int infoMessageCount = 20;
+        for (int messageIndex = 0; messageIndex < infoMessageCount; messageIndex++) {
+            logger.info("{}", messageIndex);
+        }
+        int errorMessageCount = 5;
+        for (int messageIndex = 0; messageIndex < errorMessageCount; messageIndex++) {
+            logger.error("{}", messageIndex);
+        }
+
+        // Wait for the accepted messages to be pushed.
+        RedisAppender appender = loggerContextExtension.getConfig().getAppender(redisAppenderName);
+        RedisThrottlerJmxBean jmxBean = appender.getJmxBean();
+        long droppedMessageCount = jmxBean.getUnavailableBufferSpaceFailureCount();
+        Assertions.assertThat(droppedMessageCount).isPositive();
+        long expectedMessageCount = infoMessageCount + errorMessageCount - droppedMessageCount;
+        Awaitility
+                .await("Redis write await")
+                .atMost(Duration.ofSeconds(10))
+                .untilAsserted(() -> Assertions
+                        .assertThat(jmxBean.getRedisPushSuccessCount())
+                        .isEqualTo(expectedMessageCount));
+
+        // Verify that only INFO messages are dropped.
+        List<String> messages = jedis.lrange(redisKey, 0, -1);
+        Assertions.assertThat(messages).hasSize((int) expectedMessageCount);
+        Assertions
+                .assertThat(messages.stream().filter(message -> message.startsWith("ERROR ")))
+                .containsExactly("ERROR 0", "ERROR 1", "ERROR 2", "ERROR 3", "ERROR 4");
+
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.status.StatusLogger;
+import org.assertj.core.api.Assertions;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import redis.clients.jedis.Jedis;
+import redis.embedded.RedisServer;
+
+import java.time.Duration;
+
+class RedisAppenderRetryTest {
+
+    private static final Logger LOGGER = StatusLogger.getLogger();
+
+    private static final String CLASS_NAME = RedisAppenderRetryTest.class.getSimpleName();
+
+    private static final String LOGGER_PREFIX = "[" + CLASS_NAME + "]";
+
+    private final String redisHost = NetworkUtils.localHostName();
+
+    private final int redisPort = NetworkUtils.findUnusedPort(redisHost);
+
+    private final String redisUsername = String.format("%s-RedisUsername-%s:%d", CLASS_NAME, redisHost, redisPort);
+
+    private final String redisPassword = String.format("%s-RedisPassword-%s:%d", CLASS_NAME, redisHost, redisPort);
+
+    private final String redisKey = String.format("%s-RedisKey-%s:%d", CLASS_NAME, redisHost, redisPort);
+
+    private final String redisAppenderName = String.format("%s-RedisAppender-%s-%d", CLASS_NAME, redisHost, redisPort);
+
+    @Order(1)
+    @RegisterExtension
+    final RedisServerExtension redisServerExtension = new RedisServerExtension(redisPort, redisUsername, redisPassword);
+
+    @Order(2)
+    @RegisterExtension
+    final RedisClientExtension redisClientExtension = new RedisClientExtension(redisHost, redisPort, redisUsername, redisPassword);
+
+    @Order(3)
+    @RegisterExtension
+    final LoggerContextExtension loggerContextExtension =
+            new LoggerContextExtension(
+                    CLASS_NAME,
+                    redisAppenderName,
+                    configBuilder -> configBuilder.add(configBuilder
+                            .newAppender(redisAppenderName, "RedisAppender")
+                            .addAttribute("host", redisHost)
+                            .addAttribute("port", redisPort)
+                            .addAttribute("username", redisUsername)
+                            .addAttribute("password", redisPassword)
+                            .addAttribute("key", redisKey)
+                            .addAttribute("ignoreExceptions", false)
+                            .add(configBuilder
+                                    .newLayout("PatternLayout")
+                                    .addAttribute("pattern", "%m"))
+                            .addComponent(configBuilder
+                                    .newComponent("RedisThrottlerConfig")
+                                    .addAttribute("batchSize", 1)
+                                    .addAttribute("maxRetryCount", 100)
+                                    .addAttribute("retryBackoffMillis", 10L)
+                                    .addAttribute("maxRetryBackoffMillis", 50L))));
+
+    @Test
+    void failed_pushes_should_be_retried_until_server_is_back() {
+
+        // Stop the server.
+        LOGGER.debug("{} stopping the server", LOGGER_PREFIX);
+        RedisServer redisServer = redisServerExtension.getRedisServer();
+        redisServer.stop();
+
+        // Log a message, which should be retried.
+        LOGGER.debug("{} logging the message", LOGGER_PREFIX);
+        Logger logger = loggerContextExtension.getLoggerContext().getLogger(RedisAppenderRetryTest.class);
+        logger.error("retried");
+        RedisAppender appender = loggerContextExtension.getConfig().getAppender(redisAppenderName);
+        RedisThrottlerJmxBean jmxBean = appender.getJmxBean();
+        Awaitility
+                .await("Redis push retry await")
+                .atMost(Duration.ofSeconds(5))
+                .untilAsserted(() -> Assertions.assertThat(jmxBean.getRedisPushRetryCount()).isPositive());
+
+        // Restart the server.
+        LOGGER.debug("{} restarting the server", LOGGER_PREFIX);
+        redisServer.start();
+
+        // Verify the persistence of the message.
+        Awaitility
+                .await("Redis write await")
+                .atMost(Duration.ofSeconds(5))
+                .untilAsserted(() -> Assertions.assertThat(jmxBean.getRedisPushSuccessCount()).isEqualTo(1));
+        // The client of the extension is disconnected by the restart, hence using a new one.
+        try (Jedis jedis = new Jedis(redisHost, redisPort)) {
+            jedis.auth(redisUsername, redisPassword);
+            Assertions.assertThat(jedis.lpop(redisKey)).isEqualTo("retried");
+        }
+        Assertions.assertThat(jmxBean.getRedisPushFailureCount()).isEqualTo(0);
+
+    }
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.status.StatusLogger;
+import org.assertj.core.api.Assertions;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+import redis.clients.jedis.Jedis;
+import redis.embedded.RedisServer;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+class RedisAppenderSpillTest {
+
+    private static final Logger LOGGER = StatusLogger.getLogger();
+
+    private static final String CLASS_NAME = RedisAppenderSpillTest.class.getSimpleName();
+
+    private static final String LOGGER_PREFIX = "[" + CLASS_NAME + "]";
+
+    // Static, so that it is injected before the logger context configuration gets created.
+    @TempDir
+    static Path spillDirectory;
+
+    private final String redisHost = NetworkUtils.localHostName();
+
+    private final int redisPort = NetworkUtils.findUnusedPort(redisHost);
+
+    private final String redisUsername = String.format("%s-RedisUsername-%s:%d", CLASS_NAME, redisHost, redisPort);
+
+    private final String redisPassword = String.format("%s-RedisPassword-%s:%d", CLASS_NAME, redisHost, redisPort);
+
+    private final String redisKey = String.format("%s-RedisKey-%s:%d", CLASS_NAME, redisHost, redisPort);
+
+    private final String redisAppenderName = String.format("%s-RedisAppender-%s-%d", CLASS_NAME, redisHost, redisPort);
+
+    @Order(1)
+    @RegisterExtension
+    final RedisServerExtension redisServerExtension = new RedisServerExtension(redisPort, redisUsername, redisPassword);
+
+    @Order(2)
+    @RegisterExtension
+    final RedisClientExtension redisClientExtension = new RedisClientExtension(redisHost, redisPort, redisUsername, redisPassword);
+
+    @Order(3)
+    @RegisterExtension
+    final LoggerContextExtension loggerContextExtension =
+            new LoggerContextExtension(
+                    CLASS_NAME,
+                    redisAppenderName,
+                    configBuilder -> configBuilder.add(configBuilder
+                            .newAppender(redisAppenderName, "RedisAppender")
+                            .addAttribute("host", redisHost)
+                            .addAttribute("port", redisPort)
+                            .addAttribute("username", redisUsername)
+                            .addAttribute("password", redisPassword)
+                            .addAttribute("key", redisKey)
+                            .addAttribute("ignoreExceptions", false)
+                            .add(configBuilder
+                                    .newLayout("PatternLayout")
+                                    .addAttribute("pattern", "%m"))
+                            .addComponent(configBuilder
+                                    .newComponent("RedisThrottlerConfig")
+                                    // This test needs a short `flushPeriodMillis` to replay the spilled events without waiting for new ones.
+                                    .addAttribute("flushPeriodMillis", 100L)
+                                    // This test needs a `batchSize` of 1, so that each append operation will trigger a flush.
+                                    .addAttribute("batchSize", 1)
+                                    .addComponent(configBuilder
+                                            .newComponent("RedisSpillQueueConfig")
+                                            .addAttribute("directory", spillDirectory.toString())
+                                            .addAttribute("segmentByteCount", 1024)
+                                            .addAttribute("maxByteCount", 4096)))));
+
+    @Test
+    void failed_pushes_should_be_spilled_and_replayed() {
+
+        // Create the logger.
+        LOGGER.debug("{} creating the logger", LOGGER_PREFIX);
+        Logger logger = loggerContextExtension.getLoggerContext().getLogger(RedisAppenderSpillTest.class);
+
+        // Log the 1st message and verify its persistence.
+        LOGGER.debug("{} logging the 1st message", LOGGER_PREFIX);
+        logger.error("1st");
+        Jedis jedis = redisClientExtension.getClient();
+        Awaitility
+                .await("Redis write await")
+                .atMost(Duration.ofSeconds(5))
+                .untilAsserted(() -> Assertions.assertThat(jedis.lpop(redisKey)).isEqualTo("1st"));
+
+        // Stop the server.
+        LOGGER.debug("{} stopping the server", LOGGER_PREFIX);
+        RedisServer redisServer = redisServerExtension.getRedisServer();
+        jedis.close();
+        redisServer.stop();
+
+        // Log the 2nd and 3rd messages, which should be spilled rather than failing loudly.
+        LOGGER.debug("{} logging the 2nd and 3rd messages", LOGGER_PREFIX);
+        RedisAppender appender = loggerContextExtension.getConfig().getAppender(redisAppenderName);
+        RedisThrottlerJmxBean jmxBean = appender.getJmxBean();
+        logger.error("2nd");
+        Awaitility
+                .await("spill await")
+                .atMost(Duration.ofSeconds(5))
+                .untilAsserted(() -> Assertions.assertThat(jmxBean.getSpilledEventCount()).isEqualTo(1));
+        Assertions.assertThatCode(() -> logger.error("3rd")).doesNotThrowAnyException();
+        Awaitility
+                .await("spill await")
+                .atMost(Duration.ofSeconds(5))
+                .untilAsserted(() -> Assertions.assertThat(jmxBean.getSpilledEventCount()).isEqualTo(2));
+
+        // Start the server again.
+        LOGGER.debug("{} starting server again", LOGGER_PREFIX);
+        redisServer.start();
+        jedis.connect();
+        jedis.auth(redisUsername, redisPassword);
+
+        // Verify that the spilled messages are replayed in order.
+        Awaitility
+                .await("replay await")
+                .atMost(Duration.ofSeconds(5))
+                .untilAsserted(() -> Assertions.assertThat(jedis.llen(redisKey)).isEqualTo(2));
+        Assertions.assertThat(jedis.lpop(redisKey)).isEqualTo("2nd");
+        Assertions.assertThat(jedis.lpop(redisKey)).isEqualTo("3rd");
+
+        // Verify the throttler counters.
+        Assertions.assertThat(jmxBean.getTotalEventCount()).isEqualTo(3);
+        Assertions.assertThat(jmxBean.getIgnoredEventCount()).isEqualTo(0);
+        Assertions.assertThat(jmxBean.getRedisPushSuccessCount()).isEqualTo(1);
+        Assertions.assertThat(jmxBean.getRedisPushFailureCount()).isEqualTo(2);
+        Assertions.assertThat(jmxBean.getReplayedEventCount()).isEqualTo(2);
+        Assertions.assertThat(jmxBean.getSpillFailureCount()).isEqualTo(0);
+
+    }
+
+}
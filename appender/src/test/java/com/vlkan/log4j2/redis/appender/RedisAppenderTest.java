@@ -184,6 +184,12 @@ class RedisAppenderTest {
         Assertions.assertThat(jmxBean.getUnavailableBufferSpaceFailureCount()).isEqualTo(0);
         Assertions.assertThat(jmxBean.getRedisPushSuccessCount()).isEqualTo(expectedRedisPushSuccessCount);
         Assertions.assertThat(jmxBean.getRedisPushFailureCount()).isEqualTo(0);
+        Assertions.assertThat(jmxBean.getRedisPushBatchSizeMax()).isBetween(1L, (long) expectedRedisPushSuccessCount);
+        Assertions.assertThat(jmxBean.getRedisPushLatencyNanosP50()).isPositive();
+        Assertions.assertThat(jmxBean.getEventByteCountMax()).isPositive();
+        Assertions.assertThat(jmxBean.getEventDeliveryLatencyNanosMax())
+                .isGreaterThanOrEqualTo(jmxBean.getEventDeliveryLatencyNanosP50())
+                .isPositive();
 
     }
 
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.ContextDataFactory;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.core.time.MutableInstant;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.logging.log4j.util.StringMap;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+class RedisBinaryLayoutTest {
+
+    private static final RedisBinaryLayout LAYOUT = RedisBinaryLayout.newBuilder().build();
+
+    @Test
+    void events_should_survive_round_trip() {
+
+        // Encode an event with non-ASCII text and context data.
+        Map<String, String> contextData = new LinkedHashMap<>();
+        contextData.put("user", "Volkan Yazıcı");
+        contextData.put("emoji", "😀");
+        contextData.put("empty", "");
+        LogEvent event = createEvent(Level.WARN, "ünïcödé {}", contextData, null);
+        byte[] bytes = LAYOUT.toByteArray(event);
+
+        // Verify the decoded event.
+        RedisBinaryEvent decodedEvent = RedisBinaryEvent.decode(bytes);
+        Assertions.assertThat(decodedEvent.getTimeMillis()).isEqualTo(event.getInstant().getEpochMillisecond());
+        Assertions.assertThat(decodedEvent.getNanoOfMillisecond()).isEqualTo(event.getInstant().getNanoOfMillisecond());
+        Assertions.assertThat(decodedEvent.getLevel()).isEqualTo(Level.WARN);
+        Assertions.assertThat(decodedEvent.getLoggerName()).isEqualTo(event.getLoggerName());
+        Assertions.assertThat(decodedEvent.getThreadName()).isEqualTo(event.getThreadName());
+        Assertions.assertThat(decodedEvent.getMessage()).isEqualTo("ünïcödé 1");
+        Assertions.assertThat(decodedEvent.getContextData()).isEqualTo(contextData);
+        Assertions.assertThat(decodedEvent.getThrown()).isNull();
+
+        // Verify that the encoding is compact, i.e., no keys are written.
+        int textLength = event.getLoggerName().length()
+                + event.getThreadName().length()
+                + "ünïcödé 1".getBytes(StandardCharsets.UTF_8).length
+                + contextData
+                .entrySet()
+                .stream()
+                .mapToInt(entry -> (entry.getKey() + entry.getValue()).getBytes(StandardCharsets.UTF_8).length)
+                .sum();
+        Assertions.assertThat(bytes.length).isLessThan(textLength + 24);
+
+    }
+
+    @Test
+    void custom_levels_should_survive_round_trip() {
+        Level level = Level.forName("NOTICE", 350);
+        byte[] bytes = LAYOUT.toByteArray(createEvent(level, "foo", new LinkedHashMap<>(), null));
+        RedisBinaryEvent decodedEvent = RedisBinaryEvent.decode(bytes);
+        Assertions.assertThat(decodedEvent.getLevel()).isSameAs(level);
+        Assertions.assertThat(decodedEvent.getLevel().intLevel()).isEqualTo(350);
+    }
+
+    @Test
+    void stack_traces_should_be_encoded_if_enabled() {
+        LogEvent event = createEvent(Level.ERROR, "foo", new LinkedHashMap<>(), new IllegalStateException("bar"));
+
+        // Verify the stack trace with the default layout.
+        String thrown = RedisBinaryEvent.decode(LAYOUT.toByteArray(event)).getThrown();
+        Assertions.assertThat(thrown)
+                .startsWith(IllegalStateException.class.getName() + ": bar")
+                .contains(RedisBinaryLayoutTest.class.getName());
+
+        // Verify the layout with stack traces disabled.
+        RedisBinaryLayout layout = RedisBinaryLayout.newBuilder().setStackTraceEnabled(false).build();
+        Assertions.assertThat(RedisBinaryEvent.decode(layout.toByteArray(event)).getThrown()).isNull();
+    }
+
+    @Test
+    void encode_should_match_toByteArray() {
+        LogEvent event = createEvent(Level.INFO, "foo", new LinkedHashMap<>(), new IllegalStateException("bar"));
+        byte[] expectedBytes = LAYOUT.toByteArray(event);
+
+        // Verify encoding into the destination of the appender, which grows on demand.
+        RedisByteBufferDestination destination = new RedisByteBufferDestination(4, 1024);
+        LAYOUT.encode(event, destination);
+        Assertions.assertThat(destination.toByteArray()).isEqualTo(expectedBytes);
+    }
+
+    @Test
+    void malformed_input_should_be_rejected() {
+        byte[] bytes = LAYOUT.toByteArray(createEvent(Level.INFO, "foo", new LinkedHashMap<>(), null));
+        Assertions
+                .assertThatThrownBy(() -> RedisBinaryEvent.decode(Arrays.copyOf(bytes, bytes.length - 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        bytes[0] = 99;
+        Assertions
+                .assertThatThrownBy(() -> RedisBinaryEvent.decode(bytes))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("unsupported format version");
+    }
+
+    private static LogEvent createEvent(Level level, String message, Map<String, String> contextData, Throwable thrown) {
+        MutableInstant instant = new MutableInstant();
+        instant.initFromEpochMilli(1_700_000_000_123L, 456_789);
+        StringMap contextDataMap = ContextDataFactory.createContextData();
+        contextData.forEach(contextDataMap::putValue);
+        return Log4jLogEvent
+                .newBuilder()
+                .setLoggerName(RedisBinaryLayoutTest.class.getName())
+                .setLevel(level)
+                .setInstant(instant)
+                .setThreadName("main")
+                .setMessage(new ParameterizedMessage(message, 1))
+                .setContextData(contextDataMap)
+                .setThrown(thrown)
+                .build();
+    }
+
+}
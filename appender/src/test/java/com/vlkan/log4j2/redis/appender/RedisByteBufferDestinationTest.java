@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.core.layout.PatternLayout;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+
+class RedisByteBufferDestinationTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 100, 10_000})
+    void encoding_should_match_toByteArray(int messageLength) {
+
+        // Create the layout and the event.
+        PatternLayout layout = PatternLayout
+                .newBuilder()
+                .withPattern("%level %message%n")
+                .withCharset(StandardCharsets.UTF_8)
+                .build();
+        StringBuilder messageBuilder = new StringBuilder();
+        for (int i = 0; i < messageLength; i++) {
+            messageBuilder.append(i % 2 == 0 ? 'x' : 'ğ');
+        }
+        LogEvent event = Log4jLogEvent
+                .newBuilder()
+                .setLevel(Level.INFO)
+                .setMessage(new SimpleMessage(messageBuilder.toString()))
+                .build();
+
+        // Encode the event twice using the same destination, which needs to grow for long messages.
+        byte[] expectedBytes = layout.toByteArray(event);
+        RedisByteBufferDestination destination = new RedisByteBufferDestination(16, 64);
+        for (int i = 0; i < 2; i++) {
+            layout.encode(event, destination);
+            Assertions.assertThat(destination.toByteArray()).isEqualTo(expectedBytes);
+            destination.reset();
+            Assertions.assertThat(destination.getByteBuffer().position()).isZero();
+            Assertions.assertThat(destination.getByteBuffer().capacity()).isLessThanOrEqualTo(64);
+        }
+
+    }
+
+}
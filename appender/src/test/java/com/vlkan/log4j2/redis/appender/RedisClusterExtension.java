@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.status.StatusLogger;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Protocol;
+import redis.embedded.RedisServer;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Redis cluster of masters without replicas, with slots evenly distributed.
+ */
+class RedisClusterExtension implements BeforeEachCallback, AfterEachCallback {
+
+    private static final Logger LOGGER = StatusLogger.getLogger();
+
+    private final String host;
+
+    private final int[] ports;
+
+    private final String username;
+
+    private final String password;
+
+    private final RedisServer[] redisServers;
+
+    RedisClusterExtension(String host, int[] ports, String username, String password) {
+        this.host = host;
+        this.ports = ports;
+        this.username = username;
+        this.password = password;
+        this.redisServers = new RedisServer[ports.length];
+        for (int nodeIndex = 0; nodeIndex < ports.length; nodeIndex++) {
+            int port = ports[nodeIndex];
+            try {
+                redisServers[nodeIndex] = RedisServer
+                        .builder()
+                        .port(port)
+                        .bind("0.0.0.0")
+                        .setting("cluster-enabled yes")
+                        .setting("cluster-config-file nodes-" + port + ".conf")
+                        .setting("user " + username + " on +@all allkeys allchannels >" + password)
+                        .build();
+            } catch (Exception error) {
+                String message = String.format("failed creating Redis cluster node (port=%d)", port);
+                throw new RuntimeException(message, error);
+            }
+        }
+    }
+
+    String getNodes() {
+        return Arrays
+                .stream(ports)
+                .mapToObj(port -> host + ":" + port)
+                .collect(Collectors.joining(","));
+    }
+
+    Jedis createNodeClient(int nodeIndex) {
+        Jedis client = new Jedis(host, ports[nodeIndex]);
+        client.auth(username, password);
+        return client;
+    }
+
+    @Override
+    public void beforeEach(ExtensionContext ignored) {
+
+        // Start the nodes.
+        LOGGER.debug("starting Redis cluster nodes (ports={})", Arrays.toString(ports));
+        for (RedisServer redisServer : redisServers) {
+            redisServer.start();
+        }
+
+        // Distribute the slots and introduce the nodes to each other.
+        int slotCountPerNode = (Protocol.CLUSTER_HASHSLOTS + ports.length - 1) / ports.length;
+        for (int nodeIndex = 0; nodeIndex < ports.length; nodeIndex++) {
+            try (Jedis client = createNodeClient(nodeIndex)) {
+                int[] slots = IntStream
+                        .range(nodeIndex * slotCountPerNode, Math.min(Protocol.CLUSTER_HASHSLOTS, (nodeIndex + 1) * slotCountPerNode))
+                        .toArray();
+                client.clusterAddSlots(slots);
+                if (nodeIndex > 0) {
+                    client.clusterMeet("127.0.0.1", ports[0]);
+                }
+            }
+        }
+
+        // Wait for the cluster to converge.
+        LOGGER.debug("waiting for the Redis cluster to converge");
+        for (int nodeIndex = 0; nodeIndex < ports.length; nodeIndex++) {
+            try (Jedis client = createNodeClient(nodeIndex)) {
+                Awaitility
+                        .await("Redis cluster convergence")
+                        .pollInterval(Duration.ofMillis(100))
+                        .atMost(Duration.ofSeconds(30))
+                        .until(() -> client.clusterInfo().contains("cluster_state:ok"));
+            }
+        }
+
+    }
+
+    @Override
+    public void afterEach(ExtensionContext ignored) {
+        LOGGER.debug("stopping Redis cluster nodes (ports={})", Arrays.toString(ports));
+        for (RedisServer redisServer : redisServers) {
+            redisServer.stop();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RedisClusterExtension{ports=%s}", Arrays.toString(ports));
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+class RedisCompressionCodecTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {RedisCompressionConfig.DEFLATE_CODEC, RedisCompressionConfig.GZIP_CODEC})
+    void codec_should_round_trip(String codecName) {
+
+        // Create the codec.
+        RedisCompressionCodec codec = RedisCompressionConfig
+                .newBuilder()
+                .setCodec(codecName)
+                .build()
+                .getCodec();
+
+        // Verify round trips of various inputs, consecutively compressed by the same thread.
+        for (int repetitionCount : new int[]{0, 1, 10, 10_000}) {
+            byte[] input = repeat("INFO [main] com.acme.Foo - Hello, world!\n", repetitionCount);
+            byte[] compressed = codec.compress(input);
+            Assertions.assertThat(codec.decompress(compressed)).isEqualTo(input);
+            if (repetitionCount > 1) {
+                Assertions.assertThat(compressed.length).isLessThan(input.length);
+            }
+        }
+
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 1_000})
+    void gzip_codec_should_be_compatible_with_GZIPInputStream(int repetitionCount) throws IOException {
+        byte[] input = repeat("Hello, world!", repetitionCount);
+        byte[] compressed = new RedisGzipCompressionCodec().compress(input);
+        try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            Assertions.assertThat(inputStream).hasBinaryContent(input);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 10})
+    void batch_frame_should_round_trip(int eventCount) {
+        byte[][] events = new byte[eventCount][];
+        for (int eventIndex = 0; eventIndex < eventCount; eventIndex++) {
+            events[eventIndex] = repeat("x", eventIndex);
+        }
+        byte[] frame = RedisBatchFrame.encode(events);
+        Assertions.assertThat(RedisBatchFrame.decode(frame)).isDeepEqualTo(events);
+    }
+
+    private static byte[] repeat(String text, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append(text);
+        }
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+class RedisCompressionDictionaryTest {
+
+    @Test
+    void dictionary_should_improve_compression_of_small_events() {
+
+        // Train a dictionary.
+        Random random = new Random(0);
+        List<byte[]> samples = createEvents(random, 200);
+        RedisCompressionDictionary dictionary = RedisCompressionDictionary.train(samples, 4_096);
+        Assertions.assertThat(dictionary).isNotNull();
+        Assertions.assertThat(dictionary.getBytes().length).isLessThanOrEqualTo(4_096);
+        Assertions.assertThat(dictionary.getId()).matches("[0-9a-f]{8}");
+
+        // Compress unseen events with and without the dictionary.
+        RedisDeflateCompressionCodec codec = new RedisDeflateCompressionCodec();
+        long plainLength = 0;
+        long dictionaryLength = 0;
+        for (byte[] event : createEvents(random, 100)) {
+            byte[] plainPayload = codec.compress(event);
+            byte[] dictionaryPayload = codec.compress(event, dictionary.getBytes());
+            plainLength += plainPayload.length;
+            dictionaryLength += dictionaryPayload.length;
+
+            // Verify round trips.
+            Assertions
+                    .assertThat(RedisCompressionDictionary.decompress(plainPayload, id -> null))
+                    .isEqualTo(event);
+            Assertions
+                    .assertThat(RedisCompressionDictionary.decompress(
+                            dictionaryPayload,
+                            id -> dictionary.getId().equals(id) ? dictionary.getBytes() : null))
+                    .isEqualTo(event);
+
+        }
+
+        // Verify the gain.
+        Assertions.assertThat(dictionaryLength).isLessThan(plainLength / 2);
+
+    }
+
+    @Test
+    void nothing_should_be_trained_without_recurring_content() {
+        List<byte[]> samples = Collections.singletonList("unique".getBytes(StandardCharsets.US_ASCII));
+        Assertions.assertThat(RedisCompressionDictionary.train(samples, 1_024)).isNull();
+    }
+
+    @Test
+    void unknown_dictionaries_should_be_rejected() {
+        List<byte[]> samples = createEvents(new Random(0), 10);
+        RedisCompressionDictionary dictionary = RedisCompressionDictionary.train(samples, 1_024);
+        byte[] payload = new RedisDeflateCompressionCodec().compress(samples.get(0), dictionary.getBytes());
+        Assertions
+                .assertThatThrownBy(() -> RedisCompressionDictionary.decompress(payload, id -> null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("unknown dictionary: " + dictionary.getId());
+    }
+
+    private static List<byte[]> createEvents(Random random, int eventCount) {
+        String[] loggerNames = {"com.acme.order.OrderService", "com.acme.payment.PaymentGateway", "com.acme.http.RequestLogger"};
+        String[] levels = {"INFO", "WARN", "DEBUG"};
+        List<byte[]> events = new ArrayList<>(eventCount);
+        for (int eventIndex = 0; eventIndex < eventCount; eventIndex++) {
+            String event = String.format(
+                    "{\"timestamp\":\"2024-05-%02dT10:%02d:%02d.%03dZ\",\"level\":\"%s\",\"logger\":\"%s\",\"thread\":\"http-nio-8080-exec-%d\",\"message\":\"request completed (userId=%d, durationMillis=%d)\"}",
+                    1 + random.nextInt(28),
+                    random.nextInt(60),
+                    random.nextInt(60),
+                    random.nextInt(1_000),
+                    levels[random.nextInt(levels.length)],
+                    loggerNames[random.nextInt(loggerNames.length)],
+                    random.nextInt(16),
+                    random.nextInt(1_000_000),
+                    random.nextInt(10_000));
+            events.add(event.getBytes(StandardCharsets.UTF_8));
+        }
+        return events;
+    }
+
+}
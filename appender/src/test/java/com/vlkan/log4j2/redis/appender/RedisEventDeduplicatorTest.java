@@ -0,0 +1,161 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.logging.log4j.message.ReusableParameterizedMessage;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class RedisEventDeduplicatorTest {
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void duplicates_should_be_counted_within_window() {
+        RedisEventDeduplicator deduplicator = createDeduplicator(16);
+        long fingerprint = RedisEventDeduplicator.fingerprint(createEvent("foo", new IllegalStateException("bar")));
+
+        // The first occurrence opens the window.
+        Assertions.assertThat(deduplicator.deduplicate(fingerprint, 0)).isZero();
+
+        // Duplicates within the window are dropped.
+        for (int i = 1; i <= 3; i++) {
+            Assertions.assertThat(deduplicator.deduplicate(fingerprint, i)).isEqualTo(-1);
+        }
+
+        // The first occurrence after the window carries the repeat count.
+        Assertions.assertThat(deduplicator.deduplicate(fingerprint, WINDOW_NANOS)).isEqualTo(3);
+        Assertions.assertThat(deduplicator.deduplicate(fingerprint, WINDOW_NANOS + 1)).isEqualTo(-1);
+        Assertions.assertThat(deduplicator.deduplicate(fingerprint, 2 * WINDOW_NANOS)).isEqualTo(1);
+        Assertions.assertThat(deduplicator.deduplicate(fingerprint, 3 * WINDOW_NANOS)).isZero();
+
+    }
+
+    @Test
+    void distinct_fingerprints_should_not_collapse() {
+        RedisEventDeduplicator deduplicator = createDeduplicator(16);
+        for (int i = 0; i < 10; i++) {
+            long fingerprint = RedisEventDeduplicator.fingerprint(createEvent("foo" + i, null));
+            Assertions.assertThat(deduplicator.deduplicate(fingerprint, 0)).isZero();
+        }
+    }
+
+    @Test
+    void oldest_fingerprints_should_be_evicted_when_full() {
+        // The smallest table has 4 slots.
+        RedisEventDeduplicator deduplicator = createDeduplicator(1);
+        for (long fingerprint = 1; fingerprint <= 5; fingerprint++) {
+            Assertions.assertThat(deduplicator.deduplicate(fingerprint, fingerprint)).isZero();
+        }
+        // The 1st fingerprint is evicted by the 5th one, and hence it is not recognized anymore.
+        Assertions.assertThat(deduplicator.deduplicate(1, 6)).isZero();
+        Assertions.assertThat(deduplicator.deduplicate(5, 7)).isEqualTo(-1);
+    }
+
+    @Test
+    void fingerprint_should_cover_stack_traces() {
+        LogEvent event = createEvent("foo", new IllegalStateException("bar"));
+        Assertions
+                .assertThat(RedisEventDeduplicator.fingerprint(event))
+                .isEqualTo(RedisEventDeduplicator.fingerprint(event))
+                .isNotEqualTo(RedisEventDeduplicator.fingerprint(createEvent("foo", null)))
+                .isNotEqualTo(RedisEventDeduplicator.fingerprint(createEvent("foo", new IllegalStateException("baz"))))
+                // Same exception, yet thrown from a different line.
+                .isNotEqualTo(RedisEventDeduplicator.fingerprint(createEvent("foo", new IllegalStateException("bar"))));
+    }
+
+    @Test
+    void fingerprint_should_cover_message_patterns_and_parameters() {
+        LogEvent event = createEvent(new ParameterizedMessage("user {} logged in", 1), null);
+        Assertions
+                .assertThat(RedisEventDeduplicator.fingerprint(event))
+                .isEqualTo(RedisEventDeduplicator.fingerprint(createEvent(new ParameterizedMessage("user {} logged in", 1), null)))
+                .isNotEqualTo(RedisEventDeduplicator.fingerprint(createEvent(new ParameterizedMessage("user {} logged in", 2), null)))
+                .isNotEqualTo(RedisEventDeduplicator.fingerprint(createEvent(new ParameterizedMessage("user {} logged out", 1), null)));
+        ReusableParameterizedMessage reusableMessage = new ReusableParameterizedMessage();
+        reusableMessage.set("user {} logged in", 1);
+        Assertions
+                .assertThat(RedisEventDeduplicator.fingerprint(createEvent(reusableMessage, null)))
+                .isEqualTo(RedisEventDeduplicator.fingerprint(event));
+    }
+
+    @Test
+    void concurrent_duplicates_should_be_counted() throws InterruptedException {
+        RedisEventDeduplicator deduplicator = createDeduplicator(16);
+        int threadCount = 4;
+        int occurrenceCountPerThread = 10_000;
+        AtomicInteger keptCount = new AtomicInteger();
+        Thread[] threads = new Thread[threadCount];
+        for (int threadIndex = 0; threadIndex < threadCount; threadIndex++) {
+            threads[threadIndex] = new Thread(() -> {
+                for (int occurrenceIndex = 0; occurrenceIndex < occurrenceCountPerThread; occurrenceIndex++) {
+                    if (deduplicator.deduplicate(42, 0) >= 0) {
+                        keptCount.incrementAndGet();
+                    }
+                }
+            });
+            threads[threadIndex].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assertions.assertThat(keptCount.get()).isEqualTo(1);
+        Assertions.assertThat(deduplicator.deduplicate(42, WINDOW_NANOS)).isEqualTo(threadCount * occurrenceCountPerThread - 1);
+    }
+
+    @Test
+    void repeat_count_should_be_added_to_context_data() {
+        LogEvent event = createEvent("foo", null);
+        LogEvent repeatedEvent = RedisEventDeduplicator.withRepeatCount(event, 7);
+        Assertions.assertThat(repeatedEvent.getMessage().getFormattedMessage()).isEqualTo("foo");
+        Assertions
+                .assertThat(repeatedEvent.getContextData().<String>getValue(RedisEventDeduplicator.REPEAT_COUNT_KEY))
+                .isEqualTo("7");
+    }
+
+    private static RedisEventDeduplicator createDeduplicator(int maxFingerprintCount) {
+        RedisDeduplicationConfig config = RedisDeduplicationConfig
+                .newBuilder()
+                .setWindowMillis(TimeUnit.NANOSECONDS.toMillis(WINDOW_NANOS))
+                .setMaxFingerprintCount(maxFingerprintCount)
+                .build();
+        return new RedisEventDeduplicator(config);
+    }
+
+    private static LogEvent createEvent(String message, Throwable thrown) {
+        return createEvent(new SimpleMessage(message), thrown);
+    }
+
+    private static LogEvent createEvent(Message message, Throwable thrown) {
+        return Log4jLogEvent
+                .newBuilder()
+                .setLoggerName(RedisEventDeduplicatorTest.class.getName())
+                .setLevel(Level.ERROR)
+                .setMessage(message)
+                .setThrown(thrown)
+                .build();
+    }
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.assertj.core.api.Assertions;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class RedisEventEncoderPoolTest {
+
+    @Test
+    void events_should_be_delivered_in_submission_order() {
+
+        // Create a pool encoding events with random delays.
+        List<String> deliveredMessages = Collections.synchronizedList(new ArrayList<>());
+        Function<LogEvent, byte[]> encoder = event -> {
+            LockSupport.parkNanos(ThreadLocalRandom.current().nextInt(100_000));
+            return event.getMessage().getFormattedMessage().getBytes(StandardCharsets.US_ASCII);
+        };
+        RedisEventEncoderPool.Listener listener = (event, eventBytes, encodingError, endOfBatch) ->
+                deliveredMessages.add(new String(eventBytes, StandardCharsets.US_ASCII));
+        int eventCount = 1_000;
+        try (RedisEventEncoderPool pool = createPool(4, eventCount, encoder, listener)) {
+            pool.start();
+
+            // Submit events.
+            for (int eventIndex = 0; eventIndex < eventCount; eventIndex++) {
+                Assertions.assertThat(pool.submit(createEvent("event-" + eventIndex), false)).isTrue();
+            }
+
+            // Verify the delivery order.
+            List<String> expectedMessages = IntStream
+                    .range(0, eventCount)
+                    .mapToObj(eventIndex -> "event-" + eventIndex)
+                    .collect(Collectors.toList());
+            Awaitility
+                    .await("delivery")
+                    .atMost(Duration.ofSeconds(10))
+                    .untilAsserted(() -> Assertions.assertThat(deliveredMessages).isEqualTo(expectedMessages));
+
+        }
+    }
+
+    @Test
+    void submission_should_be_rejected_when_slots_are_taken() throws InterruptedException {
+
+        // Create a pool blocking on encoding.
+        CountDownLatch encoderLatch = new CountDownLatch(1);
+        Function<LogEvent, byte[]> encoder = event -> {
+            try {
+                encoderLatch.await();
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+            return new byte[]{1};
+        };
+        List<Boolean> deliveredEndOfBatchFlags = Collections.synchronizedList(new ArrayList<>());
+        RedisEventEncoderPool.Listener listener = (event, eventBytes, encodingError, endOfBatch) ->
+                deliveredEndOfBatchFlags.add(endOfBatch);
+        try (RedisEventEncoderPool pool = createPool(1, 2, encoder, listener)) {
+            pool.start();
+
+            // Fill the slots, and verify the rejection.
+            Assertions.assertThat(pool.submit(createEvent("foo"), false)).isTrue();
+            Assertions.assertThat(pool.submit(null, true)).isTrue();
+            Assertions.assertThat(pool.submit(createEvent("bar"), false)).isFalse();
+
+            // Unblock the encoder, and verify that slots are released.
+            encoderLatch.countDown();
+            Awaitility
+                    .await("delivery")
+                    .atMost(Duration.ofSeconds(10))
+                    .untilAsserted(() -> Assertions.assertThat(deliveredEndOfBatchFlags).containsExactly(false, true));
+            Assertions.assertThat(pool.submit(createEvent("baz"), false)).isTrue();
+
+        }
+    }
+
+    @Test
+    void encoding_failures_should_be_delivered_in_submission_order() {
+
+        // Create a pool failing to encode certain events.
+        RuntimeException encodingError = new RuntimeException("expected");
+        Function<LogEvent, byte[]> encoder = event -> {
+            String message = event.getMessage().getFormattedMessage();
+            if ("bar".equals(message)) {
+                throw encodingError;
+            }
+            return message.getBytes(StandardCharsets.US_ASCII);
+        };
+        List<Object> deliveredResults = Collections.synchronizedList(new ArrayList<>());
+        RedisEventEncoderPool.Listener listener = (event, eventBytes, error, endOfBatch) ->
+                deliveredResults.add(error != null ? error : new String(eventBytes, StandardCharsets.US_ASCII));
+        try (RedisEventEncoderPool pool = createPool(2, 3, encoder, listener)) {
+            pool.start();
+
+            // Submit events.
+            Assertions.assertThat(pool.submit(createEvent("foo"), false)).isTrue();
+            Assertions.assertThat(pool.submit(createEvent("bar"), false)).isTrue();
+            Assertions.assertThat(pool.submit(createEvent("baz"), false)).isTrue();
+
+            // Verify that the failure is delivered in place of the event.
+            Awaitility
+                    .await("delivery")
+                    .atMost(Duration.ofSeconds(10))
+                    .untilAsserted(() -> Assertions.assertThat(deliveredResults).containsExactly("foo", encodingError, "baz"));
+
+        }
+    }
+
+    private static RedisEventEncoderPool createPool(
+            int threadCount,
+            int bufferSize,
+            Function<LogEvent, byte[]> encoder,
+            RedisEventEncoderPool.Listener listener) {
+        String name = RedisEventEncoderPoolTest.class.getSimpleName();
+        return new RedisEventEncoderPool("[" + name + "]", name, threadCount, bufferSize, 1_000, encoder, listener);
+    }
+
+    private static LogEvent createEvent(String message) {
+        return Log4jLogEvent
+                .newBuilder()
+                .setLevel(Level.INFO)
+                .setMessage(new SimpleMessage(message))
+                .build();
+    }
+
+}
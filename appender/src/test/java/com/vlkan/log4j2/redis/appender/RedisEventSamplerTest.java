@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+class RedisEventSamplerTest {
+
+    @Test
+    void rate_should_be_resolved_by_logger_then_level() {
+        RedisSamplingConfig config = RedisSamplingConfig
+                .newBuilder()
+                .setRate(0.9)
+                .setLevelRates("DEBUG=0.01, info=0.1")
+                .setLoggerRates("com.acme=0.5,com.acme.chatty=0.05")
+                .build();
+        RedisEventSampler sampler = new RedisEventSampler(config);
+        Assertions.assertThat(sampler.rate(createEvent("com.acme.chatty.Foo", Level.ERROR))).isEqualTo(0.05);
+        Assertions.assertThat(sampler.rate(createEvent("com.acme.chatty", Level.ERROR))).isEqualTo(0.05);
+        Assertions.assertThat(sampler.rate(createEvent("com.acme.chattyBar", Level.ERROR))).isEqualTo(0.5);
+        Assertions.assertThat(sampler.rate(createEvent("com.acme.Bar", Level.DEBUG))).isEqualTo(0.5);
+        Assertions.assertThat(sampler.rate(createEvent("org.Baz", Level.DEBUG))).isEqualTo(0.01);
+        Assertions.assertThat(sampler.rate(createEvent("org.Baz", Level.INFO))).isEqualTo(0.1);
+        Assertions.assertThat(sampler.rate(createEvent("org.Baz", Level.WARN))).isEqualTo(0.9);
+    }
+
+    @Test
+    void events_should_be_sampled_by_rate() {
+        RedisSamplingConfig config = RedisSamplingConfig
+                .newBuilder()
+                .setLevelRates("DEBUG=0,INFO=0.5")
+                .build();
+        RedisEventSampler sampler = new RedisEventSampler(config);
+        int eventCount = 10_000;
+        Assertions.assertThat(countSampled(sampler, createEvent("foo", Level.DEBUG), eventCount)).isZero();
+        Assertions.assertThat(countSampled(sampler, createEvent("foo", Level.WARN), eventCount)).isEqualTo(eventCount);
+        Assertions
+                .assertThat(countSampled(sampler, createEvent("foo", Level.INFO), eventCount))
+                .isBetween(eventCount / 2 - 500L, eventCount / 2 + 500L);
+    }
+
+    @Test
+    void invalid_rates_should_be_rejected() {
+        Assertions
+                .assertThatThrownBy(() -> RedisSamplingConfig.newBuilder().setLevelRates("DEBUG=1.5").build())
+                .isInstanceOf(IllegalArgumentException.class);
+        Assertions
+                .assertThatThrownBy(() -> RedisSamplingConfig.newBuilder().setLevelRates("NOPE=0.5").build())
+                .isInstanceOf(IllegalArgumentException.class);
+        Assertions
+                .assertThatThrownBy(() -> RedisSamplingConfig.newBuilder().setLoggerRates("com.acme").build())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static long countSampled(RedisEventSampler sampler, LogEvent event, int eventCount) {
+        return IntStream.range(0, eventCount).filter(ignored -> sampler.sample(event)).count();
+    }
+
+    private static LogEvent createEvent(String loggerName, Level level) {
+        return Log4jLogEvent
+                .newBuilder()
+                .setLoggerName(loggerName)
+                .setLevel(level)
+                .setMessage(new SimpleMessage("foo"))
+                .build();
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.assertj.core.api.Assertions;
+import org.assertj.core.data.Percentage;
+import org.junit.jupiter.api.Test;
+
+class RedisHistogramTest {
+
+    @Test
+    void buckets_should_cover_values_contiguously() {
+        long[] values = {0, 1, 15, 16, 31, 32, 33, 1_000, 123_456_789, Long.MAX_VALUE - 1, Long.MAX_VALUE};
+        for (long value : values) {
+            int bucketIndex = RedisHistogram.bucketIndex(value);
+            Assertions.assertThat(RedisHistogram.bucketMaxValue(bucketIndex)).isGreaterThanOrEqualTo(value);
+            if (bucketIndex > 0) {
+                Assertions.assertThat(RedisHistogram.bucketMaxValue(bucketIndex - 1)).isLessThan(value);
+            }
+        }
+    }
+
+    @Test
+    void empty_histogram_should_report_zeros() {
+        RedisHistogram histogram = new RedisHistogram();
+        Assertions.assertThat(histogram.getCount()).isEqualTo(0);
+        Assertions.assertThat(histogram.getValueAtPercentile(99)).isEqualTo(0);
+        Assertions.assertThat(histogram.getMax()).isEqualTo(0);
+    }
+
+    @Test
+    void percentiles_should_be_within_relative_error() {
+        RedisHistogram histogram = new RedisHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value);
+        }
+        Percentage relativeError = Percentage.withPercentage(100D / RedisHistogram.SUB_BUCKET_COUNT);
+        Assertions.assertThat(histogram.getCount()).isEqualTo(100_000);
+        Assertions.assertThat(histogram.getValueAtPercentile(50)).isCloseTo(50_000, relativeError);
+        Assertions.assertThat(histogram.getValueAtPercentile(99)).isCloseTo(99_000, relativeError);
+        Assertions.assertThat(histogram.getValueAtPercentile(99.9)).isCloseTo(99_900, relativeError);
+        Assertions.assertThat(histogram.getValueAtPercentile(100)).isEqualTo(100_000);
+        Assertions.assertThat(histogram.getMax()).isEqualTo(100_000);
+    }
+
+    @Test
+    void values_should_be_reported_for_two_intervals() {
+        RedisHistogram histogram = new RedisHistogram(Long.MAX_VALUE);
+
+        // Record values into the first interval.
+        histogram.record(1_000);
+        histogram.rollOver(System.nanoTime());
+
+        // Verify that the previous interval is still reported.
+        histogram.record(10);
+        Assertions.assertThat(histogram.getCount()).isEqualTo(2);
+        Assertions.assertThat(histogram.getMax()).isEqualTo(1_000);
+
+        // Verify that the interval before the previous one is discarded.
+        histogram.rollOver(System.nanoTime());
+        Assertions.assertThat(histogram.getCount()).isEqualTo(1);
+        Assertions.assertThat(histogram.getValueAtPercentile(100)).isEqualTo(10);
+        Assertions.assertThat(histogram.getMax()).isEqualTo(10);
+        histogram.rollOver(System.nanoTime());
+        Assertions.assertThat(histogram.getCount()).isEqualTo(0);
+        Assertions.assertThat(histogram.getMax()).isEqualTo(0);
+
+    }
+
+    @Test
+    void negative_values_should_be_clamped() {
+        RedisHistogram histogram = new RedisHistogram();
+        histogram.record(-1);
+        Assertions.assertThat(histogram.getValueAtPercentile(100)).isEqualTo(0);
+        Assertions.assertThat(histogram.getCount()).isEqualTo(1);
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.config.DefaultConfiguration;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+class RedisKeyRouterTest {
+
+    @Test
+    void key_should_be_resolved_from_pattern() {
+        RedisKeyRouter router = new RedisKeyRouter(new DefaultConfiguration(), "logs:%level", StandardCharsets.UTF_8, 2);
+        Assertions.assertThat(router.resolveKeyBytes(createEvent(Level.INFO))).isEqualTo(bytes("logs:INFO"));
+        Assertions.assertThat(router.resolveKeyBytes(createEvent(Level.ERROR))).isEqualTo(bytes("logs:ERROR"));
+    }
+
+    @Test
+    void keys_should_be_cached_up_to_capacity() {
+        RedisKeyRouter router = new RedisKeyRouter(new DefaultConfiguration(), "logs:%level", StandardCharsets.UTF_8, 2);
+
+        // Verify that cached keys are reused.
+        byte[] infoKeyBytes = router.resolveKeyBytes(createEvent(Level.INFO));
+        Assertions.assertThat(router.resolveKeyBytes(createEvent(Level.INFO))).isSameAs(infoKeyBytes);
+
+        // Overflow the cache, and verify that keys are still resolved.
+        router.resolveKeyBytes(createEvent(Level.WARN));
+        Assertions.assertThat(router.resolveKeyBytes(createEvent(Level.ERROR))).isEqualTo(bytes("logs:ERROR"));
+        Assertions.assertThat(router.resolveKeyBytes(createEvent(Level.INFO))).isEqualTo(infoKeyBytes);
+
+    }
+
+    @Test
+    void events_should_be_grouped_by_key_in_order() {
+        byte[][] frames = {
+                RedisKeyRouter.frame(bytes("a"), bytes("a0")),
+                RedisKeyRouter.frame(bytes("b"), bytes("b0")),
+                RedisKeyRouter.frame(bytes("a"), bytes("a1")),
+                RedisKeyRouter.frame(bytes(""), bytes("empty")),
+                RedisKeyRouter.frame(bytes("b"), bytes("b1"))
+        };
+        List<RedisKeyRouter.KeyGroup> keyGroups = RedisKeyRouter.groupByKey(frames);
+        Assertions.assertThat(keyGroups).hasSize(3);
+        Assertions.assertThat(keyGroups.get(0).getKeyBytes()).isEqualTo(bytes("a"));
+        Assertions.assertThat(keyGroups.get(0).copyEvents()).isDeepEqualTo(new byte[][]{bytes("a0"), bytes("a1")});
+        Assertions.assertThat(keyGroups.get(1).getKeyBytes()).isEqualTo(bytes("b"));
+        Assertions.assertThat(keyGroups.get(1).copyEvents()).isDeepEqualTo(new byte[][]{bytes("b0"), bytes("b1")});
+        Assertions.assertThat(keyGroups.get(2).getKeyBytes()).isEmpty();
+        Assertions.assertThat(keyGroups.get(2).copyEvents()).isDeepEqualTo(new byte[][]{bytes("empty")});
+    }
+
+    @Test
+    void events_should_be_sliced_from_frames() {
+        byte[] frame = RedisKeyRouter.frame(bytes("key"), bytes("event"));
+        RedisKeyRouter.KeyGroup keyGroup = RedisKeyRouter.groupByKey(new byte[][]{frame}).get(0);
+        Assertions.assertThat(keyGroup.getFrames()[0]).isSameAs(frame);
+        int eventOffset = keyGroup.getEventOffsets()[0];
+        Assertions.assertThat(Arrays.copyOfRange(frame, eventOffset, frame.length)).isEqualTo(bytes("event"));
+    }
+
+    @Test
+    void unframed_and_malformed_events_should_be_grouped_without_key() {
+        byte[][] frames = {
+                bytes("plain"),
+                RedisKeyRouter.frame(bytes("a"), bytes("a0")),
+                new byte[]{0, 'R', 'K', 1, 0, 0, 0, 9, 'a'},
+                new byte[]{0}
+        };
+        List<RedisKeyRouter.KeyGroup> keyGroups = RedisKeyRouter.groupByKey(frames);
+        Assertions.assertThat(keyGroups).hasSize(2);
+        Assertions.assertThat(keyGroups.get(0).getKeyBytes()).isNull();
+        Assertions.assertThat(keyGroups.get(0).copyEvents()).isDeepEqualTo(new byte[][]{frames[0], frames[2], frames[3]});
+        Assertions.assertThat(keyGroups.get(1).getKeyBytes()).isEqualTo(bytes("a"));
+        Assertions.assertThat(keyGroups.get(1).copyEvents()).isDeepEqualTo(new byte[][]{bytes("a0")});
+    }
+
+    private static LogEvent createEvent(Level level) {
+        return Log4jLogEvent
+                .newBuilder()
+                .setLevel(level)
+                .setMessage(new SimpleMessage("message"))
+                .build();
+    }
+
+    private static byte[] bytes(String string) {
+        return string.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
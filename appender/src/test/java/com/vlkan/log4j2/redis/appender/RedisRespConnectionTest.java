@@ -0,0 +1,125 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+class RedisRespConnectionTest {
+
+    private static final String CLASS_NAME = RedisRespConnectionTest.class.getSimpleName();
+
+    private final String redisHost = NetworkUtils.localHostName();
+
+    private final int redisPort = NetworkUtils.findUnusedPort(redisHost);
+
+    private final String redisUsername = String.format("%s-RedisUsername-%s:%d", CLASS_NAME, redisHost, redisPort);
+
+    private final String redisPassword = String.format("%s-RedisPassword-%s:%d", CLASS_NAME, redisHost, redisPort);
+
+    private final String redisKey = String.format("%s-RedisKey-%s:%d", CLASS_NAME, redisHost, redisPort);
+
+    @Order(1)
+    @RegisterExtension
+    final RedisServerExtension redisServerExtension = new RedisServerExtension(redisPort, redisUsername, redisPassword);
+
+    @Order(2)
+    @RegisterExtension
+    final RedisClientExtension redisClientExtension = new RedisClientExtension(redisHost, redisPort, redisUsername, redisPassword);
+
+    @Test
+    void pipelined_commands_should_be_executed_on_sync() {
+        try (RedisRespConnection connection = openConnection(redisPassword)) {
+
+            // Push values, one exceeding the write buffer, and hence, written by a gather write.
+            char[] largeValueChars = new char[200_000];
+            Arrays.fill(largeValueChars, 'x');
+            String largeValue = new String(largeValueChars);
+            String[] values = {"foo", largeValue, "bar"};
+            for (int round = 0; round < 2; round++) {
+                connection.writeCommandHeader(2 + values.length);
+                connection.writeBulkString(bytes("RPUSH"));
+                connection.writeBulkString(bytes(redisKey));
+                for (String value : values) {
+                    connection.writeBulkString(bytes(value));
+                }
+            }
+
+            // Sync and verify the values.
+            connection.sync();
+            Jedis jedis = redisClientExtension.getClient();
+            Assertions
+                    .assertThat(jedis.lrange(redisKey, 0, -1))
+                    .containsExactly("foo", largeValue, "bar", "foo", largeValue, "bar");
+
+        }
+    }
+
+    @Test
+    void error_replies_should_be_thrown_after_reading_all_replies() {
+        try (RedisRespConnection connection = openConnection(redisPassword)) {
+
+            // Push to a string, which fails, followed by a push to a list.
+            Jedis jedis = redisClientExtension.getClient();
+            String stringKey = redisKey + "-string";
+            jedis.set(stringKey, "value");
+            for (String key : new String[]{stringKey, redisKey}) {
+                connection.writeCommandHeader(3);
+                connection.writeBulkString(bytes("RPUSH"));
+                connection.writeBulkString(bytes(key));
+                connection.writeBulkString(bytes("foo"));
+            }
+            Assertions
+                    .assertThatThrownBy(connection::sync)
+                    .isInstanceOf(JedisDataException.class)
+                    .hasMessageStartingWith("WRONGTYPE");
+            Assertions.assertThat(jedis.lrange(redisKey, 0, -1)).containsExactly("foo");
+
+            // Verify that the connection is still usable.
+            connection.writeCommandHeader(3);
+            connection.writeBulkString(bytes("RPUSH"));
+            connection.writeBulkString(bytes(redisKey));
+            connection.writeBulkString(bytes("bar"));
+            connection.sync();
+            Assertions.assertThat(jedis.lrange(redisKey, 0, -1)).containsExactly("foo", "bar");
+
+        }
+    }
+
+    @Test
+    void authentication_failure_should_be_thrown() {
+        Assertions
+                .assertThatThrownBy(() -> openConnection("invalid-" + redisPassword))
+                .isInstanceOf(JedisDataException.class)
+                .hasMessageStartingWith("WRONGPASS");
+    }
+
+    private RedisRespConnection openConnection(String password) {
+        return RedisRespConnection.open(redisHost, redisPort, 1_000, 1_000, redisUsername, password, 0);
+    }
+
+    private static byte[] bytes(String string) {
+        return string.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
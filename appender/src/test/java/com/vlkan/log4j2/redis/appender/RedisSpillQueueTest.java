@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+class RedisSpillQueueTest {
+
+    private static final String OWNER_NAME = RedisSpillQueueTest.class.getSimpleName();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void events_should_be_consumed_in_order_across_segments() {
+        RedisSpillQueueConfig config = createConfig(RedisSpillQueueConfig.SEGMENT_SYNC_POLICY);
+        try (RedisSpillQueue queue = RedisSpillQueue.acquire(OWNER_NAME, config)) {
+
+            // Spill events spanning multiple segments.
+            byte[][] events = createEvents(0, 10);
+            Assertions.assertThat(queue.offer(events, 0, events.length)).isEqualTo(events.length);
+            Assertions.assertThat(queue.getEventCount()).isEqualTo(events.length);
+
+            // Verify that peeking doesn't consume.
+            Assertions.assertThat(queue.peek(3)).isDeepEqualTo(createEvents(0, 3));
+            Assertions.assertThat(queue.peek(3)).isDeepEqualTo(createEvents(0, 3));
+
+            // Consume in chunks.
+            queue.remove(3);
+            Assertions.assertThat(queue.peek(4)).isDeepEqualTo(createEvents(3, 7));
+            queue.remove(4);
+            Assertions.assertThat(queue.peek(100)).isDeepEqualTo(createEvents(7, 10));
+            queue.remove(3);
+            Assertions.assertThat(queue.isEmpty()).isTrue();
+            Assertions.assertThat(queue.peek(100)).isEmpty();
+
+        }
+    }
+
+    @Test
+    void events_should_be_recovered_after_reopening() throws IOException {
+
+        // Spill some events and consume a few.
+        RedisSpillQueueConfig config = createConfig(RedisSpillQueueConfig.BATCH_SYNC_POLICY);
+        try (RedisSpillQueue queue = RedisSpillQueue.acquire(OWNER_NAME, config)) {
+            byte[][] events = createEvents(0, 10);
+            queue.offer(events, 0, events.length);
+            queue.remove(6);
+        }
+
+        // Verify that fully consumed segments are deleted.
+        try (Stream<Path> paths = Files.list(directory)) {
+            Assertions.assertThat(paths.filter(path -> path.toString().endsWith(".spill")).count()).isEqualTo(2);
+        }
+
+        // Reopen and verify the unconsumed events.
+        try (RedisSpillQueue queue = RedisSpillQueue.acquire(OWNER_NAME, config)) {
+            Assertions.assertThat(queue.getEventCount()).isEqualTo(4);
+            Assertions.assertThat(queue.peek(100)).isDeepEqualTo(createEvents(6, 10));
+        }
+
+    }
+
+    @Test
+    void offer_should_stop_at_disk_budget() {
+        RedisSpillQueueConfig config = createConfig(RedisSpillQueueConfig.NONE_SYNC_POLICY);
+        try (RedisSpillQueue queue = RedisSpillQueue.acquire(OWNER_NAME, config)) {
+            // Each segment holds 3 events, and the budget allows 4 segments.
+            byte[][] events = createEvents(0, 20);
+            Assertions.assertThat(queue.offer(events, 0, events.length)).isEqualTo(12);
+            queue.remove(3);
+            Assertions.assertThat(queue.offer(events, 12, 8)).isEqualTo(3);
+        }
+    }
+
+    @Test
+    void queue_should_only_be_shared_by_the_same_owner() {
+        RedisSpillQueueConfig config = createConfig(RedisSpillQueueConfig.NONE_SYNC_POLICY);
+        try (RedisSpillQueue queue = RedisSpillQueue.acquire(OWNER_NAME, config)) {
+
+            // Verify that the same owner shares the queue.
+            try (RedisSpillQueue sharedQueue = RedisSpillQueue.acquire(OWNER_NAME, config)) {
+                Assertions.assertThat(sharedQueue).isSameAs(queue);
+            }
+
+            // Verify that another owner is rejected.
+            Assertions
+                    .assertThatThrownBy(() -> RedisSpillQueue.acquire(OWNER_NAME + "-other", config))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageStartingWith("spill directory is in use by another appender");
+
+        }
+    }
+
+    private RedisSpillQueueConfig createConfig(String syncPolicy) {
+        // Each event takes 4 (length prefix) + 6 (payload) bytes, hence a segment holds 3 events.
+        return RedisSpillQueueConfig
+                .newBuilder()
+                .setDirectory(directory.toString())
+                .setSegmentByteCount(32)
+                .setMaxByteCount(4 * 32)
+                .setSyncPolicy(syncPolicy)
+                .build();
+    }
+
+    private static byte[][] createEvents(int startIndex, int endIndex) {
+        byte[][] events = new byte[endIndex - startIndex][];
+        for (int index = startIndex; index < endIndex; index++) {
+            events[index - startIndex] = String.format("event%d", index % 10).getBytes(StandardCharsets.US_ASCII);
+        }
+        return events;
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+class RedisStreamConfigTest {
+
+    @Test
+    void max_len_args_should_be_shared() {
+        RedisStreamConfig config = RedisStreamConfig.newBuilder().setMaxLen(10).build();
+        Assertions.assertThat(decode(config.getXAddArgBytes(1_000))).containsExactly("MAXLEN", "~", "10", "*");
+        Assertions.assertThat(config.getXAddArgBytes(2_000)).isSameAs(config.getXAddArgBytes(1_000));
+    }
+
+    @Test
+    void min_id_should_follow_the_current_time() {
+        RedisStreamConfig config = RedisStreamConfig
+                .newBuilder()
+                .setMinIdAgeMillis(100)
+                .setApproximateTrimming(false)
+                .build();
+        Assertions.assertThat(decode(config.getXAddArgBytes(1_000))).containsExactly("MINID", "=", "900", "*");
+        Assertions.assertThat(decode(config.getXAddArgBytes(2_000))).containsExactly("MINID", "=", "1900", "*");
+    }
+
+    @Test
+    void max_len_and_min_id_age_should_be_exclusive() {
+        Assertions
+                .assertThatThrownBy(() -> RedisStreamConfig.newBuilder().setMaxLen(10).setMinIdAgeMillis(100).build())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("minIdAgeMillis");
+    }
+
+    private static List<String> decode(byte[][] args) {
+        return Arrays
+                .stream(args)
+                .map(arg -> new String(arg, StandardCharsets.UTF_8))
+                .collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+class RedisThrottlerBatchControllerTest {
+
+    private static final long FAST_PUSH_LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final long SLOW_PUSH_LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final RedisThrottlerBatchController controller = new RedisThrottlerBatchController(RedisThrottlerConfig
+            .newBuilder()
+            .setBufferSize(1_000)
+            .setBatchSize(100)
+            .setMinBatchSize(10)
+            .setFlushPeriodMillis(1_000)
+            .setTargetPushLatencyMillis(10)
+            .build());
+
+    @Test
+    void batch_size_should_increase_additively_while_buffer_fills() {
+        Assertions.assertThat(controller.getBatchSize()).isEqualTo(10);
+        controller.onPush(10, FAST_PUSH_LATENCY_NANOS, true, 500);
+        Assertions.assertThat(controller.getBatchSize()).isEqualTo(20);
+        controller.onPush(20, FAST_PUSH_LATENCY_NANOS, true, 500);
+        Assertions.assertThat(controller.getBatchSize()).isEqualTo(30);
+        for (int pushIndex = 0; pushIndex < 10; pushIndex++) {
+            controller.onPush(controller.getBatchSize(), FAST_PUSH_LATENCY_NANOS, true, 500);
+        }
+        Assertions.assertThat(controller.getBatchSize()).isEqualTo(100);
+    }
+
+    @Test
+    void batch_size_should_not_increase_on_partial_batches_or_empty_buffer() {
+        controller.onPush(5, FAST_PUSH_LATENCY_NANOS, true, 500);
+        Assertions.assertThat(controller.getBatchSize()).isEqualTo(10);
+        controller.onPush(10, FAST_PUSH_LATENCY_NANOS, true, 0);
+        Assertions.assertThat(controller.getBatchSize()).isEqualTo(10);
+    }
+
+    @Test
+    void batch_size_should_decrease_multiplicatively_on_slow_or_failed_pushes() {
+        for (int pushIndex = 0; pushIndex < 10; pushIndex++) {
+            controller.onPush(controller.getBatchSize(), FAST_PUSH_LATENCY_NANOS, true, 500);
+        }
+        Assertions.assertThat(controller.getBatchSize()).isEqualTo(100);
+        controller.onPush(100, SLOW_PUSH_LATENCY_NANOS, true, 500);
+        Assertions.assertThat(controller.getBatchSize()).isEqualTo(50);
+        controller.onPush(50, FAST_PUSH_LATENCY_NANOS, false, 500);
+        Assertions.assertThat(controller.getBatchSize()).isEqualTo(25);
+        controller.onPush(25, SLOW_PUSH_LATENCY_NANOS, true, 500);
+        controller.onPush(12, SLOW_PUSH_LATENCY_NANOS, true, 500);
+        Assertions.assertThat(controller.getBatchSize()).isEqualTo(10);
+    }
+
+    @Test
+    void flush_period_should_shorten_with_buffer_occupancy() {
+        Assertions.assertThat(controller.getFlushPeriodNanos()).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+        controller.onFlush(750);
+        Assertions.assertThat(controller.getFlushPeriodNanos()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(250));
+        controller.onFlush(1_000);
+        Assertions.assertThat(controller.getFlushPeriodNanos()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(1));
+        controller.onFlush(0);
+        Assertions.assertThat(controller.getFlushPeriodNanos()).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+    }
+
+}
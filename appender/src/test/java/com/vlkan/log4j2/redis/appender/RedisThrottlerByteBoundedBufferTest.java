@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+class RedisThrottlerByteBoundedBufferTest {
+
+    @Test
+    void offer_should_fail_when_out_of_bytes() {
+        RedisThrottlerByteBoundedBuffer buffer = new RedisThrottlerByteBoundedBuffer(new RedisThrottlerRingBuffer(100), 10);
+        Assertions.assertThat(buffer.offer(new byte[6])).isTrue();
+        Assertions.assertThat(buffer.offer(new byte[5])).isFalse();
+        Assertions.assertThat(buffer.offer(new byte[4])).isTrue();
+        Assertions.assertThat(buffer.offer(new byte[11])).isFalse();
+        Assertions.assertThat(buffer.getByteCount()).isEqualTo(10);
+        Assertions.assertThat(buffer.poll()).hasSize(6);
+        Assertions.assertThat(buffer.getByteCount()).isEqualTo(4);
+        Assertions.assertThat(buffer.offer(new byte[5])).isTrue();
+        Assertions.assertThat(buffer.size()).isEqualTo(2);
+    }
+
+    @Test
+    void bulk_offer_should_stop_when_out_of_bytes() {
+        RedisThrottlerByteBoundedBuffer buffer = new RedisThrottlerByteBoundedBuffer(new RedisThrottlerRingBuffer(2), 10);
+        byte[][] events = {new byte[4], new byte[5], new byte[2]};
+        Assertions.assertThat(buffer.offer(events, 0, events.length)).isEqualTo(2);
+        Assertions.assertThat(buffer.getByteCount()).isEqualTo(9);
+        Assertions.assertThat(buffer.poll()).hasSize(4);
+        // The decorated buffer is out of events before the budget is exhausted, hence the reservation gets released.
+        Assertions.assertThat(buffer.offer(events, 2, 1)).isEqualTo(1);
+        Assertions.assertThat(buffer.offer(new byte[][]{new byte[1], new byte[1]}, 0, 2)).isZero();
+        Assertions.assertThat(buffer.getByteCount()).isEqualTo(7);
+    }
+
+    @Test
+    void offer_should_release_bytes_when_out_of_events() {
+        RedisThrottlerByteBoundedBuffer buffer = new RedisThrottlerByteBoundedBuffer(new RedisThrottlerBlockingBuffer(1), 10);
+        Assertions.assertThat(buffer.offer(new byte[1])).isTrue();
+        Assertions.assertThat(buffer.offer(new byte[1])).isFalse();
+        Assertions.assertThat(buffer.getByteCount()).isEqualTo(1);
+    }
+
+    @Test
+    void offer_should_wait_for_available_bytes() throws InterruptedException {
+
+        // Exhaust the budget.
+        RedisThrottlerByteBoundedBuffer buffer = new RedisThrottlerByteBoundedBuffer(new RedisThrottlerRingBuffer(100), 4);
+        Assertions.assertThat(buffer.offer(new byte[4])).isTrue();
+        Assertions.assertThat(buffer.offer(new byte[2], 100, TimeUnit.MILLISECONDS)).isFalse();
+
+        // Verify that a waiting producer gets woken up by a consumer.
+        Thread consumer = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            buffer.poll();
+        });
+        consumer.start();
+        Assertions.assertThat(buffer.offer(new byte[2], 10, TimeUnit.SECONDS)).isTrue();
+        consumer.join();
+        Assertions.assertThat(buffer.getByteCount()).isEqualTo(2);
+
+    }
+
+}
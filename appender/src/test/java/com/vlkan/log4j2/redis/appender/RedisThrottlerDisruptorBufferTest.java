@@ -0,0 +1,176 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+class RedisThrottlerDisruptorBufferTest {
+
+    @Test
+    void offer_should_fail_when_full_and_poll_should_preserve_order() {
+
+        // Fill the buffer.
+        int capacity = 3;
+        RedisThrottlerDisruptorBuffer buffer = new RedisThrottlerDisruptorBuffer(capacity);
+        for (int i = 0; i < capacity; i++) {
+            Assertions.assertThat(buffer.offer(new byte[]{(byte) i})).isTrue();
+        }
+        Assertions.assertThat(buffer.offer(new byte[]{(byte) capacity})).isFalse();
+
+        // Drain the buffer.
+        for (int i = 0; i < capacity; i++) {
+            Assertions.assertThat(buffer.poll()).containsExactly((byte) i);
+        }
+        Assertions.assertThat(buffer.poll()).isNull();
+
+        // Verify that the buffer wraps around.
+        Assertions.assertThat(buffer.offer(new byte[]{42})).isTrue();
+        Assertions.assertThat(buffer.poll()).containsExactly((byte) 42);
+
+    }
+
+    @Test
+    void bulk_offer_should_stop_when_full_and_preserve_order() {
+
+        // Offer more events than the capacity in bulk.
+        int capacity = 3;
+        RedisThrottlerDisruptorBuffer buffer = new RedisThrottlerDisruptorBuffer(capacity);
+        Assertions.assertThat(buffer.offer(new byte[]{0})).isTrue();
+        byte[][] events = {new byte[]{1}, new byte[]{2}, new byte[]{3}};
+        Assertions.assertThat(buffer.offer(events, 0, events.length)).isEqualTo(2);
+        Assertions.assertThat(buffer.offer(events, 2, 1)).isZero();
+
+        // Verify the order.
+        for (int i = 0; i < capacity; i++) {
+            Assertions.assertThat(buffer.poll()).containsExactly((byte) i);
+        }
+        Assertions.assertThat(buffer.poll()).isNull();
+
+        // Verify that the buffer wraps around.
+        Assertions.assertThat(buffer.offer(events, 0, events.length)).isEqualTo(3);
+        for (int i = 1; i <= capacity; i++) {
+            Assertions.assertThat(buffer.poll()).containsExactly((byte) i);
+        }
+
+    }
+
+    @Test
+    void poll_should_time_out_on_empty_buffer() throws InterruptedException {
+        RedisThrottlerDisruptorBuffer buffer = new RedisThrottlerDisruptorBuffer(1);
+        long startNanos = System.nanoTime();
+        Assertions.assertThat(buffer.poll(100, TimeUnit.MILLISECONDS)).isNull();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        Assertions.assertThat(elapsedMillis).isGreaterThanOrEqualTo(100);
+    }
+
+    @Test
+    void offer_should_wait_for_available_space() throws InterruptedException {
+
+        // Fill the buffer.
+        RedisThrottlerDisruptorBuffer buffer = new RedisThrottlerDisruptorBuffer(2);
+        Assertions.assertThat(buffer.offer(new byte[]{0})).isTrue();
+        Assertions.assertThat(buffer.offer(new byte[]{1})).isTrue();
+        Assertions.assertThat(buffer.size()).isEqualTo(2);
+
+        // Verify that offer times out on a full buffer.
+        Assertions.assertThat(buffer.offer(new byte[]{2}, 100, TimeUnit.MILLISECONDS)).isFalse();
+
+        // Verify that a waiting producer gets woken up by a consumer.
+        Thread consumer = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            buffer.poll();
+        });
+        consumer.start();
+        Assertions.assertThat(buffer.offer(new byte[]{3}, 10, TimeUnit.SECONDS)).isTrue();
+        consumer.join();
+        Assertions.assertThat(buffer.poll()).containsExactly((byte) 1);
+        Assertions.assertThat(buffer.poll()).containsExactly((byte) 3);
+        Assertions.assertThat(buffer.size()).isEqualTo(0);
+
+    }
+
+    @Test
+    void poll_should_be_interruptible() {
+        RedisThrottlerDisruptorBuffer buffer = new RedisThrottlerDisruptorBuffer(1);
+        Thread.currentThread().interrupt();
+        Assertions
+                .assertThatThrownBy(() -> buffer.poll(10, TimeUnit.SECONDS))
+                .isInstanceOf(InterruptedException.class);
+        Assertions.assertThat(Thread.interrupted()).isFalse();
+    }
+
+    @Test
+    void concurrent_producers_should_not_lose_events() throws InterruptedException {
+
+        // Start the producers.
+        int producerCount = 8;
+        int eventCountPerProducer = 10_000;
+        RedisThrottlerDisruptorBuffer buffer = new RedisThrottlerDisruptorBuffer(64);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<Thread> producers = new ArrayList<>(producerCount);
+        for (int producerIndex = 0; producerIndex < producerCount; producerIndex++) {
+            int producerId = producerIndex;
+            Thread producer = new Thread(() -> {
+                try {
+                    startLatch.await();
+                } catch (InterruptedException ignored) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int eventIndex = 0; eventIndex < eventCountPerProducer; eventIndex++) {
+                    byte[] event = ByteBuffer.allocate(8).putInt(producerId).putInt(eventIndex).array();
+                    while (!buffer.offer(event)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+        startLatch.countDown();
+
+        // Consume the events and verify the per-producer order.
+        int[] nextEventIndices = new int[producerCount];
+        for (int eventCount = 0; eventCount < producerCount * eventCountPerProducer; eventCount++) {
+            byte[] event = buffer.poll(10, TimeUnit.SECONDS);
+            Assertions.assertThat(event).isNotNull();
+            ByteBuffer eventBuffer = ByteBuffer.wrap(event);
+            int producerId = eventBuffer.getInt();
+            int eventIndex = eventBuffer.getInt();
+            Assertions.assertThat(eventIndex).isEqualTo(nextEventIndices[producerId]++);
+        }
+        Assertions.assertThat(buffer.poll()).isNull();
+
+        // Join the producers.
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+    }
+
+}
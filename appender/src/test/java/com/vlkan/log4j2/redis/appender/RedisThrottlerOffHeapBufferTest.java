@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+class RedisThrottlerOffHeapBufferTest {
+
+    @Test
+    void events_should_be_preserved_across_arena_wrap_around() {
+        RedisThrottlerOffHeapBuffer buffer = new RedisThrottlerOffHeapBuffer(10, 10);
+        for (int round = 0; round < 10; round++) {
+            byte[] firstEvent = createEvent(round, 3);
+            byte[] secondEvent = createEvent(round + 100, 4);
+            Assertions.assertThat(buffer.offer(firstEvent)).isTrue();
+            Assertions.assertThat(buffer.offer(secondEvent)).isTrue();
+            Assertions.assertThat(buffer.size()).isEqualTo(2);
+            Assertions.assertThat(buffer.poll()).isEqualTo(firstEvent);
+            Assertions.assertThat(buffer.poll()).isEqualTo(secondEvent);
+            Assertions.assertThat(buffer.poll()).isNull();
+        }
+    }
+
+    @Test
+    void offer_should_fail_when_out_of_events_or_bytes() {
+
+        // Exhaust the byte capacity.
+        RedisThrottlerOffHeapBuffer buffer = new RedisThrottlerOffHeapBuffer(3, 8);
+        Assertions.assertThat(buffer.offer(createEvent(0, 5))).isTrue();
+        Assertions.assertThat(buffer.offer(createEvent(1, 4))).isFalse();
+        Assertions.assertThat(buffer.offer(createEvent(2, 3))).isTrue();
+        Assertions.assertThat(buffer.offer(createEvent(3, 9))).isFalse();
+
+        // Exhaust the event capacity.
+        Assertions.assertThat(buffer.poll()).isEqualTo(createEvent(0, 5));
+        Assertions.assertThat(buffer.offer(createEvent(4, 1))).isTrue();
+        Assertions.assertThat(buffer.offer(createEvent(5, 1))).isTrue();
+        Assertions.assertThat(buffer.offer(createEvent(6, 1))).isFalse();
+
+    }
+
+    @Test
+    void bulk_offer_should_stop_when_out_of_events_or_bytes() {
+        RedisThrottlerOffHeapBuffer buffer = new RedisThrottlerOffHeapBuffer(3, 8);
+        byte[][] events = {createEvent(0, 5), createEvent(1, 2), createEvent(2, 2), createEvent(3, 1)};
+        Assertions.assertThat(buffer.offer(events, 0, events.length)).isEqualTo(2);
+        Assertions.assertThat(buffer.offer(events, 3, 1)).isEqualTo(1);
+        Assertions.assertThat(buffer.offer(events, 3, 1)).isZero();
+        Assertions.assertThat(buffer.poll()).isEqualTo(events[0]);
+        Assertions.assertThat(buffer.poll()).isEqualTo(events[1]);
+        Assertions.assertThat(buffer.poll()).isEqualTo(events[3]);
+    }
+
+    @Test
+    void offer_should_wait_for_available_bytes() throws InterruptedException {
+
+        // Fill the buffer.
+        RedisThrottlerOffHeapBuffer buffer = new RedisThrottlerOffHeapBuffer(10, 4);
+        Assertions.assertThat(buffer.offer(createEvent(0, 4))).isTrue();
+        Assertions.assertThat(buffer.offer(createEvent(1, 2), 100, TimeUnit.MILLISECONDS)).isFalse();
+
+        // Verify that a waiting producer gets woken up by a consumer.
+        Thread consumer = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            buffer.poll();
+        });
+        consumer.start();
+        Assertions.assertThat(buffer.offer(createEvent(2, 2), 10, TimeUnit.SECONDS)).isTrue();
+        consumer.join();
+        Assertions.assertThat(buffer.poll()).isEqualTo(createEvent(2, 2));
+
+    }
+
+    private static byte[] createEvent(int id, int length) {
+        byte[] event = new byte[length];
+        for (int index = 0; index < length; index++) {
+            event[index] = (byte) (id + index);
+        }
+        return event;
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+class RedisThrottlerStagingAreaTest {
+
+    private static final long PERIOD_MILLIS = 100;
+
+    private final RedisThrottlerRingBuffer buffer = new RedisThrottlerRingBuffer(5);
+
+    private final List<byte[]> droppedEvents = new ArrayList<>();
+
+    private final RedisThrottlerStagingArea stagingArea =
+            new RedisThrottlerStagingArea(buffer, 3, PERIOD_MILLIS, droppedEvents::add);
+
+    @Test
+    void full_chunks_should_be_published() {
+
+        // Verify that events are staged until the chunk is full.
+        stagingArea.add(createEvent(0));
+        stagingArea.add(createEvent(1));
+        Assertions.assertThat(buffer.size()).isZero();
+        stagingArea.add(createEvent(2));
+        Assertions.assertThat(buffer.size()).isEqualTo(3);
+
+        // Verify that events not fitting into the buffer are dropped.
+        for (int i = 3; i < 6; i++) {
+            stagingArea.add(createEvent(i));
+        }
+        Assertions.assertThat(buffer.size()).isEqualTo(5);
+        Assertions.assertThat(droppedEvents).containsExactly(createEvent(5));
+
+        // Verify the order.
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertThat(buffer.poll()).isEqualTo(createEvent(i));
+        }
+
+    }
+
+    @Test
+    void stale_chunks_should_be_published() {
+        long startNanos = System.nanoTime();
+        stagingArea.add(createEvent(0));
+
+        // Verify that fresh chunks are not published.
+        stagingArea.publishStale(startNanos);
+        Assertions.assertThat(buffer.size()).isZero();
+
+        // Verify that stale chunks are published.
+        stagingArea.publishStale(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(PERIOD_MILLIS));
+        Assertions.assertThat(buffer.poll()).isEqualTo(createEvent(0));
+    }
+
+    @Test
+    void chunks_of_terminated_threads_should_be_published() throws InterruptedException {
+        Thread producer = new Thread(() -> stagingArea.add(createEvent(0)));
+        producer.start();
+        producer.join();
+        stagingArea.publishStale(System.nanoTime());
+        Assertions.assertThat(buffer.poll()).isEqualTo(createEvent(0));
+    }
+
+    @Test
+    void current_thread_chunk_should_be_published_on_demand() {
+        stagingArea.add(createEvent(0));
+        stagingArea.publishCurrentThread();
+        Assertions.assertThat(buffer.poll()).isEqualTo(createEvent(0));
+    }
+
+    @Test
+    void chunks_should_be_released_on_close() throws InterruptedException {
+
+        // Stage events from the current and another thread.
+        stagingArea.add(createEvent(0));
+        Thread producer = new Thread(() -> stagingArea.add(createEvent(1)));
+        producer.start();
+        producer.join();
+
+        // Verify that staged events are dropped on close.
+        stagingArea.close();
+        Assertions.assertThat(buffer.size()).isZero();
+        Assertions.assertThat(droppedEvents).containsExactlyInAnyOrder(createEvent(0), createEvent(1));
+
+        // Verify that events staged after close, even by new threads, are dropped.
+        droppedEvents.clear();
+        stagingArea.add(createEvent(2));
+        Thread lateProducer = new Thread(() -> stagingArea.add(createEvent(3)));
+        lateProducer.start();
+        lateProducer.join();
+        stagingArea.publishAll();
+        Assertions.assertThat(buffer.size()).isZero();
+        Assertions.assertThat(droppedEvents).containsExactly(createEvent(2), createEvent(3));
+
+    }
+
+    private static byte[] createEvent(int index) {
+        return new byte[]{(byte) index};
+    }
+
+}
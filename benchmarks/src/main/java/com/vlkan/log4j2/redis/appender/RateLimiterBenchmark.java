@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link RateLimiter#tryAcquire()} and {@link RateLimiter#tryAcquire(int)}.
+ * <p>
+ * The limit is set high enough to never reject, so that only the cost of acquiring permits is measured.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class RateLimiterBenchmark {
+
+    private RateLimiter rateLimiter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rateLimiter = RateLimiter.ofMaxPermitCountPerSecond("Benchmark", 2e9);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean tryAcquire_1_thread() {
+        return rateLimiter.tryAcquire();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean tryAcquire_4_threads() {
+        return rateLimiter.tryAcquire();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean tryAcquire_128_permits_1_thread() {
+        return rateLimiter.tryAcquire(128);
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.apache.logging.log4j.core.LogEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link RedisAppender#append(LogEvent)}, that is, encoding and enqueueing, under contention.
+ * <p>
+ * Events are published to a channel without subscribers, so that Redis discards them instead of growing a list.
+ * Once the flush thread falls behind, appends get rejected due to the lack of buffer space.
+ * Rejection counts are reported at the end of the trial to help interpreting the results.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = RedisBenchmarkFixtures.SILENT_STATUS_LOGGER_JVM_ARG)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class RedisAppenderBenchmark {
+
+    @Param({"blocking", "lockFree", "disruptor"})
+    public String bufferType;
+
+    @Param({"128"})
+    public int messageLength;
+
+    private RedisAppender appender;
+
+    private LogEvent event;
+
+    @Setup(Level.Trial)
+    public void setUp(RedisServerState serverState) {
+        RedisThrottlerConfig throttlerConfig = RedisThrottlerConfig
+                .newBuilder()
+                .setBufferType(bufferType)
+                .setBufferSize(100_000)
+                .setBatchSize(1_000)
+                .build();
+        appender = RedisBenchmarkFixtures.createAppender("Append", serverState, "publish", throttlerConfig);
+        event = RedisBenchmarkFixtures.createLogEvent(messageLength);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        RedisThrottlerJmxBean jmxBean = appender.getJmxBean();
+        System.out.format(
+                "%nappended events: %d, rejected events: %d%n",
+                jmxBean.getTotalEventCount(),
+                jmxBean.getUnavailableBufferSpaceFailureCount());
+        appender.stop();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void append_1_thread() {
+        appender.append(event);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void append_4_threads() {
+        appender.append(event);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void append_16_threads() {
+        appender.append(event);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void append_64_threads() {
+        appender.append(event);
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.config.DefaultConfiguration;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.SimpleMessage;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Fixtures shared by the benchmarks.
+ */
+final class RedisBenchmarkFixtures {
+
+    static final String KEY = "log4j2-redis-appender-benchmarks";
+
+    /**
+     * JVM arguments silencing the status logger.
+     * <p>
+     * Benchmarks saturating the throttler buffer would otherwise measure the error logging of the rejected events.
+     * </p>
+     */
+    static final String SILENT_STATUS_LOGGER_JVM_ARG = "-Dlog4j2.statusLoggerLevel=OFF";
+
+    private RedisBenchmarkFixtures() {}
+
+    static RedisAppender createAppender(
+            String name,
+            RedisServerState serverState,
+            String command,
+            RedisThrottlerConfig throttlerConfig) {
+        return createAppender(name, serverState, command, throttlerConfig, false);
+    }
+
+    static RedisAppender createAppender(
+            String name,
+            RedisServerState serverState,
+            String command,
+            RedisThrottlerConfig throttlerConfig,
+            boolean nativeProtocolEnabled) {
+        RedisAppender appender = RedisAppender
+                .newBuilder()
+                .setConfig(new DefaultConfiguration())
+                .setName(name)
+                .setKey(KEY)
+                .setCommand(command)
+                .setHost(RedisServerState.HOST)
+                .setPort(serverState.getPort())
+                .setThrottlerConfig(throttlerConfig)
+                .setNativeProtocolEnabled(nativeProtocolEnabled)
+                .build();
+        appender.start();
+        return appender;
+    }
+
+    static LogEvent createLogEvent(int messageLength) {
+        StringBuilder messageBuilder = new StringBuilder(messageLength);
+        for (int i = 0; i < messageLength; i++) {
+            messageBuilder.append((char) ('a' + i % 26));
+        }
+        return Log4jLogEvent
+                .newBuilder()
+                .setLoggerName(RedisBenchmarkFixtures.class.getName())
+                .setLevel(org.apache.logging.log4j.Level.INFO)
+                .setMessage(new SimpleMessage(messageBuilder.toString()))
+                .build();
+    }
+
+    static byte[] createEventBytes(int length) {
+        return createLogEvent(length).getMessage().getFormattedMessage().getBytes(StandardCharsets.UTF_8);
+    }
+
+}
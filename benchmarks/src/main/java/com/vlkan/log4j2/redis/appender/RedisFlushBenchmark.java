@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.apache.logging.log4j.core.LogEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import redis.clients.jedis.Jedis;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Measures the end-to-end throughput of events, from {@link RedisAppender#append(LogEvent)} until Redis acknowledges them.
+ * <p>
+ * Every invocation appends {@link #EVENT_COUNT} events and waits until the throttler reports them pushed.
+ * The buffer is large enough to never reject an event.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class RedisFlushBenchmark {
+
+    private static final int EVENT_COUNT = 10_000;
+
+    @Param({"rpush", "publish", "xadd"})
+    public String command;
+
+    @Param({"100", "1000"})
+    public int batchSize;
+
+    @Param({"1", "4"})
+    public int flushThreadCount;
+
+    @Param({"128"})
+    public int messageLength;
+
+    @Param({"false", "true"})
+    public boolean nativeProtocolEnabled;
+
+    private RedisAppender appender;
+
+    private Jedis jedis;
+
+    private LogEvent event;
+
+    @Setup(Level.Trial)
+    public void setUp(RedisServerState serverState) {
+        RedisThrottlerConfig throttlerConfig = RedisThrottlerConfig
+                .newBuilder()
+                .setBufferSize(EVENT_COUNT)
+                .setBatchSize(batchSize)
+                .setFlushThreadCount(flushThreadCount)
+                .build();
+        appender = RedisBenchmarkFixtures.createAppender("Flush", serverState, command, throttlerConfig, nativeProtocolEnabled);
+        jedis = new Jedis(RedisServerState.HOST, serverState.getPort());
+        event = RedisBenchmarkFixtures.createLogEvent(messageLength);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jedis.close();
+        appender.stop();
+    }
+
+    /**
+     * Deletes the pushed events, so that the Redis memory usage doesn't grow throughout the iterations.
+     * <p>
+     * An invocation takes milliseconds, hence the cost of an invocation-level fixture is negligible.
+     * </p>
+     */
+    @TearDown(Level.Invocation)
+    public void deleteKey() {
+        jedis.del(RedisBenchmarkFixtures.KEY);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENT_COUNT)
+    public void appendAndFlush() {
+        RedisThrottlerJmxBean jmxBean = appender.getJmxBean();
+        long expectedPushSuccessCount = jmxBean.getRedisPushSuccessCount() + EVENT_COUNT;
+        for (int eventIndex = 0; eventIndex < EVENT_COUNT; eventIndex++) {
+            appender.append(event);
+        }
+        while (jmxBean.getRedisPushSuccessCount() < expectedPushSuccessCount) {
+            if (jmxBean.getRedisPushFailureCount() > 0) {
+                throw new IllegalStateException("push failure");
+            }
+            LockSupport.parkNanos(10_000);
+        }
+    }
+
+}
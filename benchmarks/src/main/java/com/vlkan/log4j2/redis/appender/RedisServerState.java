@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import redis.embedded.RedisServer;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+
+/**
+ * Embedded Redis server shared by the benchmarks of a trial.
+ */
+@State(Scope.Benchmark)
+public class RedisServerState {
+
+    static final String HOST = "localhost";
+
+    private int port;
+
+    private RedisServer redisServer;
+
+    @Setup(Level.Trial)
+    public void startRedisServer() throws Exception {
+        port = findUnusedPort();
+        redisServer = RedisServer
+                .builder()
+                .port(port)
+                .bind(HOST)
+                // Persistence would dominate the measurements otherwise.
+                .setting("save \"\"")
+                .setting("appendonly no")
+                .build();
+        redisServer.start();
+    }
+
+    private static int findUnusedPort() throws Exception {
+        InetAddress bindAddress = InetAddress.getByName(HOST);
+        try (ServerSocket socket = new ServerSocket(0, 0, bindAddress)) {
+            socket.setReuseAddress(true);
+            return socket.getLocalPort();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopRedisServer() {
+        redisServer.stop();
+    }
+
+    int getPort() {
+        return port;
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017-2024 Volkan Yazıcı
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permits and
+ * limitations under the License.
+ */
+package com.vlkan.log4j2.redis.appender;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link RedisThrottler#push(byte[], org.apache.logging.log4j.Level)}, with and without the event and byte rate limiters.
+ * <p>
+ * Rate limits are set high enough to never reject, so that only the cost of acquiring permits is measured.
+ * Events are published to a channel without subscribers, see {@link RedisAppenderBenchmark}.
+ * A non-zero <code>stagingChunkSize</code> measures the per-thread staging of events, see {@link RedisThrottlerStagingArea}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = RedisBenchmarkFixtures.SILENT_STATUS_LOGGER_JVM_ARG)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class RedisThrottlerBenchmark {
+
+    @Param({"false", "true"})
+    public boolean rateLimited;
+
+    @Param({"blocking", "lockFree", "offHeap", "disruptor"})
+    public String bufferType;
+
+    @Param({"0", "32"})
+    public int stagingChunkSize;
+
+    private RedisAppender appender;
+
+    private RedisThrottler throttler;
+
+    private byte[] event;
+
+    @Setup(Level.Trial)
+    public void setUp(RedisServerState serverState) {
+        RedisThrottlerConfig.Builder throttlerConfigBuilder = RedisThrottlerConfig
+                .newBuilder()
+                .setBufferType(bufferType)
+                .setBufferSize(100_000)
+                .setMaxBufferByteCount(RedisThrottlerConfig.OFF_HEAP_BUFFER_TYPE.equals(bufferType) ? 64L << 20 : 0)
+                .setBatchSize(1_000)
+                .setStagingChunkSize(stagingChunkSize);
+        if (rateLimited) {
+            throttlerConfigBuilder
+                    .setMaxEventCountPerSecond(1e9)
+                    .setMaxByteCountPerSecond(2e9);
+        }
+        RedisThrottlerConfig throttlerConfig = throttlerConfigBuilder.build();
+        appender = RedisBenchmarkFixtures.createAppender("Push", serverState, "publish", throttlerConfig);
+        throttler = new RedisThrottler(throttlerConfig, appender, true);
+        throttler.start();
+        event = RedisBenchmarkFixtures.createEventBytes(128);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        throttler.close();
+        appender.stop();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void push_1_thread() {
+        throttler.push(event, org.apache.logging.log4j.Level.INFO);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void push_4_threads() {
+        throttler.push(event, org.apache.logging.log4j.Level.INFO);
+    }
+
+}